@@ -1,34 +1,51 @@
 package core.bencode;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 public class BencodeByteArray implements BencodeElement<byte[]> {
 
-    private final byte[] value;
+    private final ByteBuffer source;
+    private byte[] value;
 
     public BencodeByteArray(byte[] value) {
+        this.source = null;
         this.value = value;
     }
 
+    // Wraps a slice of a decoded buffer without copying; the payload is only copied on getValue().
+    public BencodeByteArray(ByteBuffer source) {
+        this.source = source.slice();
+    }
+
     @Override
     public byte[] getValue() {
+        if (value == null) {
+            byte[] copy = new byte[source.remaining()];
+            source.get(0, copy);
+            value = copy;
+        }
         return value;
     }
 
-    @Override
-    public byte[] encode() throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        String lengthPrefix = value.length + ":";
+    public int length() {
+        return source != null ? source.remaining() : value.length;
+    }
 
-        outputStream.write(lengthPrefix.getBytes(StandardCharsets.UTF_8));
-        outputStream.write(value);
+    public ByteBuffer asBuffer() {
+        return source != null ? source.duplicate() : ByteBuffer.wrap(value);
+    }
 
-        return outputStream.toByteArray();
+    @Override
+    public byte[] encode() throws IOException {
+        return BencodeEncoder.encode(this);
     }
 
     public String asString() {
+        if (value == null) {
+            return StandardCharsets.UTF_8.decode(asBuffer()).toString();
+        }
         return new String(value, StandardCharsets.UTF_8);
     }
 
@@ -1,38 +1,43 @@
 package core.bencode;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public class BencodeDecoder {
 
-    private final PushbackInputStream stream;
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
 
     public static BencodeElement<?> decode(byte[] data) throws IOException {
-        ByteArrayInputStream byteStream = new ByteArrayInputStream(data);
-        BencodeDecoder decoder = new BencodeDecoder(byteStream);
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    // Byte strings in the returned tree are slices of the given buffer (which may be a MappedByteBuffer),
+    // so the buffer must not be modified while the tree is in use. The buffer's position is left untouched.
+    public static BencodeElement<?> decode(ByteBuffer data) throws IOException {
+        BencodeDecoder decoder = new BencodeDecoder(data);
         return decoder.decodeInternal();
     }
 
-    private BencodeDecoder(InputStream inputStream) {
-        this.stream = new PushbackInputStream(inputStream, 1);
+    private BencodeDecoder(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
     }
 
     private BencodeElement<?> decodeInternal() throws IOException {
-        int readByte = stream.read();
-
-        if (readByte == -1) {
+        if (position >= limit) {
             return null;
         }
 
-        stream.unread(readByte);
-
-        char currentChar = (char) readByte;
+        char currentChar = (char) buffer.get(position);
 
         if (currentChar == 'i') {
             return decodeNumber();
@@ -40,7 +45,7 @@ public class BencodeDecoder {
             return decodeList();
         } else if (currentChar == 'd') {
             return decodeDictionary();
-        } else if (Character.isDigit(currentChar)) {
+        } else if (isDigit(currentChar)) {
             return decodeByteArray();
         } else {
             throw new IOException("Invalid Bencode format: unexpected character '" + currentChar + "'");
@@ -48,99 +53,78 @@ public class BencodeDecoder {
     }
 
     private BencodeNumber decodeNumber() throws IOException {
-        int readByte = stream.read();
-
-        if ((char) readByte != 'i') {
-            throw new IOException("Internal error: expected 'i'");
-        }
-
-        StringBuilder buffer = new StringBuilder();
-        boolean foundEnd = false;
-
-        while ((readByte = stream.read()) != -1) {
-            char currentChar = (char) readByte;
+        int start = ++position;
+        int end = indexOf('e', start);
 
-            if (currentChar == 'e') {
-                foundEnd = true;
-                break;
-            }
-
-            buffer.append(currentChar);
-        }
-
-        if (!foundEnd) {
+        if (end == -1) {
             throw new IOException("Invalid Bencode number: missing 'e' at the end");
         }
 
-        try {
-            return new BencodeNumber(Long.parseLong(buffer.toString()));
-        } catch (NumberFormatException e) {
-            throw new IOException("Invalid Bencode number: " + buffer.toString(), e);
-        }
+        position = end + 1;
+
+        return new BencodeNumber(parseLong(start, end));
     }
 
     private BencodeByteArray decodeByteArray() throws IOException {
-        StringBuilder lengthBuffer = new StringBuilder();
-        int readByte;
-        boolean foundColon = false;
+        return new BencodeByteArray(readByteString());
+    }
 
-        while ((readByte = stream.read()) != -1) {
-            char currentChar = (char) readByte;
+    private ByteBuffer readByteString() throws IOException {
+        int start = position;
+        long length = 0;
+
+        while (position < limit) {
+            char currentChar = (char) buffer.get(position);
 
             if (currentChar == ':') {
-                foundColon = true;
                 break;
             }
 
-            if (Character.isDigit(currentChar)) {
-                lengthBuffer.append(currentChar);
-            } else {
+            if (!isDigit(currentChar)) {
                 throw new IOException("String length contains non-numeric character: " + currentChar);
             }
+
+            length = length * 10 + (currentChar - '0');
+
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("String length exceeds the maximum supported size");
+            }
+
+            position++;
         }
 
-        if (!foundColon) {
+        if (position >= limit) {
             throw new IOException("Invalid Bencode string: missing ':' separator");
         }
 
-        if (lengthBuffer.isEmpty()) {
+        if (position == start) {
             throw new IOException("String has no defined length");
         }
 
-        int length = Integer.parseInt(lengthBuffer.toString());
-        byte[] data = new byte[length];
-
-        int readBytesCount = stream.readNBytes(data, 0, length);
+        position++;
 
-        if (readBytesCount != length) {
+        if (length > limit - position) {
             throw new IOException("Unexpected EOF while reading string of length " + length);
         }
 
-        return new BencodeByteArray(data);
+        ByteBuffer slice = buffer.slice(position, (int) length);
+        position += (int) length;
+
+        return slice;
     }
 
     private BencodeList decodeList() throws IOException {
-        int readByte = stream.read();
-
-        if ((char) readByte != 'l') {
-            throw new IOException("Internal error: expected 'l'");
-        }
+        position++;
 
         List<BencodeElement<?>> list = new ArrayList<>();
 
         while (true) {
-            int peekByte = stream.read();
-
-            if (peekByte == -1) {
+            if (position >= limit) {
                 throw new IOException("Unclosed list (EOF)");
             }
 
-            stream.unread(peekByte);
-
-            char currentChar = (char) peekByte;
-
-            if (currentChar == 'e') {
-                stream.read();
+            if (buffer.get(position) == 'e') {
+                position++;
                 break;
             }
 
@@ -152,43 +136,106 @@ public class BencodeDecoder {
     }
 
     private BencodeDictionary decodeDictionary() throws IOException {
-        int readByte = stream.read();
-
-        if ((char) readByte != 'd') {
-            throw new IOException("Internal error: expected 'd'");
-        }
+        position++;
 
         Map<String, BencodeElement<?>> map = new LinkedHashMap<>();
+        String[] rawKeys = new String[4];
+        int[] rawOffsets = new int[8];
+        int rawCount = 0;
 
         while (true) {
-            int peekByte = stream.read();
-
-            if (peekByte == -1) {
+            if (position >= limit) {
                 throw new IOException("Unclosed dictionary (EOF)");
             }
 
-            stream.unread(peekByte);
-
-            char currentChar = (char) peekByte;
+            byte peekByte = buffer.get(position);
 
-            if (currentChar == 'e') {
-                stream.read();
+            if (peekByte == 'e') {
+                position++;
                 break;
             }
 
-            BencodeElement<?> keyElement = decodeInternal();
-
-            if (!(keyElement instanceof BencodeByteArray)) {
+            if (!isDigit((char) peekByte)) {
+                BencodeElement<?> keyElement = decodeInternal();
                 throw new IOException("Dictionary key is not a String! Found: " + keyElement.getClass().getSimpleName());
             }
 
-            String key = ((BencodeByteArray) keyElement).asString();
+            String key = StandardCharsets.UTF_8.decode(readByteString()).toString();
 
+            int valueStart = position;
             BencodeElement<?> valueElement = decodeInternal();
 
+            if (valueElement == null) {
+                throw new IOException("Unclosed dictionary (EOF)");
+            }
+
             map.put(key, valueElement);
+
+            if (rawCount == rawKeys.length) {
+                rawKeys = Arrays.copyOf(rawKeys, rawCount * 2);
+                rawOffsets = Arrays.copyOf(rawOffsets, rawCount * 4);
+            }
+
+            rawKeys[rawCount] = key;
+            rawOffsets[2 * rawCount] = valueStart;
+            rawOffsets[2 * rawCount + 1] = position;
+            rawCount++;
+        }
+
+        return new BencodeDictionary(map, buffer, rawKeys, rawOffsets, rawCount);
+    }
+
+    private int indexOf(char target, int from) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private long parseLong(int start, int end) throws IOException {
+        boolean negative = start < end && buffer.get(start) == '-';
+        int index = negative ? start + 1 : start;
+
+        if (index == end) {
+            throw new IOException("Invalid Bencode number: " + asciiString(start, end));
         }
 
-        return new BencodeDictionary(map);
+        long result = 0;
+
+        for (; index < end; index++) {
+            char currentChar = (char) buffer.get(index);
+
+            if (!isDigit(currentChar)) {
+                throw new IOException("Invalid Bencode number: " + asciiString(start, end));
+            }
+
+            // Accumulate negatively so that Long.MIN_VALUE is representable.
+            long next = result * 10 - (currentChar - '0');
+
+            if (result < Long.MIN_VALUE / 10 || next > result) {
+                throw new IOException("Invalid Bencode number: " + asciiString(start, end));
+            }
+
+            result = next;
+        }
+
+        if (!negative) {
+            if (result == Long.MIN_VALUE) {
+                throw new IOException("Invalid Bencode number: " + asciiString(start, end));
+            }
+            result = -result;
+        }
+
+        return result;
+    }
+
+    private String asciiString(int start, int end) {
+        return StandardCharsets.US_ASCII.decode(buffer.slice(start, end - start)).toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
-}
\ No newline at end of file
+}
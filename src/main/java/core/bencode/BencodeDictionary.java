@@ -1,16 +1,29 @@
 package core.bencode;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 public class BencodeDictionary implements BencodeElement<Map<String, BencodeElement<?>>> {
 
     private final Map<String, BencodeElement<?>> value;
+    // Where each decoded value starts and ends in the source buffer, as pairs in rawOffsets; slices are
+    // only created when asked for, since almost no dictionary ever needs its raw values.
+    private final ByteBuffer source;
+    private final String[] rawKeys;
+    private final int[] rawOffsets;
+    private final int rawCount;
 
     public BencodeDictionary(Map<String, BencodeElement<?>> value) {
+        this(value, null, null, null, 0);
+    }
+
+    BencodeDictionary(Map<String, BencodeElement<?>> value, ByteBuffer source, String[] rawKeys, int[] rawOffsets, int rawCount) {
         this.value = value;
+        this.source = source;
+        this.rawKeys = rawKeys;
+        this.rawOffsets = rawOffsets;
+        this.rawCount = rawCount;
     }
 
     @Override
@@ -18,23 +31,27 @@ public class BencodeDictionary implements BencodeElement<Map<String, BencodeElem
         return value;
     }
 
-    @Override
-    public byte[] encode() throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        outputStream.write('d');
-
-        for (Map.Entry<String, BencodeElement<?>> entry : value.entrySet()) {
-            String key = entry.getKey();
-            String bencodedKey = key.length() + ":" + key;
+    // Returns the exact source bytes the value under this key was decoded from, or null when the
+    // dictionary was not produced by BencodeDecoder.
+    public ByteBuffer getRawValue(String key) {
+        if (source == null) {
+            return null;
+        }
 
-            outputStream.write(bencodedKey.getBytes(StandardCharsets.UTF_8));
-            outputStream.write(entry.getValue().encode());
+        // Searched backwards so that a repeated key yields the occurrence the decoded map kept.
+        for (int i = rawCount - 1; i >= 0; i--) {
+            if (rawKeys[i].equals(key)) {
+                int start = rawOffsets[2 * i];
+                return source.slice(start, rawOffsets[2 * i + 1] - start);
+            }
         }
 
-        outputStream.write('e');
+        return null;
+    }
 
-        return outputStream.toByteArray();
+    @Override
+    public byte[] encode() throws IOException {
+        return BencodeEncoder.encode(this);
     }
 
     @Override
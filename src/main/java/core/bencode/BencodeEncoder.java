@@ -0,0 +1,268 @@
+package core.bencode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BencodeEncoder {
+
+    private static final int STAGING_BUFFER_SIZE = 8 * 1024;
+
+    private final ByteBuffer buffer;
+    private final OutputStream stream;
+    private final WritableByteChannel channel;
+    private final byte[] digits = new byte[20];
+
+    // Encodings of BencodeElement implementations outside this package, produced while measuring
+    // so that their encode() is not invoked twice.
+    private Map<BencodeElement<?>, byte[]> foreignEncodings;
+
+    private BencodeEncoder(ByteBuffer buffer, OutputStream stream, WritableByteChannel channel) {
+        this.buffer = buffer;
+        this.stream = stream;
+        this.channel = channel;
+    }
+
+    public static byte[] encode(BencodeElement<?> element) throws IOException {
+        BencodeEncoder measurer = new BencodeEncoder(null, null, null);
+        long length = measurer.measure(element);
+
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Encoded element is too large for a byte array: " + length + " bytes");
+        }
+
+        byte[] output = new byte[(int) length];
+        BencodeEncoder encoder = new BencodeEncoder(ByteBuffer.wrap(output), null, null);
+        encoder.foreignEncodings = measurer.foreignEncodings;
+        encoder.write(element);
+
+        return output;
+    }
+
+    // Writes at the target's position and advances it; throws BufferOverflowException if the
+    // target is smaller than encodedLength(element).
+    public static void encode(BencodeElement<?> element, ByteBuffer target) throws IOException {
+        new BencodeEncoder(target, null, null).write(element);
+    }
+
+    public static void encode(BencodeElement<?> element, OutputStream outputStream) throws IOException {
+        BencodeEncoder encoder = new BencodeEncoder(ByteBuffer.allocate(STAGING_BUFFER_SIZE), outputStream, null);
+        encoder.write(element);
+        encoder.drain();
+    }
+
+    public static void encode(BencodeElement<?> element, WritableByteChannel channel) throws IOException {
+        BencodeEncoder encoder = new BencodeEncoder(ByteBuffer.allocate(STAGING_BUFFER_SIZE), null, channel);
+        encoder.write(element);
+        encoder.drain();
+    }
+
+    public static long encodedLength(BencodeElement<?> element) throws IOException {
+        return new BencodeEncoder(null, null, null).measure(element);
+    }
+
+    private long measure(BencodeElement<?> element) throws IOException {
+        if (element instanceof BencodeNumber number) {
+            return decimalLength(number.getValue()) + 2;
+        }
+
+        if (element instanceof BencodeByteArray byteArray) {
+            int length = byteArray.length();
+            return decimalLength(length) + 1 + length;
+        }
+
+        if (element instanceof BencodeList list) {
+            long total = 2;
+            for (BencodeElement<?> child : list.getValue()) {
+                total += measure(child);
+            }
+            return total;
+        }
+
+        if (element instanceof BencodeDictionary dictionary) {
+            long total = 2;
+            for (Map.Entry<String, BencodeElement<?>> entry : dictionary.getValue().entrySet()) {
+                int keyLength = utf8Length(entry.getKey());
+                total += decimalLength(keyLength) + 1 + keyLength + measure(entry.getValue());
+            }
+            return total;
+        }
+
+        return foreignEncoding(element).length;
+    }
+
+    private void write(BencodeElement<?> element) throws IOException {
+        if (element instanceof BencodeNumber number) {
+            writeByte('i');
+            writeDecimal(number.getValue());
+            writeByte('e');
+        } else if (element instanceof BencodeByteArray byteArray) {
+            writeDecimal(byteArray.length());
+            writeByte(':');
+            writeBytes(byteArray.asBuffer());
+        } else if (element instanceof BencodeList list) {
+            writeList(list.getValue());
+        } else if (element instanceof BencodeDictionary dictionary) {
+            writeDictionary(dictionary.getValue());
+        } else {
+            writeBytes(ByteBuffer.wrap(foreignEncoding(element)));
+        }
+    }
+
+    private void writeList(List<BencodeElement<?>> elements) throws IOException {
+        writeByte('l');
+
+        for (BencodeElement<?> child : elements) {
+            write(child);
+        }
+
+        writeByte('e');
+    }
+
+    private void writeDictionary(Map<String, BencodeElement<?>> entries) throws IOException {
+        writeByte('d');
+
+        for (Map.Entry<String, BencodeElement<?>> entry : entries.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+
+            writeDecimal(key.length);
+            writeByte(':');
+            writeBytes(ByteBuffer.wrap(key));
+            write(entry.getValue());
+        }
+
+        writeByte('e');
+    }
+
+    private byte[] foreignEncoding(BencodeElement<?> element) throws IOException {
+        if (foreignEncodings == null) {
+            foreignEncodings = new IdentityHashMap<>();
+        }
+
+        byte[] encoded = foreignEncodings.get(element);
+
+        if (encoded == null) {
+            encoded = element.encode();
+            foreignEncodings.put(element, encoded);
+        }
+
+        return encoded;
+    }
+
+    private void writeByte(char value) throws IOException {
+        ensureCapacity(1);
+        buffer.put((byte) value);
+    }
+
+    private void writeDecimal(long value) throws IOException {
+        int start = digits.length;
+        long remaining = value < 0 ? value : -value;
+
+        // Work on the negative magnitude so that Long.MIN_VALUE needs no special case.
+        do {
+            digits[--start] = (byte) ('0' - remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+
+        int length = digits.length - start;
+        ensureCapacity(value < 0 ? length + 1 : length);
+
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+
+        buffer.put(digits, start, length);
+    }
+
+    private void writeBytes(ByteBuffer payload) throws IOException {
+        if (payload.remaining() <= buffer.remaining()) {
+            buffer.put(payload);
+            return;
+        }
+
+        drain();
+
+        if (channel != null) {
+            while (payload.hasRemaining()) {
+                channel.write(payload);
+            }
+        } else if (payload.hasArray()) {
+            stream.write(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+            payload.position(payload.limit());
+        } else {
+            while (payload.hasRemaining()) {
+                int count = Math.min(payload.remaining(), buffer.remaining());
+                buffer.put(buffer.position(), payload, payload.position(), count);
+                buffer.position(buffer.position() + count);
+                payload.position(payload.position() + count);
+                drain();
+            }
+        }
+    }
+
+    private void ensureCapacity(int count) throws IOException {
+        if (buffer.remaining() < count) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (stream == null && channel == null) {
+            throw new BufferOverflowException();
+        }
+
+        buffer.flip();
+
+        if (stream != null) {
+            stream.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+        } else {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        buffer.clear();
+    }
+
+    private static int decimalLength(long value) {
+        int length = value < 0 ? 2 : 1;
+        long remaining = value / 10;
+
+        while (remaining != 0) {
+            length++;
+            remaining /= 10;
+        }
+
+        return length;
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are replaced by '?' when encoding to UTF-8.
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+
+        return length;
+    }
+}
@@ -0,0 +1,28 @@
+package core.bencode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Receives parse events from BencodeStreamParser. Buffers passed to key() and bytes() are only valid
+// for the duration of the call; copy them if they need to outlive it.
+public interface BencodeHandler {
+
+    default void startDictionary() throws IOException {
+    }
+
+    default void key(ByteBuffer key) throws IOException {
+    }
+
+    default void startList() throws IOException {
+    }
+
+    default void integer(long value) throws IOException {
+    }
+
+    default void bytes(ByteBuffer value) throws IOException {
+    }
+
+    default void end() throws IOException {
+    }
+
+}
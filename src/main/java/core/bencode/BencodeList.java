@@ -1,6 +1,5 @@
 package core.bencode;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
 
@@ -19,17 +18,7 @@ public class BencodeList implements BencodeElement<List<BencodeElement<?>>> {
 
     @Override
     public byte[] encode() throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        outputStream.write('l');
-
-        for(BencodeElement<?> element : value){
-            outputStream.write(element.encode());
-        }
-
-        outputStream.write('e');
-
-        return outputStream.toByteArray();
+        return BencodeEncoder.encode(this);
     }
 
     @Override
@@ -1,7 +1,6 @@
 package core.bencode;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 
 public class BencodeNumber implements BencodeElement<Long>{
 
@@ -18,8 +17,7 @@ public class BencodeNumber implements BencodeElement<Long>{
 
     @Override
     public byte[] encode() throws IOException {
-        String encodedValue = "i" + value +"e";
-        return encodedValue.getBytes(StandardCharsets.UTF_8);
+        return BencodeEncoder.encode(this);
     }
 
     @Override
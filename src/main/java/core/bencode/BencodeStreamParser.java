@@ -0,0 +1,243 @@
+package core.bencode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+public class BencodeStreamParser {
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private static final byte LIST = 0;
+    private static final byte DICTIONARY_KEY = 1;
+    private static final byte DICTIONARY_VALUE = 2;
+
+    private enum State { VALUE, INTEGER, LENGTH, STRING, DONE }
+
+    private final BencodeHandler handler;
+
+    private State state = State.VALUE;
+    private byte[] stack = new byte[16];
+    private int depth;
+
+    private boolean negative;
+    private boolean hasDigits;
+    private long number;
+
+    private int remaining;
+    private ByteBuffer pending;
+
+    public BencodeStreamParser(BencodeHandler handler) {
+        this.handler = handler;
+    }
+
+    public static void parse(byte[] data, BencodeHandler handler) throws IOException {
+        parse(ByteBuffer.wrap(data), handler);
+    }
+
+    public static void parse(ByteBuffer data, BencodeHandler handler) throws IOException {
+        BencodeStreamParser parser = new BencodeStreamParser(handler);
+        parser.feed(data.duplicate());
+        parser.finish();
+    }
+
+    // Blocking read loop; for non-blocking channels call feed() whenever data arrives instead.
+    public void parse(ReadableByteChannel channel) throws IOException {
+        ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        while (!isComplete()) {
+            readBuffer.clear();
+
+            if (channel.read(readBuffer) == -1) {
+                break;
+            }
+
+            readBuffer.flip();
+            feed(readBuffer);
+        }
+
+        finish();
+    }
+
+    // Consumes bytes from the chunk until it is exhausted or the root value is complete.
+    // Tokens split across chunks are carried over, so input may arrive in arbitrarily small pieces.
+    public void feed(ByteBuffer chunk) throws IOException {
+        while (chunk.hasRemaining() && state != State.DONE) {
+            if (state == State.STRING) {
+                readString(chunk);
+            } else {
+                process(chunk.get());
+            }
+        }
+    }
+
+    public boolean isComplete() {
+        return state == State.DONE;
+    }
+
+    public void finish() throws IOException {
+        if (state != State.DONE) {
+            throw new IOException("Unexpected EOF while parsing Bencode stream");
+        }
+    }
+
+    private void process(byte readByte) throws IOException {
+        char currentChar = (char) readByte;
+
+        switch (state) {
+            case VALUE -> startValue(currentChar);
+            case INTEGER -> readInteger(currentChar);
+            case LENGTH -> readLength(currentChar);
+            default -> throw new IllegalStateException("Unexpected parser state: " + state);
+        }
+    }
+
+    private void startValue(char currentChar) throws IOException {
+        byte container = depth > 0 ? stack[depth - 1] : -1;
+
+        if (currentChar == 'e') {
+            if (container == LIST || container == DICTIONARY_KEY) {
+                depth--;
+                handler.end();
+                completeValue();
+                return;
+            }
+            throw new IOException("Invalid Bencode format: unexpected character 'e'");
+        }
+
+        if (container == DICTIONARY_KEY && !isDigit(currentChar)) {
+            throw new IOException("Dictionary key is not a String! Found: '" + currentChar + "'");
+        }
+
+        if (currentChar == 'i') {
+            negative = false;
+            hasDigits = false;
+            number = 0;
+            state = State.INTEGER;
+        } else if (currentChar == 'l') {
+            push(LIST);
+            handler.startList();
+        } else if (currentChar == 'd') {
+            push(DICTIONARY_KEY);
+            handler.startDictionary();
+        } else if (isDigit(currentChar)) {
+            number = currentChar - '0';
+            state = State.LENGTH;
+        } else {
+            throw new IOException("Invalid Bencode format: unexpected character '" + currentChar + "'");
+        }
+    }
+
+    private void readInteger(char currentChar) throws IOException {
+        if (currentChar == 'e') {
+            if (!hasDigits) {
+                throw new IOException("Invalid Bencode number: no digits");
+            }
+
+            state = State.VALUE;
+            handler.integer(negative ? number : -number);
+            completeValue();
+            return;
+        }
+
+        if (currentChar == '-' && !hasDigits && !negative) {
+            negative = true;
+            return;
+        }
+
+        if (!isDigit(currentChar)) {
+            throw new IOException("Invalid Bencode number: unexpected character '" + currentChar + "'");
+        }
+
+        // Accumulate negatively so that Long.MIN_VALUE is representable.
+        long next = number * 10 - (currentChar - '0');
+
+        if (number < Long.MIN_VALUE / 10 || next > number || (!negative && next == Long.MIN_VALUE)) {
+            throw new IOException("Invalid Bencode number: value out of range");
+        }
+
+        number = next;
+        hasDigits = true;
+    }
+
+    private void readLength(char currentChar) throws IOException {
+        if (currentChar == ':') {
+            remaining = (int) number;
+
+            if (remaining == 0) {
+                state = State.VALUE;
+                deliverString(ByteBuffer.allocate(0));
+            } else {
+                state = State.STRING;
+            }
+            return;
+        }
+
+        if (!isDigit(currentChar)) {
+            throw new IOException("String length contains non-numeric character: " + currentChar);
+        }
+
+        number = number * 10 + (currentChar - '0');
+
+        if (number > Integer.MAX_VALUE) {
+            throw new IOException("String length exceeds the maximum supported size");
+        }
+    }
+
+    private void readString(ByteBuffer chunk) throws IOException {
+        if (pending == null && chunk.remaining() >= remaining) {
+            ByteBuffer slice = chunk.slice(chunk.position(), remaining);
+            chunk.position(chunk.position() + remaining);
+            state = State.VALUE;
+            deliverString(slice);
+            return;
+        }
+
+        if (pending == null) {
+            pending = ByteBuffer.allocate(remaining);
+        }
+
+        int count = Math.min(chunk.remaining(), pending.remaining());
+        pending.put(pending.position(), chunk, chunk.position(), count);
+        pending.position(pending.position() + count);
+        chunk.position(chunk.position() + count);
+
+        if (!pending.hasRemaining()) {
+            ByteBuffer complete = pending.flip();
+            pending = null;
+            state = State.VALUE;
+            deliverString(complete);
+        }
+    }
+
+    private void deliverString(ByteBuffer value) throws IOException {
+        if (depth > 0 && stack[depth - 1] == DICTIONARY_KEY) {
+            handler.key(value);
+        } else {
+            handler.bytes(value);
+        }
+        completeValue();
+    }
+
+    private void completeValue() {
+        if (depth == 0) {
+            state = State.DONE;
+        } else if (stack[depth - 1] == DICTIONARY_KEY) {
+            stack[depth - 1] = DICTIONARY_VALUE;
+        } else if (stack[depth - 1] == DICTIONARY_VALUE) {
+            stack[depth - 1] = DICTIONARY_KEY;
+        }
+    }
+
+    private void push(byte container) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = container;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
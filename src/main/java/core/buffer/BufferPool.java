@@ -0,0 +1,226 @@
+package core.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Recycles direct buffers in three size classes: small control messages, 16 KiB blocks and the larger
+// buffers a connection reads ahead into and encodes piece messages in. Each class carves its buffers out of
+// 1 MiB direct slabs as demand grows, up to a shared byte budget; past the budget, and for requests larger
+// than the biggest class, callers get a plain heap buffer that release() ignores. Acquire and release are
+// lock-free.
+//
+// With leak tracking on, every outstanding buffer remembers where it was acquired, so tests can assert that
+// all buffers came back and releasing one twice fails fast.
+public class BufferPool {
+
+    public static final int SMALL_SIZE = 4 * 1024;
+    public static final int BLOCK_SIZE = 16 * 1024;
+    public static final int LARGE_SIZE = 32 * 1024;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    static final int SLAB_SIZE = 1024 * 1024;
+
+    private final long maxBytes;
+    private final SizeClass[] classes = {new SizeClass(SMALL_SIZE), new SizeClass(BLOCK_SIZE), new SizeClass(LARGE_SIZE)};
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final LongAdder unpooledAllocations = new LongAdder();
+    // Null unless leak tracking is on.
+    private final Map<ByteBuffer, Throwable> outstanding;
+
+    public BufferPool() {
+        this(DEFAULT_MAX_BYTES, false);
+    }
+
+    public BufferPool(long maxBytes, boolean trackLeaks) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Pool size must not be negative");
+        }
+
+        this.maxBytes = maxBytes;
+        this.outstanding = trackLeaks ? Collections.synchronizedMap(new IdentityHashMap<>()) : null;
+    }
+
+    public static class SizeClass {
+
+        private final int bufferSize;
+        private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger freeCount = new AtomicInteger();
+        private final AtomicInteger totalCount = new AtomicInteger();
+
+        private SizeClass(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        // Buffers carved from slabs so far.
+        public int getTotalBuffers() {
+            return totalCount.get();
+        }
+
+        public int getFreeBuffers() {
+            return freeCount.get();
+        }
+
+        public int getBuffersInUse() {
+            return totalCount.get() - freeCount.get();
+        }
+
+        public double getOccupancy() {
+            int total = totalCount.get();
+            return total == 0 ? 0 : (double) getBuffersInUse() / total;
+        }
+
+        private ByteBuffer poll() {
+            ByteBuffer buffer = free.poll();
+
+            if (buffer != null) {
+                freeCount.decrementAndGet();
+            }
+
+            return buffer;
+        }
+
+        private void offer(ByteBuffer buffer) {
+            free.offer(buffer);
+            freeCount.incrementAndGet();
+        }
+
+        // Keeps one buffer of the new slab for the caller and frees the rest.
+        private ByteBuffer carve(ByteBuffer slab) {
+            int count = slab.capacity() / bufferSize;
+            totalCount.addAndGet(count);
+
+            for (int i = 1; i < count; i++) {
+                offer(slab.slice(i * bufferSize, bufferSize));
+            }
+
+            return slab.slice(0, bufferSize);
+        }
+    }
+
+    // Returns a cleared buffer whose limit is the requested size; its capacity may be larger.
+    public ByteBuffer acquire(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Buffer size must not be negative");
+        }
+
+        SizeClass sizeClass = classFor(size);
+        ByteBuffer buffer = sizeClass != null ? take(sizeClass) : null;
+
+        if (buffer == null) {
+            unpooledAllocations.increment();
+            return ByteBuffer.allocate(size);
+        }
+
+        if (outstanding != null) {
+            outstanding.put(buffer, new Throwable("Buffer of " + sizeClass.bufferSize + " bytes acquired here"));
+        }
+
+        return buffer.clear().limit(size);
+    }
+
+    // Hands a buffer back; heap buffers from acquire() are left to the garbage collector.
+    public void release(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            return;
+        }
+
+        SizeClass sizeClass = classFor(buffer.capacity());
+
+        if (sizeClass == null || sizeClass.bufferSize != buffer.capacity()) {
+            throw new IllegalArgumentException("Buffer of " + buffer.capacity() + " bytes does not belong to this pool");
+        }
+
+        if (outstanding != null && outstanding.remove(buffer) == null) {
+            throw new IllegalStateException("Buffer released twice or not acquired from this pool");
+        }
+
+        sizeClass.offer(buffer);
+    }
+
+    private SizeClass classFor(int size) {
+        for (SizeClass sizeClass : classes) {
+            if (size <= sizeClass.bufferSize) {
+                return sizeClass;
+            }
+        }
+
+        return null;
+    }
+
+    private ByteBuffer take(SizeClass sizeClass) {
+        ByteBuffer buffer = sizeClass.poll();
+
+        if (buffer != null) {
+            return buffer;
+        }
+
+        long reserved;
+
+        do {
+            reserved = reservedBytes.get();
+
+            if (reserved + SLAB_SIZE > maxBytes) {
+                return null;
+            }
+        } while (!reservedBytes.compareAndSet(reserved, reserved + SLAB_SIZE));
+
+        return sizeClass.carve(ByteBuffer.allocateDirect(SLAB_SIZE));
+    }
+
+    public List<SizeClass> getSizeClasses() {
+        return List.of(classes);
+    }
+
+    // Direct memory taken by slabs, whether the buffers in them are free or in use.
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    // Requests served with a heap buffer because they were too large or the budget was used up.
+    public long getUnpooledAllocations() {
+        return unpooledAllocations.sum();
+    }
+
+    public int getBuffersInUse() {
+        int inUse = 0;
+
+        for (SizeClass sizeClass : classes) {
+            inUse += sizeClass.getBuffersInUse();
+        }
+
+        return inUse;
+    }
+
+    // Throws if any tracked buffer was not released, pointing at where the first of them was acquired.
+    public void checkLeaks() {
+        if (outstanding == null) {
+            throw new IllegalStateException("Leak tracking is off");
+        }
+
+        List<Throwable> sites;
+
+        synchronized (outstanding) {
+            sites = new ArrayList<>(outstanding.values());
+        }
+
+        if (!sites.isEmpty()) {
+            throw new IllegalStateException(sites.size() + " pooled buffer(s) were never released", sites.get(0));
+        }
+    }
+}
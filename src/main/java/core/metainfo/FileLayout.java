@@ -0,0 +1,91 @@
+package core.metainfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Maps offsets in the torrent's concatenated byte stream to files. offsets[i] is the position of the
+// first byte of file i and offsets[fileCount] is the total length, so lookups are a binary search.
+public class FileLayout {
+
+    private final long[] offsets;
+
+    public FileLayout(long[] fileLengths) {
+        this.offsets = new long[fileLengths.length + 1];
+
+        for (int i = 0; i < fileLengths.length; i++) {
+            if (fileLengths[i] < 0) {
+                throw new IllegalArgumentException("Negative file length at index " + i);
+            }
+            offsets[i + 1] = Math.addExact(offsets[i], fileLengths[i]);
+        }
+    }
+
+    public int getFileCount() {
+        return offsets.length - 1;
+    }
+
+    public long getTotalLength() {
+        return offsets[offsets.length - 1];
+    }
+
+    public long getFileOffset(int fileIndex) {
+        return offsets[fileIndex];
+    }
+
+    public long getFileLength(int fileIndex) {
+        return offsets[fileIndex + 1] - offsets[fileIndex];
+    }
+
+    // Index of the file holding the byte at the given torrent offset. Zero-length files never match.
+    public int fileIndexAt(long torrentOffset) {
+        if (torrentOffset < 0 || torrentOffset >= getTotalLength()) {
+            throw new IndexOutOfBoundsException("Offset " + torrentOffset + " out of range [0, " + getTotalLength() + ")");
+        }
+
+        int low = 0;
+        int high = getFileCount() - 1;
+
+        // Last file whose start is <= torrentOffset; for runs of empty files that is the non-empty one after them.
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (offsets[middle] <= torrentOffset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    public List<FileSpan> spans(long torrentOffset, long length) {
+        if (length < 0 || torrentOffset < 0 || torrentOffset + length > getTotalLength()) {
+            throw new IndexOutOfBoundsException("Range [" + torrentOffset + ", " + (torrentOffset + length) + ") out of range [0, " + getTotalLength() + "]");
+        }
+
+        List<FileSpan> spans = new ArrayList<>(2);
+
+        if (length == 0) {
+            return spans;
+        }
+
+        int fileIndex = fileIndexAt(torrentOffset);
+        long position = torrentOffset;
+        long end = torrentOffset + length;
+
+        while (position < end) {
+            long fileEnd = offsets[fileIndex + 1];
+
+            if (fileEnd > position) {
+                long spanLength = Math.min(end, fileEnd) - position;
+                spans.add(new FileSpan(fileIndex, position - offsets[fileIndex], spanLength));
+                position += spanLength;
+            }
+
+            fileIndex++;
+        }
+
+        return spans;
+    }
+}
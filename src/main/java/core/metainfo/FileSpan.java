@@ -0,0 +1,31 @@
+package core.metainfo;
+
+public class FileSpan {
+
+    private final int fileIndex;
+    private final long fileOffset;
+    private final long length;
+
+    public FileSpan(int fileIndex, long fileOffset, long length) {
+        this.fileIndex = fileIndex;
+        this.fileOffset = fileOffset;
+        this.length = length;
+    }
+
+    public int getFileIndex() {
+        return fileIndex;
+    }
+
+    public long getFileOffset() {
+        return fileOffset;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return "FileSpan{file=" + fileIndex + ", offset=" + fileOffset + ", length=" + length + "}";
+    }
+}
@@ -0,0 +1,27 @@
+package core.metainfo;
+
+import java.util.List;
+
+public class TorrentFile {
+
+    private final List<String> path;
+    private final long length;
+
+    public TorrentFile(List<String> path, long length) {
+        this.path = List.copyOf(path);
+        this.length = length;
+    }
+
+    public List<String> getPath() {
+        return path;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return String.join("/", path) + " (" + length + " bytes)";
+    }
+}
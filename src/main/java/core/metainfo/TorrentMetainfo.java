@@ -1,33 +1,77 @@
 package core.metainfo;
 
 import core.bencode.BencodeByteArray;
+import core.bencode.BencodeDecoder;
 import core.bencode.BencodeDictionary;
 import core.bencode.BencodeElement;
+import core.bencode.BencodeList;
 import core.bencode.BencodeNumber;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 
 public class TorrentMetainfo {
 
+    public static final int PIECE_HASH_LENGTH = 20;
+
     private final String announce;
+    private final List<List<String>> announceList;
     private final String name;
     private final long length;
     private final long pieceLength;
-    private final List<byte[]> pieceHashes;
+    private final byte[] pieceHashes;
     private final byte[] infoHash;
+    private final String hexInfoHash;
+    private final List<TorrentFile> files;
+    private final FileLayout layout;
+    private final boolean multiFile;
+    private List<byte[]> pieceHashList;
 
-    private TorrentMetainfo(String announce, String name, long length, long pieceLength, List<byte[]> pieceHashes, byte[] infoHash) {
+    private TorrentMetainfo(String announce, List<List<String>> announceList, String name, long pieceLength, byte[] pieceHashes, byte[] infoHash, List<TorrentFile> files, boolean multiFile) {
         this.announce = announce;
+        this.announceList = announceList;
         this.name = name;
-        this.length = length;
         this.pieceLength = pieceLength;
         this.pieceHashes = pieceHashes;
         this.infoHash = infoHash;
+        this.hexInfoHash = HexFormat.of().formatHex(infoHash);
+        this.files = List.copyOf(files);
+        this.multiFile = multiFile;
+
+        long[] fileLengths = new long[files.size()];
+        for (int i = 0; i < fileLengths.length; i++) {
+            fileLengths[i] = files.get(i).getLength();
+        }
+
+        this.layout = new FileLayout(fileLengths);
+        this.length = layout.getTotalLength();
+    }
+
+    public static TorrentMetainfo createFrom(Path torrentFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(torrentFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Torrent file is too large: " + torrentFile);
+            }
+
+            return createFrom(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public static TorrentMetainfo createFrom(ByteBuffer data) throws IOException {
+        return createFrom(BencodeDecoder.decode(data));
     }
 
     public static TorrentMetainfo createFrom(BencodeElement<?> rootElement) throws IOException {
@@ -38,49 +82,171 @@ public class TorrentMetainfo {
 
         Map<String, BencodeElement<?>> rootData = ((BencodeDictionary) rootElement).getValue();
 
-        if(!(rootData.containsKey("announce"))){
+        List<List<String>> announceList = parseAnnounceList(rootData.get("announce-list"));
+
+        if(!(rootData.containsKey("announce")) && announceList.isEmpty()){
             throw new IOException("Missing 'announce'");
         }
 
-        String announce = ((BencodeByteArray) rootData.get("announce")).asString();
+        String announce = rootData.containsKey("announce")
+                ? ((BencodeByteArray) rootData.get("announce")).asString()
+                : announceList.get(0).get(0);
+
+        // BEP 12: a usable 'announce-list' supersedes 'announce'; otherwise 'announce' is the only tier.
+        if (announceList.isEmpty()) {
+            announceList = List.of(List.of(announce));
+        }
 
         BencodeElement<?> infoElement = rootData.get("info");
 
-        byte[] infoByte = infoElement.encode();
-        byte[] infoHash = calculateSha1(infoByte);
+        if (!(infoElement instanceof BencodeDictionary)) {
+            throw new IOException("Missing 'info'");
+        }
+
+        // Hash the original bytes when they are known; re-encoding is only a fallback for trees built in memory.
+        ByteBuffer rawInfo = ((BencodeDictionary) rootElement).getRawValue("info");
+        byte[] infoHash = rawInfo != null ? calculateSha1(rawInfo) : calculateSha1(infoElement.encode());
 
         Map<String, BencodeElement<?>> infoData = ((BencodeDictionary) infoElement).getValue();
 
-        if (!infoData.containsKey("name") || !infoData.containsKey("length") || !infoData.containsKey("piece length") || !infoData.containsKey("pieces")) {
+        boolean multiFile = infoData.containsKey("files");
+
+        if (!infoData.containsKey("name") || !(multiFile || infoData.containsKey("length")) || !infoData.containsKey("piece length") || !infoData.containsKey("pieces")) {
             throw new IOException("Missing required metadata fields in 'info' dictionary.");
         }
 
         String name = ((BencodeByteArray) infoData.get("name")).asString();
-        long length = ((BencodeNumber) infoData.get("length")).getValue();
         long pieceLength = ((BencodeNumber) infoData.get("piece length")).getValue();
 
-        byte[] piecesBlob = ((BencodeByteArray) infoData.get("pieces")).getValue();
+        if (pieceLength <= 0 || pieceLength > Integer.MAX_VALUE) {
+            throw new IOException("Invalid 'piece length': " + pieceLength);
+        }
+
+        List<TorrentFile> files;
+
+        if (multiFile) {
+            files = parseFiles(infoData.get("files"));
+        } else {
+            files = List.of(new TorrentFile(List.of(name), requireLength(infoData.get("length"))));
+        }
+
+        BencodeByteArray piecesBlob = (BencodeByteArray) infoData.get("pieces");
 
-        if (piecesBlob.length % 20 != 0) {
+        if (piecesBlob.length() % PIECE_HASH_LENGTH != 0) {
             throw new IOException("Invalid 'pieces' field size.");
         }
 
-        List<byte[]> pieces = new ArrayList<>();
+        long totalLength = 0;
+
+        for (TorrentFile file : files) {
+            if (file.getLength() > Long.MAX_VALUE - pieceLength - totalLength) {
+                throw new IOException("Total length of the files is too large.");
+            }
+            totalLength += file.getLength();
+        }
+
+        // Extra hashes would describe pieces of zero or negative size; missing ones leave the tail unverified.
+        long expectedPieces = (totalLength + pieceLength - 1) / pieceLength;
+
+        if (piecesBlob.length() / PIECE_HASH_LENGTH != expectedPieces) {
+            throw new IOException("'pieces' has " + piecesBlob.length() / PIECE_HASH_LENGTH + " hashes but the content needs " + expectedPieces + ".");
+        }
+
+        // One contiguous copy of the blob; hashes are addressed by index instead of one array per piece.
+        byte[] pieces = new byte[piecesBlob.length()];
+        piecesBlob.asBuffer().get(pieces);
+
+        return new TorrentMetainfo(announce, announceList, name, pieceLength, pieces, infoHash, files, multiFile);
+    }
+
+    // Malformed tiers and entries are skipped rather than rejected, as other clients do.
+    private static List<List<String>> parseAnnounceList(BencodeElement<?> announceListElement) {
+        if (!(announceListElement instanceof BencodeList)) {
+            return List.of();
+        }
+
+        List<List<String>> tiers = new ArrayList<>();
+
+        for (BencodeElement<?> tierElement : ((BencodeList) announceListElement).getValue()) {
+            if (!(tierElement instanceof BencodeList)) {
+                continue;
+            }
+
+            List<String> tier = new ArrayList<>();
+
+            for (BencodeElement<?> trackerElement : ((BencodeList) tierElement).getValue()) {
+                if (trackerElement instanceof BencodeByteArray && ((BencodeByteArray) trackerElement).length() > 0) {
+                    tier.add(((BencodeByteArray) trackerElement).asString());
+                }
+            }
+
+            if (!tier.isEmpty()) {
+                tiers.add(List.copyOf(tier));
+            }
+        }
+
+        return List.copyOf(tiers);
+    }
+
+    private static List<TorrentFile> parseFiles(BencodeElement<?> filesElement) throws IOException {
+        if (!(filesElement instanceof BencodeList) || ((BencodeList) filesElement).getValue().isEmpty()) {
+            throw new IOException("Invalid 'files' list.");
+        }
+
+        List<BencodeElement<?>> entries = ((BencodeList) filesElement).getValue();
+        List<TorrentFile> files = new ArrayList<>(entries.size());
 
-        for (int i = 0; i < piecesBlob.length; i += 20) {
-            byte[] sha1Hash = new byte[20];
-            System.arraycopy(piecesBlob, i, sha1Hash, 0, 20);
+        for (BencodeElement<?> entry : entries) {
+            if (!(entry instanceof BencodeDictionary)) {
+                throw new IOException("Invalid entry in 'files' list.");
+            }
 
-            pieces.add(sha1Hash);
+            Map<String, BencodeElement<?>> fileData = ((BencodeDictionary) entry).getValue();
+
+            if (!(fileData.get("path") instanceof BencodeList pathList) || pathList.getValue().isEmpty()) {
+                throw new IOException("Invalid file path in 'files' list.");
+            }
+
+            List<String> path = new ArrayList<>(pathList.getValue().size());
+
+            for (BencodeElement<?> component : pathList.getValue()) {
+                if (!(component instanceof BencodeByteArray)) {
+                    throw new IOException("Invalid file path in 'files' list.");
+                }
+                path.add(requireSafePathComponent(((BencodeByteArray) component).asString()));
+            }
+
+            files.add(new TorrentFile(path, requireLength(fileData.get("length"))));
         }
 
-        return new TorrentMetainfo(announce, name, length, pieceLength, pieces, infoHash);
+        return files;
+    }
+
+    private static long requireLength(BencodeElement<?> lengthElement) throws IOException {
+        if (!(lengthElement instanceof BencodeNumber) || ((BencodeNumber) lengthElement).getValue() < 0) {
+            throw new IOException("Invalid file 'length'.");
+        }
+        return ((BencodeNumber) lengthElement).getValue();
+    }
+
+    // Rejects components that would let a crafted torrent write outside its download directory.
+    private static String requireSafePathComponent(String component) throws IOException {
+        if (component.isEmpty() || component.equals(".") || component.equals("..")
+                || component.indexOf('/') >= 0 || component.indexOf('\\') >= 0 || component.indexOf('\0') >= 0) {
+            throw new IOException("Invalid file path in 'files' list.");
+        }
+        return component;
     }
 
     private static byte[] calculateSha1(byte[] data) {
+        return calculateSha1(ByteBuffer.wrap(data));
+    }
+
+    private static byte[] calculateSha1(ByteBuffer data) {
         try {
             MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
-            return messageDigest.digest(data);
+            messageDigest.update(data);
+            return messageDigest.digest();
         }catch (NoSuchAlgorithmException e){
             throw new RuntimeException("SHA-1 algorithm not found", e);
         }
@@ -90,6 +256,11 @@ public class TorrentMetainfo {
         return announce;
     }
 
+    // Tracker tiers in file order; a torrent without 'announce-list' has a single tier holding 'announce'.
+    public List<List<String>> getAnnounceList() {
+        return announceList;
+    }
+
     public String getName() {
         return name;
     }
@@ -102,19 +273,83 @@ public class TorrentMetainfo {
         return pieceLength;
     }
 
+    public boolean isMultiFile() {
+        return multiFile;
+    }
+
+    public List<TorrentFile> getFiles() {
+        return files;
+    }
+
+    public FileLayout getLayout() {
+        return layout;
+    }
+
+    public long getPieceOffset(int index) {
+        return (long) index * pieceLength;
+    }
+
+    public int getPieceSize(int index) {
+        checkPieceIndex(index);
+        return (int) Math.min(pieceLength, length - getPieceOffset(index));
+    }
+
+    public List<FileSpan> getPieceSpans(int index) {
+        return layout.spans(getPieceOffset(index), getPieceSize(index));
+    }
+
+    public int getPieceCount() {
+        return pieceHashes.length / PIECE_HASH_LENGTH;
+    }
+
+    public void pieceHash(int index, byte[] destination) {
+        System.arraycopy(pieceHashes, hashOffset(index), destination, 0, PIECE_HASH_LENGTH);
+    }
+
+    public boolean matches(int index, byte[] digest) {
+        int offset = hashOffset(index);
+        return Arrays.equals(pieceHashes, offset, offset + PIECE_HASH_LENGTH, digest, 0, digest.length);
+    }
+
+    // Compatibility view over the flat hash table; each get() returns a fresh copy of the hash.
     public List<byte[]> getPieceHashes() {
-        return pieceHashes;
+        if (pieceHashList == null) {
+            pieceHashList = new PieceHashList();
+        }
+        return pieceHashList;
     }
 
     public byte[] getInfoHash() {
         return infoHash;
     }
 
+    private int hashOffset(int index) {
+        checkPieceIndex(index);
+        return index * PIECE_HASH_LENGTH;
+    }
+
+    private void checkPieceIndex(int index) {
+        if (index < 0 || index >= getPieceCount()) {
+            throw new IndexOutOfBoundsException("Piece index " + index + " out of range [0, " + getPieceCount() + ")");
+        }
+    }
+
     public String getHexInfoHash() {
-        StringBuilder hex = new StringBuilder();
-        for (byte b : infoHash) {
-            hex.append(String.format("%02x", b));
+        return hexInfoHash;
+    }
+
+    private class PieceHashList extends AbstractList<byte[]> {
+
+        @Override
+        public byte[] get(int index) {
+            byte[] hash = new byte[PIECE_HASH_LENGTH];
+            pieceHash(index, hash);
+            return hash;
+        }
+
+        @Override
+        public int size() {
+            return getPieceCount();
         }
-        return hex.toString();
     }
 }
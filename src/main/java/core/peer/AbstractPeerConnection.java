@@ -0,0 +1,356 @@
+package core.peer;
+
+import core.buffer.BufferPool;
+import core.storage.FileRegion;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Handshake, inbound framing and message encoding shared by the transports. Subclasses only decide how
+// bytes reach the socket. Writes are serialized with a ReentrantLock rather than synchronized, which would
+// pin virtual threads blocked in a socket write. Socket buffers and queued messages come from the network's
+// BufferPool and go back to it once written or when the connection closes.
+abstract class AbstractPeerConnection implements PeerConnection {
+
+    static final int READ_BUFFER_SIZE = BufferPool.LARGE_SIZE;
+    static final int WRITE_BUFFER_SIZE = BufferPool.LARGE_SIZE;
+
+    final AbstractPeerNetwork network;
+    final InetSocketAddress remoteAddress;
+    // Null for inbound connections, whose torrent is chosen by the remote handshake.
+    final byte[] expectedInfoHash;
+    final ReentrantLock writeLock = new ReentrantLock();
+
+    private final CompletableFuture<PeerConnection> handshakeResult = new CompletableFuture<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final ByteBuffer primaryReadBuffer;
+    ByteBuffer readBuffer;
+
+    private volatile Handshake remoteHandshake;
+    private volatile PeerMessageHandler handler;
+
+    AbstractPeerConnection(AbstractPeerNetwork network, InetSocketAddress remoteAddress, byte[] expectedInfoHash) {
+        this.network = network;
+        this.remoteAddress = remoteAddress;
+        this.expectedInfoHash = expectedInfoHash;
+        this.primaryReadBuffer = network.bufferPool.acquire(READ_BUFFER_SIZE);
+        this.readBuffer = primaryReadBuffer;
+    }
+
+    // Caller holds writeLock. Returns the buffer the next message of the given size is encoded into.
+    abstract ByteBuffer beginMessage(int size) throws IOException;
+
+    // Caller holds writeLock.
+    abstract void endMessage(ByteBuffer out) throws IOException;
+
+    // Caller holds writeLock. Queues a file region right behind the message just ended.
+    abstract void enqueueRegion(FileRegion region);
+
+    // Called after a message was queued, without the lock held.
+    abstract void flush();
+
+    abstract void closeChannel();
+
+    // Called once by the thread that reads, after its last read.
+    final void releaseReadBuffer() {
+        network.bufferPool.release(primaryReadBuffer);
+    }
+
+    CompletableFuture<PeerConnection> handshakeResult() {
+        return handshakeResult;
+    }
+
+    // Decodes whatever readBuffer holds after a read; readBuffer is left ready for the next read.
+    final void processInbound() throws IOException {
+        readBuffer.flip();
+
+        if (remoteHandshake == null) {
+            if (readBuffer.remaining() < Handshake.LENGTH) {
+                readBuffer.compact();
+                return;
+            }
+
+            handshake(Handshake.read(readBuffer));
+        }
+
+        MessageCodec.decode(readBuffer, handler);
+
+        int nextFrame = MessageCodec.nextFrameLength(readBuffer);
+
+        // Frames beyond the read buffer's capacity (large bitfields) get a one-off heap buffer.
+        if (nextFrame > readBuffer.capacity()) {
+            readBuffer = ByteBuffer.allocate(nextFrame).put(readBuffer);
+        } else if (readBuffer != primaryReadBuffer && nextFrame <= primaryReadBuffer.capacity()) {
+            readBuffer = primaryReadBuffer.clear().put(readBuffer);
+        } else {
+            readBuffer.compact();
+        }
+    }
+
+    private void handshake(Handshake remote) throws IOException {
+        PeerHandlerFactory factory = network.handlerFactory(remote.getInfoHash());
+
+        if (expectedInfoHash != null && !remote.matches(expectedInfoHash)) {
+            throw new IOException("Peer answered with a different info hash");
+        }
+
+        if (factory == null) {
+            throw new IOException("Peer requested an unknown torrent");
+        }
+
+        if (expectedInfoHash == null) {
+            sendHandshake(remote.getInfoHash());
+        }
+
+        remoteHandshake = remote;
+        handler = factory.create(this);
+        handshakeResult.complete(this);
+    }
+
+    final void sendHandshake(byte[] infoHash) {
+        ByteBuffer out = begin(Handshake.LENGTH);
+
+        if (out != null) {
+            new Handshake(new byte[8], infoHash, network.getPeerId()).write(out);
+            end(out);
+        }
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public Handshake getRemoteHandshake() {
+        return remoteHandshake;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed.get();
+    }
+
+    @Override
+    public void sendKeepAlive() {
+        ByteBuffer out = begin(MessageCodec.KEEP_ALIVE_FRAME_LENGTH);
+
+        if (out != null) {
+            MessageCodec.writeKeepAlive(out);
+            end(out);
+        }
+    }
+
+    @Override
+    public void sendChoke() {
+        sendState(MessageCodec.CHOKE);
+    }
+
+    @Override
+    public void sendUnchoke() {
+        sendState(MessageCodec.UNCHOKE);
+    }
+
+    @Override
+    public void sendInterested() {
+        sendState(MessageCodec.INTERESTED);
+    }
+
+    @Override
+    public void sendNotInterested() {
+        sendState(MessageCodec.NOT_INTERESTED);
+    }
+
+    private void sendState(byte messageId) {
+        ByteBuffer out = begin(MessageCodec.STATE_FRAME_LENGTH);
+
+        if (out != null) {
+            MessageCodec.writeState(out, messageId);
+            end(out);
+        }
+    }
+
+    @Override
+    public void sendHave(int pieceIndex) {
+        ByteBuffer out = begin(MessageCodec.HAVE_FRAME_LENGTH);
+
+        if (out != null) {
+            MessageCodec.writeHave(out, pieceIndex);
+            end(out);
+        }
+    }
+
+    @Override
+    public void sendBitfield(byte[] bitfield) {
+        ByteBuffer out = begin(MessageCodec.LENGTH_PREFIX + 1 + bitfield.length);
+
+        if (out != null) {
+            MessageCodec.writeBitfield(out, bitfield);
+            end(out);
+        }
+    }
+
+    @Override
+    public void sendRequest(int pieceIndex, int begin, int length) {
+        ByteBuffer out = begin(MessageCodec.REQUEST_FRAME_LENGTH);
+
+        if (out != null) {
+            MessageCodec.writeRequest(out, pieceIndex, begin, length);
+            end(out);
+        }
+    }
+
+    @Override
+    public void sendPiece(int pieceIndex, int begin, ByteBuffer block) {
+        ByteBuffer out = begin(MessageCodec.PIECE_HEADER_LENGTH + block.remaining());
+
+        if (out != null) {
+            MessageCodec.writePieceHeader(out, pieceIndex, begin, block.remaining());
+            out.put(block);
+            end(out);
+        }
+    }
+
+    @Override
+    public void sendPiece(int pieceIndex, int begin, FileRegion region) {
+        ByteBuffer out = begin(MessageCodec.PIECE_HEADER_LENGTH);
+
+        if (out == null) {
+            closeQuietly(region);
+            return;
+        }
+
+        MessageCodec.writePieceHeader(out, pieceIndex, begin, (int) region.remaining());
+        end(out, region);
+    }
+
+    @Override
+    public void sendCancel(int pieceIndex, int begin, int length) {
+        ByteBuffer out = begin(MessageCodec.REQUEST_FRAME_LENGTH);
+
+        if (out != null) {
+            MessageCodec.writeCancel(out, pieceIndex, begin, length);
+            end(out);
+        }
+    }
+
+    // Takes the write lock; returns null (lock released) if the connection is closed or failed.
+    private ByteBuffer begin(int size) {
+        writeLock.lock();
+
+        try {
+            if (!closed.get()) {
+                return beginMessage(size);
+            }
+        } catch (IOException e) {
+            writeLock.unlock();
+            close(e);
+            return null;
+        }
+
+        writeLock.unlock();
+        return null;
+    }
+
+    private void end(ByteBuffer out) {
+        end(out, null);
+    }
+
+    private void end(ByteBuffer out, FileRegion region) {
+        IOException failure = null;
+
+        try {
+            endMessage(out);
+
+            if (region != null) {
+                enqueueRegion(region);
+                region = null;
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            writeLock.unlock();
+        }
+
+        if (region != null) {
+            closeQuietly(region);
+        }
+
+        if (failure != null) {
+            close(failure);
+        } else {
+            flush();
+        }
+    }
+
+    // Writes one queued element, a pooled ByteBuffer or a FileRegion, and releases it once it is fully
+    // written; returns whether it was.
+    final boolean writeQueued(Object queued, WritableByteChannel channel) throws IOException {
+        if (queued instanceof FileRegion region) {
+            if (!region.transferTo(channel)) {
+                return false;
+            }
+
+            closeQuietly(region);
+            return true;
+        }
+
+        ByteBuffer buffer = (ByteBuffer) queued;
+        channel.write(buffer);
+
+        if (buffer.hasRemaining()) {
+            return false;
+        }
+
+        network.bufferPool.release(buffer);
+        return true;
+    }
+
+    // Releases queued elements that will never be sent.
+    final void discardQueued(Collection<Object> queue) {
+        for (Object queued : queue) {
+            if (queued instanceof FileRegion region) {
+                closeQuietly(region);
+            } else {
+                network.bufferPool.release((ByteBuffer) queued);
+            }
+        }
+
+        queue.clear();
+    }
+
+    static void closeQuietly(FileRegion region) {
+        try {
+            region.close();
+        } catch (IOException ignored) {
+            // Only returns a pooled file lease.
+        }
+    }
+
+    @Override
+    public void close() {
+        close(null);
+    }
+
+    final void close(IOException cause) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        closeChannel();
+        network.connectionClosed(this);
+        handshakeResult.completeExceptionally(cause != null ? cause : new IOException("Connection closed"));
+
+        PeerMessageHandler current = handler;
+
+        if (current != null) {
+            current.onClose(cause);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package core.peer;
+
+import core.buffer.BufferPool;
+
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Torrent registry and connection bookkeeping shared by the peer transports.
+abstract class AbstractPeerNetwork implements PeerNetwork {
+
+    private final byte[] peerId;
+    final BufferPool bufferPool;
+    private final Map<String, PeerHandlerFactory> torrents = new ConcurrentHashMap<>();
+    private final Set<AbstractPeerConnection> connections = ConcurrentHashMap.newKeySet();
+    volatile boolean closed;
+
+    AbstractPeerNetwork(byte[] peerId, BufferPool bufferPool) {
+        this.peerId = peerId;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public byte[] getPeerId() {
+        return peerId;
+    }
+
+    @Override
+    public void addTorrent(byte[] infoHash, PeerHandlerFactory factory) {
+        torrents.put(HexFormat.of().formatHex(infoHash), factory);
+    }
+
+    @Override
+    public void removeTorrent(byte[] infoHash) {
+        torrents.remove(HexFormat.of().formatHex(infoHash));
+    }
+
+    @Override
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    PeerHandlerFactory handlerFactory(byte[] infoHash) {
+        return torrents.get(HexFormat.of().formatHex(infoHash));
+    }
+
+    void connectionOpened(AbstractPeerConnection connection) {
+        connections.add(connection);
+    }
+
+    void connectionClosed(AbstractPeerConnection connection) {
+        connections.remove(connection);
+    }
+
+    void closeConnections() {
+        for (AbstractPeerConnection connection : List.copyOf(connections)) {
+            connection.close();
+        }
+    }
+}
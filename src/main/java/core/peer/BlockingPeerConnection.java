@@ -0,0 +1,191 @@
+package core.peer;
+
+import core.storage.FileRegion;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+
+// Blocking connection served by two threads: one reads and dispatches to the handler, the other drains
+// queued messages to the socket. Keeping writes off the reader means two peers that both send while
+// neither reads cannot deadlock, and sends from any thread stay non-blocking as PeerConnection promises.
+final class BlockingPeerConnection extends AbstractPeerConnection {
+
+    private final SocketChannel channel;
+    private final ThreadFactory threadFactory;
+    private final Condition pending = writeLock.newCondition();
+    private ByteBuffer writeBuffer;
+    private ByteBuffer sendingBuffer;
+    // ByteBuffers and FileRegions, in send order.
+    private ArrayDeque<Object> overflow = new ArrayDeque<>();
+    private ArrayDeque<Object> sendingOverflow = new ArrayDeque<>();
+
+    BlockingPeerConnection(VirtualThreadPeerNetwork network, ThreadFactory threadFactory, SocketChannel channel,
+                           InetSocketAddress remoteAddress, byte[] expectedInfoHash) {
+        super(network, remoteAddress, expectedInfoHash);
+        this.channel = channel;
+        this.threadFactory = threadFactory;
+        this.writeBuffer = network.bufferPool.acquire(WRITE_BUFFER_SIZE);
+        this.sendingBuffer = network.bufferPool.acquire(WRITE_BUFFER_SIZE);
+    }
+
+    void start() {
+        Thread reader = threadFactory.newThread(this::readLoop);
+
+        if (reader == null) {
+            close(new IOException("Thread factory refused to create a peer thread"));
+            releaseReadBuffer();
+            network.bufferPool.release(sendingBuffer);
+            return;
+        }
+
+        reader.start();
+    }
+
+    // Owns the read buffer, and the sending buffer until the writer starts.
+    private void readLoop() {
+        boolean writerStarted = false;
+
+        try {
+            if (expectedInfoHash != null) {
+                channel.connect(remoteAddress);
+            }
+
+            Thread writer = threadFactory.newThread(this::writeLoop);
+
+            if (writer == null) {
+                throw new IOException("Thread factory refused to create a peer thread");
+            }
+
+            writer.start();
+            writerStarted = true;
+
+            if (expectedInfoHash != null) {
+                sendHandshake(expectedInfoHash);
+            }
+
+            while (isOpen()) {
+                if (channel.read(readBuffer) == -1) {
+                    throw new EOFException("Peer closed the connection");
+                }
+
+                processInbound();
+            }
+        } catch (IOException e) {
+            close(e);
+        } catch (RuntimeException e) {
+            close(new IOException("Peer handler failed", e));
+        } finally {
+            releaseReadBuffer();
+
+            if (!writerStarted) {
+                network.bufferPool.release(sendingBuffer);
+            }
+        }
+    }
+
+    // Swaps the queued buffers with the idle pair under the lock and writes them out without it.
+    private void writeLoop() {
+        try {
+            while (true) {
+                writeLock.lock();
+                try {
+                    while (isOpen() && writeBuffer.position() == 0 && overflow.isEmpty()) {
+                        pending.await();
+                    }
+
+                    if (!isOpen()) {
+                        return;
+                    }
+
+                    ByteBuffer buffer = writeBuffer;
+                    writeBuffer = sendingBuffer;
+                    sendingBuffer = buffer;
+
+                    ArrayDeque<Object> queue = overflow;
+                    overflow = sendingOverflow;
+                    sendingOverflow = queue;
+                } finally {
+                    writeLock.unlock();
+                }
+
+                writeFully(sendingBuffer.flip());
+                sendingBuffer.clear();
+
+                while (!sendingOverflow.isEmpty()) {
+                    // A blocking socket only stops short of the full region at end of file, which throws.
+                    writeQueued(sendingOverflow.peek(), channel);
+                    sendingOverflow.poll();
+                }
+            }
+        } catch (IOException e) {
+            close(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close(new IOException("Peer writer interrupted", e));
+        } finally {
+            discardQueued(sendingOverflow);
+            network.bufferPool.release(sendingBuffer);
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    ByteBuffer beginMessage(int size) {
+        if (overflow.isEmpty() && writeBuffer.remaining() >= size) {
+            return writeBuffer;
+        }
+        return network.bufferPool.acquire(size);
+    }
+
+    @Override
+    void endMessage(ByteBuffer out) {
+        if (out != writeBuffer) {
+            overflow.add(out.flip());
+        }
+    }
+
+    @Override
+    void enqueueRegion(FileRegion region) {
+        overflow.add(region);
+    }
+
+    @Override
+    void flush() {
+        writeLock.lock();
+        try {
+            pending.signal();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Closing the channel unblocks the reader; the writer is woken to observe the closed flag.
+    @Override
+    void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already unusable.
+        }
+
+        writeLock.lock();
+        try {
+            discardQueued(overflow);
+            network.bufferPool.release(writeBuffer);
+            pending.signal();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
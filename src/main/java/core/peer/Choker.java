@@ -0,0 +1,183 @@
+package core.peer;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Allocates a torrent's upload slots with tit-for-tat. Every rechoke ranks the interested peers by the rate
+// they send to us, or by the rate we send to them once we are seeding, and unchokes the fastest ones. One
+// extra slot goes to a randomly chosen choked peer and rotates every 30 seconds, so new peers get the chance
+// to prove themselves and we keep discovering better partners.
+//
+// Rates come from each peer's RateMeters, which the connection's I/O threads feed without taking the
+// choker's lock.
+public class Choker {
+
+    public static final Duration RECHOKE_INTERVAL = Duration.ofSeconds(10);
+    public static final Duration OPTIMISTIC_INTERVAL = Duration.ofSeconds(30);
+    public static final int DEFAULT_UPLOAD_SLOTS = 3;
+
+    private final Clock clock;
+    private final Random random;
+    private final int uploadSlots;
+    private final Map<PeerConnection, Peer> peers = new LinkedHashMap<>();
+    private boolean seeding;
+    private Peer optimistic;
+    private long optimisticSince;
+    private ScheduledFuture<?> ticker;
+
+    public Choker() {
+        this(Clock.systemUTC(), new Random(), DEFAULT_UPLOAD_SLOTS);
+    }
+
+    public Choker(Clock clock, Random random, int uploadSlots) {
+        if (uploadSlots < 0) {
+            throw new IllegalArgumentException("Upload slots must not be negative");
+        }
+
+        this.clock = clock;
+        this.random = random;
+        this.uploadSlots = uploadSlots;
+    }
+
+    // Choking state and transfer rates of one connection, as seen by the choker.
+    public static class Peer {
+
+        private final PeerConnection connection;
+        private final RateMeter downloadRate;
+        private final RateMeter uploadRate;
+        private volatile boolean interested;
+        private boolean choked = true;
+
+        private Peer(PeerConnection connection, Clock clock) {
+            this.connection = connection;
+            this.downloadRate = new RateMeter(clock);
+            this.uploadRate = new RateMeter(clock);
+        }
+
+        public PeerConnection getConnection() {
+            return connection;
+        }
+
+        // Bytes of blocks received from the peer; fed from the connection's handler.
+        public RateMeter getDownloadRate() {
+            return downloadRate;
+        }
+
+        // Bytes of blocks sent to the peer.
+        public RateMeter getUploadRate() {
+            return uploadRate;
+        }
+
+        public boolean isInterested() {
+            return interested;
+        }
+
+        // Whether the peer wants to download from us; takes effect at the next rechoke.
+        public void setInterested(boolean interested) {
+            this.interested = interested;
+        }
+    }
+
+    // Runs rechoke() every RECHOKE_INTERVAL on the given executor; rechoke() can also be called directly.
+    public synchronized void start(ScheduledExecutorService executor) {
+        if (ticker == null) {
+            long interval = RECHOKE_INTERVAL.toMillis();
+            ticker = executor.scheduleAtFixedRate(this::rechoke, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+    }
+
+    // Starts choked, as every connection does.
+    public synchronized Peer addPeer(PeerConnection connection) {
+        return peers.computeIfAbsent(connection, key -> new Peer(key, clock));
+    }
+
+    // Frees the peer's slot; it is handed out at the next rechoke.
+    public synchronized void removePeer(PeerConnection connection) {
+        if (peers.remove(connection) == optimistic) {
+            optimistic = null;
+        }
+    }
+
+    public synchronized void setSeeding(boolean seeding) {
+        this.seeding = seeding;
+    }
+
+    public synchronized boolean isChoked(PeerConnection connection) {
+        Peer peer = peers.get(connection);
+        return peer == null || peer.choked;
+    }
+
+    public synchronized PeerConnection getOptimisticUnchoke() {
+        return optimistic == null ? null : optimistic.connection;
+    }
+
+    public synchronized int getPeerCount() {
+        return peers.size();
+    }
+
+    public synchronized void rechoke() {
+        long now = clock.millis();
+        List<Peer> candidates = new ArrayList<>();
+
+        for (Peer peer : peers.values()) {
+            if (peer.interested && peer.connection.isOpen()) {
+                candidates.add(peer);
+            }
+        }
+
+        // Rates are sampled once; the meters keep moving while we sort.
+        Map<Peer, Double> rates = new LinkedHashMap<>();
+
+        for (Peer peer : candidates) {
+            rates.put(peer, (seeding ? peer.uploadRate : peer.downloadRate).getRate());
+        }
+
+        candidates.sort(Comparator.comparingDouble(rates::get).reversed());
+        Set<Peer> unchoked = new HashSet<>(candidates.subList(0, Math.min(uploadSlots, candidates.size())));
+
+        // The optimistic slot rotates on its own schedule, or as soon as its peer left, lost interest or
+        // earned a regular slot.
+        if (optimistic == null || !candidates.contains(optimistic) || unchoked.contains(optimistic)
+                || now - optimisticSince >= OPTIMISTIC_INTERVAL.toMillis()) {
+            List<Peer> choked = new ArrayList<>(candidates.subList(unchoked.size(), candidates.size()));
+            optimistic = choked.isEmpty() ? null : choked.get(random.nextInt(choked.size()));
+            optimisticSince = now;
+        }
+
+        if (optimistic != null) {
+            unchoked.add(optimistic);
+        }
+
+        for (Peer peer : peers.values()) {
+            boolean choke = !unchoked.contains(peer);
+
+            if (choke != peer.choked) {
+                peer.choked = choke;
+
+                if (choke) {
+                    peer.connection.sendChoke();
+                } else {
+                    peer.connection.sendUnchoke();
+                }
+            }
+        }
+    }
+}
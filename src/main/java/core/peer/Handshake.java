@@ -0,0 +1,77 @@
+package core.peer;
+
+import core.metainfo.TorrentMetainfo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// The 68-byte BitTorrent handshake: <19><"BitTorrent protocol"><8 reserved><20 info hash><20 peer id>.
+public class Handshake {
+
+    public static final int LENGTH = 68;
+
+    private static final byte[] PROTOCOL = "BitTorrent protocol".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] reserved;
+    private final byte[] infoHash;
+    private final byte[] peerId;
+
+    public Handshake(byte[] reserved, byte[] infoHash, byte[] peerId) {
+        if (reserved.length != 8 || infoHash.length != 20 || peerId.length != 20) {
+            throw new IllegalArgumentException("Invalid handshake field length");
+        }
+
+        this.reserved = reserved;
+        this.infoHash = infoHash;
+        this.peerId = peerId;
+    }
+
+    public static Handshake forTorrent(TorrentMetainfo metainfo, byte[] peerId) {
+        return new Handshake(new byte[8], metainfo.getInfoHash(), peerId);
+    }
+
+    // Consumes exactly LENGTH bytes from the source.
+    public static Handshake read(ByteBuffer source) throws IOException {
+        if (source.remaining() < LENGTH) {
+            throw new IOException("Truncated handshake: " + source.remaining() + " bytes");
+        }
+
+        int start = source.position();
+
+        if (source.get(start) != PROTOCOL.length
+                || !source.slice(start + 1, PROTOCOL.length).equals(ByteBuffer.wrap(PROTOCOL))) {
+            throw new IOException("Unsupported peer protocol");
+        }
+
+        byte[] reserved = new byte[8];
+        byte[] infoHash = new byte[20];
+        byte[] peerId = new byte[20];
+
+        source.position(start + 1 + PROTOCOL.length);
+        source.get(reserved).get(infoHash).get(peerId);
+
+        return new Handshake(reserved, infoHash, peerId);
+    }
+
+    public void write(ByteBuffer destination) {
+        destination.put((byte) PROTOCOL.length).put(PROTOCOL).put(reserved).put(infoHash).put(peerId);
+    }
+
+    public boolean matches(byte[] expectedInfoHash) {
+        return Arrays.equals(infoHash, expectedInfoHash);
+    }
+
+    public byte[] getReserved() {
+        return reserved;
+    }
+
+    public byte[] getInfoHash() {
+        return infoHash;
+    }
+
+    public byte[] getPeerId() {
+        return peerId;
+    }
+}
@@ -0,0 +1,145 @@
+package core.peer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Length-prefixed peer wire messages. Writers append one complete frame to the destination; decode()
+// dispatches every complete frame in a buffer and leaves a trailing partial frame unread.
+public final class MessageCodec {
+
+    public static final byte CHOKE = 0;
+    public static final byte UNCHOKE = 1;
+    public static final byte INTERESTED = 2;
+    public static final byte NOT_INTERESTED = 3;
+    public static final byte HAVE = 4;
+    public static final byte BITFIELD = 5;
+    public static final byte REQUEST = 6;
+    public static final byte PIECE = 7;
+    public static final byte CANCEL = 8;
+
+    public static final int LENGTH_PREFIX = 4;
+    public static final int KEEP_ALIVE_FRAME_LENGTH = 4;
+    public static final int STATE_FRAME_LENGTH = 5;
+    public static final int HAVE_FRAME_LENGTH = 9;
+    public static final int REQUEST_FRAME_LENGTH = 17;
+    public static final int PIECE_HEADER_LENGTH = 13;
+
+    // Large enough for the bitfield of a torrent with 16M pieces.
+    public static final int MAX_MESSAGE_LENGTH = 2 * 1024 * 1024 + 1;
+
+    private MessageCodec() {
+    }
+
+    public static void writeKeepAlive(ByteBuffer destination) {
+        destination.putInt(0);
+    }
+
+    // choke, unchoke, interested and not interested carry no payload.
+    public static void writeState(ByteBuffer destination, byte messageId) {
+        destination.putInt(1).put(messageId);
+    }
+
+    public static void writeHave(ByteBuffer destination, int pieceIndex) {
+        destination.putInt(5).put(HAVE).putInt(pieceIndex);
+    }
+
+    public static void writeBitfield(ByteBuffer destination, byte[] bitfield) {
+        destination.putInt(1 + bitfield.length).put(BITFIELD).put(bitfield);
+    }
+
+    public static void writeRequest(ByteBuffer destination, int pieceIndex, int begin, int length) {
+        writeBlockMessage(destination, REQUEST, pieceIndex, begin, length);
+    }
+
+    public static void writeCancel(ByteBuffer destination, int pieceIndex, int begin, int length) {
+        writeBlockMessage(destination, CANCEL, pieceIndex, begin, length);
+    }
+
+    // Writes only the header; the blockLength bytes of data must follow it on the wire.
+    public static void writePieceHeader(ByteBuffer destination, int pieceIndex, int begin, int blockLength) {
+        destination.putInt(9 + blockLength).put(PIECE).putInt(pieceIndex).putInt(begin);
+    }
+
+    private static void writeBlockMessage(ByteBuffer destination, byte messageId, int pieceIndex, int begin, int length) {
+        destination.putInt(13).put(messageId).putInt(pieceIndex).putInt(begin).putInt(length);
+    }
+
+    // Total size (prefix included) of the frame at the buffer's position, or -1 if its prefix is incomplete.
+    public static int nextFrameLength(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < LENGTH_PREFIX) {
+            return -1;
+        }
+
+        int length = buffer.getInt(buffer.position());
+
+        if (length < 0 || length > MAX_MESSAGE_LENGTH) {
+            throw new IOException("Invalid message length: " + length);
+        }
+
+        return LENGTH_PREFIX + length;
+    }
+
+    public static void decode(ByteBuffer buffer, PeerMessageHandler handler) throws IOException {
+        int frameLength;
+
+        while ((frameLength = nextFrameLength(buffer)) != -1 && buffer.remaining() >= frameLength) {
+            int start = buffer.position();
+            int end = start + frameLength;
+
+            // Position the buffer past the frame first so a handler that throws leaves it consistent.
+            buffer.position(end);
+
+            if (frameLength == LENGTH_PREFIX) {
+                handler.onKeepAlive();
+            } else {
+                dispatch(buffer, buffer.get(start + LENGTH_PREFIX), start + LENGTH_PREFIX + 1, end, handler);
+            }
+        }
+    }
+
+    private static void dispatch(ByteBuffer buffer, byte messageId, int payloadStart, int end, PeerMessageHandler handler) throws IOException {
+        int payloadLength = end - payloadStart;
+
+        switch (messageId) {
+            case CHOKE, UNCHOKE, INTERESTED, NOT_INTERESTED -> {
+                requireLength(messageId, payloadLength, payloadLength == 0);
+
+                switch (messageId) {
+                    case CHOKE -> handler.onChoke();
+                    case UNCHOKE -> handler.onUnchoke();
+                    case INTERESTED -> handler.onInterested();
+                    default -> handler.onNotInterested();
+                }
+            }
+            case HAVE -> {
+                requireLength(messageId, payloadLength, payloadLength == 4);
+                handler.onHave(buffer.getInt(payloadStart));
+            }
+            case BITFIELD -> handler.onBitfield(buffer.slice(payloadStart, payloadLength));
+            case REQUEST, CANCEL -> {
+                requireLength(messageId, payloadLength, payloadLength == 12);
+                int index = buffer.getInt(payloadStart);
+                int begin = buffer.getInt(payloadStart + 4);
+                int length = buffer.getInt(payloadStart + 8);
+
+                if (messageId == REQUEST) {
+                    handler.onRequest(index, begin, length);
+                } else {
+                    handler.onCancel(index, begin, length);
+                }
+            }
+            case PIECE -> {
+                requireLength(messageId, payloadLength, payloadLength >= 8);
+                handler.onPiece(buffer.getInt(payloadStart), buffer.getInt(payloadStart + 4),
+                        buffer.slice(payloadStart + 8, payloadLength - 8));
+            }
+            default -> handler.onUnknown(messageId & 0xFF, buffer.slice(payloadStart, payloadLength));
+        }
+    }
+
+    private static void requireLength(byte messageId, int payloadLength, boolean valid) throws IOException {
+        if (!valid) {
+            throw new IOException("Invalid payload length " + payloadLength + " for message id " + messageId);
+        }
+    }
+}
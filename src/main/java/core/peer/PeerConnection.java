@@ -0,0 +1,46 @@
+package core.peer;
+
+import core.storage.FileRegion;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+// A handshaken peer connection. Send methods may be called from any thread; messages are queued in order
+// and written without blocking. Sends on a closed connection are dropped.
+public interface PeerConnection extends Closeable {
+
+    InetSocketAddress getRemoteAddress();
+
+    Handshake getRemoteHandshake();
+
+    boolean isOpen();
+
+    void sendKeepAlive();
+
+    void sendChoke();
+
+    void sendUnchoke();
+
+    void sendInterested();
+
+    void sendNotInterested();
+
+    void sendHave(int pieceIndex);
+
+    void sendBitfield(byte[] bitfield);
+
+    void sendRequest(int pieceIndex, int begin, int length);
+
+    // Sends the block's remaining bytes; the buffer is copied before the call returns.
+    void sendPiece(int pieceIndex, int begin, ByteBuffer block);
+
+    // Sends the region straight from the file without copying it through user space. The connection
+    // takes ownership and closes the region once it was sent or the connection closed.
+    void sendPiece(int pieceIndex, int begin, FileRegion region);
+
+    void sendCancel(int pieceIndex, int begin, int length);
+
+    @Override
+    void close();
+}
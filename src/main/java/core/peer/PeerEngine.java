@@ -0,0 +1,150 @@
+package core.peer;
+
+import core.buffer.BufferPool;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Selector transport: runs peer connections on a few selector threads. Connections are spread round-robin over the loops and
+// stay on their loop for life; an optional listening socket is served by the first loop.
+public class PeerEngine extends AbstractPeerNetwork {
+
+    public static final int DEFAULT_SELECTOR_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    private final SelectorLoop[] loops;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private ServerSocketChannel server;
+
+    public PeerEngine(byte[] peerId) throws IOException {
+        this(peerId, DEFAULT_SELECTOR_THREADS);
+    }
+
+    public PeerEngine(byte[] peerId, int selectorThreads) throws IOException {
+        this(peerId, selectorThreads, new BufferPool());
+    }
+
+    public PeerEngine(byte[] peerId, int selectorThreads, BufferPool bufferPool) throws IOException {
+        super(peerId, bufferPool);
+
+        if (selectorThreads < 1) {
+            throw new IllegalArgumentException("At least one selector thread is required");
+        }
+
+        this.loops = new SelectorLoop[selectorThreads];
+
+        for (int i = 0; i < selectorThreads; i++) {
+            loops[i] = new SelectorLoop("peer-selector-" + i);
+        }
+    }
+
+    @Override
+    public synchronized InetSocketAddress listen(InetSocketAddress bindAddress) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Already listening on " + server.getLocalAddress());
+        }
+
+        ServerSocketChannel channel = ServerSocketChannel.open();
+
+        try {
+            channel.bind(bindAddress, 1024);
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        server = channel;
+        CompletableFuture<Void> registered = new CompletableFuture<>();
+
+        loops[0].execute(() -> {
+            try {
+                loops[0].register(channel, SelectionKey.OP_ACCEPT, key -> accept(channel));
+                registered.complete(null);
+            } catch (IOException e) {
+                registered.completeExceptionally(e);
+            }
+        });
+
+        registered.join();
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    @Override
+    public CompletableFuture<PeerConnection> connect(InetSocketAddress address, byte[] infoHash) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("Peer engine is closed"));
+        }
+
+        if (handlerFactory(infoHash) == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Torrent is not registered"));
+        }
+
+        try {
+            SocketChannel channel = SocketChannel.open();
+            configure(channel);
+            SelectorLoop loop = nextLoop();
+            SelectorPeerConnection connection = new SelectorPeerConnection(this, loop, channel, address, infoHash);
+            connectionOpened(connection);
+            loop.execute(connection::startConnect);
+            return connection.handshakeResult();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void accept(ServerSocketChannel channel) {
+        SocketChannel accepted;
+
+        try {
+            while ((accepted = channel.accept()) != null) {
+                try {
+                    configure(accepted);
+                    SelectorLoop loop = nextLoop();
+                    SelectorPeerConnection connection = new SelectorPeerConnection(this, loop, accepted,
+                            (InetSocketAddress) accepted.getRemoteAddress(), null);
+                    connectionOpened(connection);
+                    loop.execute(connection::startAccepted);
+                } catch (IOException e) {
+                    accepted.close();
+                }
+            }
+        } catch (IOException e) {
+            // Transient accept failures (e.g. out of file descriptors) are retried on the next readiness.
+        }
+    }
+
+    private static void configure(SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    private SelectorLoop nextLoop() {
+        return loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            if (server != null) {
+                server.close();
+            }
+        }
+
+        closeConnections();
+
+        for (SelectorLoop loop : loops) {
+            loop.close();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package core.peer;
+
+@FunctionalInterface
+public interface PeerHandlerFactory {
+
+    // Called once the handshake completed, so the remote handshake is available from the connection.
+    PeerMessageHandler create(PeerConnection connection);
+}
@@ -0,0 +1,48 @@
+package core.peer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Receives decoded peer messages. Buffers passed to onBitfield(), onPiece() and onUnknown() are views of the
+// connection's read buffer and are only valid for the duration of the call. Throwing closes the connection.
+public interface PeerMessageHandler {
+
+    default void onKeepAlive() throws IOException {
+    }
+
+    default void onChoke() throws IOException {
+    }
+
+    default void onUnchoke() throws IOException {
+    }
+
+    default void onInterested() throws IOException {
+    }
+
+    default void onNotInterested() throws IOException {
+    }
+
+    default void onHave(int pieceIndex) throws IOException {
+    }
+
+    default void onBitfield(ByteBuffer bitfield) throws IOException {
+    }
+
+    default void onRequest(int pieceIndex, int begin, int length) throws IOException {
+    }
+
+    default void onPiece(int pieceIndex, int begin, ByteBuffer block) throws IOException {
+    }
+
+    default void onCancel(int pieceIndex, int begin, int length) throws IOException {
+    }
+
+    // Extension messages (ids outside the core protocol) are passed through undecoded.
+    default void onUnknown(int messageId, ByteBuffer payload) throws IOException {
+    }
+
+    // Called once when the connection closes; cause is null for a local close().
+    default void onClose(IOException cause) {
+    }
+
+}
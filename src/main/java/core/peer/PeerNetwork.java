@@ -0,0 +1,24 @@
+package core.peer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+
+// Transport-independent entry point for peer connections; see PeerTransport for the implementations.
+public interface PeerNetwork extends Closeable {
+
+    byte[] getPeerId();
+
+    // Connections for a torrent, inbound or outbound, are only accepted while it is registered.
+    void addTorrent(byte[] infoHash, PeerHandlerFactory factory);
+
+    void removeTorrent(byte[] infoHash);
+
+    int getConnectionCount();
+
+    InetSocketAddress listen(InetSocketAddress bindAddress) throws IOException;
+
+    // Completes once both handshakes were exchanged and the handler was created.
+    CompletableFuture<PeerConnection> connect(InetSocketAddress address, byte[] infoHash);
+}
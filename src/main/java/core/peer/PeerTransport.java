@@ -0,0 +1,27 @@
+package core.peer;
+
+import java.io.IOException;
+import java.util.Locale;
+
+// Selects how peer connections are driven. SELECTOR multiplexes non-blocking sockets over a few threads;
+// VIRTUAL_THREAD gives each connection a virtual thread doing plain blocking I/O.
+public enum PeerTransport {
+
+    SELECTOR,
+    VIRTUAL_THREAD;
+
+    public static final String PROPERTY = "bittorrent.peer.transport";
+
+    // Reads the transport from the system property, defaulting to SELECTOR.
+    public static PeerTransport configured() {
+        String value = System.getProperty(PROPERTY);
+        return value == null || value.isBlank() ? SELECTOR : valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    public PeerNetwork open(byte[] peerId) throws IOException {
+        return switch (this) {
+            case SELECTOR -> new PeerEngine(peerId);
+            case VIRTUAL_THREAD -> new VirtualThreadPeerNetwork(peerId);
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package core.peer;
+
+import core.buffer.BufferPool;
+import core.storage.FileRegion;
+import core.storage.PieceStorage;
+import core.storage.ReadCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Answers a peer's block requests for one torrent. Blocks already in the read cache are copied from
+// memory; everything else is sent with FileChannel.transferTo straight from the file into the socket,
+// saving the copy through a heap buffer. Only blocks spanning two files go through the cache's buffered
+// read path, into a pooled block buffer.
+public class PieceUploader {
+
+    // Peers commonly drop connections asking for more than this; so do we.
+    public static final int MAX_BLOCK_LENGTH = 128 * 1024;
+
+    private final PieceStorage storage;
+    private final ReadCache cache;
+    private final BufferPool bufferPool;
+
+    public PieceUploader(PieceStorage storage, ReadCache cache, BufferPool bufferPool) {
+        this.storage = storage;
+        this.cache = cache;
+        this.bufferPool = bufferPool;
+    }
+
+    public void upload(PeerConnection connection, int pieceIndex, int begin, int length) throws IOException {
+        if (pieceIndex < 0 || pieceIndex >= storage.getMetainfo().getPieceCount()) {
+            throw new IOException("Peer requested unknown piece " + pieceIndex);
+        }
+
+        if (length <= 0 || length > MAX_BLOCK_LENGTH || begin < 0 || begin > storage.getMetainfo().getPieceSize(pieceIndex) - length) {
+            throw new IOException("Peer requested invalid block [" + begin + ", " + ((long) begin + length) + ") of piece " + pieceIndex);
+        }
+
+        ByteBuffer cached = cache.getIfCached(storage, pieceIndex, begin, length);
+
+        if (cached != null) {
+            connection.sendPiece(pieceIndex, begin, cached);
+            return;
+        }
+
+        FileRegion region = storage.openRegion(pieceIndex, begin, length);
+
+        if (region != null) {
+            connection.sendPiece(pieceIndex, begin, region);
+            cache.recordMiss(storage);
+            return;
+        }
+
+        ByteBuffer block = bufferPool.acquire(length);
+
+        try {
+            cache.readBlock(storage, pieceIndex, begin, block);
+            connection.sendPiece(pieceIndex, begin, block.flip());
+        } finally {
+            bufferPool.release(block);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package core.peer;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Transfer rate over a rolling window of one-second buckets. Each bucket packs its epoch (the bucket's
+// second, truncated) and byte count into one long, so I/O threads add with a single CAS and readers such
+// as the choker never block them. A bucket left over from an earlier lap of the ring is recognised by its
+// epoch and reset by the first add that reuses it.
+public class RateMeter {
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofSeconds(20);
+
+    static final long BUCKET_MILLIS = 1000;
+    private static final int COUNT_BITS = 40;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << (Long.SIZE - COUNT_BITS)) - 1;
+
+    private final Clock clock;
+    private final AtomicLongArray buckets;
+    private final AtomicLong total = new AtomicLong();
+    private final long startMillis;
+
+    public RateMeter(Clock clock) {
+        this(clock, DEFAULT_WINDOW);
+    }
+
+    public RateMeter(Clock clock, Duration window) {
+        if (window.toMillis() < BUCKET_MILLIS) {
+            throw new IllegalArgumentException("Window must be at least one second");
+        }
+
+        this.clock = clock;
+        this.buckets = new AtomicLongArray((int) (window.toMillis() / BUCKET_MILLIS));
+        this.startMillis = clock.millis();
+    }
+
+    public void add(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Byte count must not be negative");
+        }
+
+        long second = clock.millis() / BUCKET_MILLIS;
+        int slot = (int) (second % buckets.length());
+        long epoch = second & EPOCH_MASK;
+        long current;
+        long next;
+
+        do {
+            current = buckets.get(slot);
+            long count = current >>> COUNT_BITS == epoch ? current & COUNT_MASK : 0;
+            next = epoch << COUNT_BITS | Math.min(COUNT_MASK, count + bytes);
+        } while (!buckets.compareAndSet(slot, current, next));
+
+        total.addAndGet(bytes);
+    }
+
+    // Bytes per second over the window, or over the meter's lifetime while that is shorter.
+    public double getRate() {
+        long now = clock.millis();
+        long second = now / BUCKET_MILLIS;
+        long sum = 0;
+
+        for (int age = 0; age < buckets.length(); age++) {
+            long bucketSecond = second - age;
+
+            if (bucketSecond < 0) {
+                break;
+            }
+
+            long value = buckets.get((int) (bucketSecond % buckets.length()));
+
+            if (value >>> COUNT_BITS == (bucketSecond & EPOCH_MASK)) {
+                sum += value & COUNT_MASK;
+            }
+        }
+
+        // The oldest bucket is a full second; the current one only counts the part that has passed.
+        long windowMillis = (buckets.length() - 1) * BUCKET_MILLIS + now % BUCKET_MILLIS;
+        long elapsed = Math.min(windowMillis, now - startMillis);
+        return sum * 1000.0 / Math.max(BUCKET_MILLIS, elapsed);
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+}
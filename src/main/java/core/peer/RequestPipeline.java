@@ -0,0 +1,217 @@
+package core.peer;
+
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+// Keeps a bandwidth-delay product worth of block requests outstanding on one connection. The peer's
+// download rate and the round-trip time are measured from the blocks as they arrive; the target depth is
+// twice rate x RTT in blocks, so a pipeline that is the bottleneck keeps growing until the peer is.
+//
+// The round trip is only sampled from requests sent while nothing else was outstanding. Any other request
+// waits behind the ones before it, and rate x queued RTT is just the current depth, which the gain would
+// keep doubling. Once the estimate is RTT_WINDOW_MILLIS old, new requests are held back until the queue
+// drains so the next one measures the path again, as BBR's ProbeRTT does.
+// Not thread-safe: drive it from the connection's handler.
+public class RequestPipeline {
+
+    public static final int BLOCK_SIZE = 16 * 1024;
+    public static final int MIN_DEPTH = 2;
+    public static final int INITIAL_DEPTH = 4;
+    public static final int DEFAULT_MAX_DEPTH = 500;
+
+    static final long RATE_WINDOW_MILLIS = 500;
+    static final long RTT_WINDOW_MILLIS = 10_000;
+    private static final double GAIN = 2.0;
+
+    private final PeerConnection connection;
+    private final Clock clock;
+    private final int maxDepth;
+    private final ArrayDeque<Request> outstanding = new ArrayDeque<>();
+
+    private double bytesPerSecond;
+    private long windowStart = -1;
+    private long windowBytes;
+
+    // Minimum of the unqueued samples; replaced by the next sample once it is RTT_WINDOW_MILLIS old, so it
+    // follows the path's latency as it changes.
+    private long minRtt = -1;
+    private long minRttAt;
+    // An unqueued request is outstanding and will refresh minRtt.
+    private boolean probing;
+
+    private int depth;
+
+    public RequestPipeline(PeerConnection connection, Clock clock) {
+        this(connection, clock, DEFAULT_MAX_DEPTH);
+    }
+
+    public RequestPipeline(PeerConnection connection, Clock clock, int maxDepth) {
+        if (maxDepth < MIN_DEPTH) {
+            throw new IllegalArgumentException("Maximum depth must be at least " + MIN_DEPTH);
+        }
+
+        this.connection = connection;
+        this.clock = clock;
+        this.maxDepth = maxDepth;
+        this.depth = Math.min(INITIAL_DEPTH, maxDepth);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getOutstanding() {
+        return outstanding.size();
+    }
+
+    // Number of requests that can be sent right now; zero while the queue drains for an RTT probe.
+    public int capacity() {
+        if (!probing && !outstanding.isEmpty() && rttExpired(clock.millis())) {
+            return 0;
+        }
+
+        return Math.max(0, depth - outstanding.size());
+    }
+
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    // Smallest recently observed unqueued round trip in milliseconds, or -1 before the first one.
+    public long getRttMillis() {
+        return minRtt;
+    }
+
+    // Sends the request if the pipeline has room; returns false otherwise.
+    public boolean request(int pieceIndex, int begin, int length) {
+        if (capacity() == 0) {
+            return false;
+        }
+
+        boolean unqueued = outstanding.isEmpty();
+        probing |= unqueued;
+        outstanding.add(new Request(pieceIndex, begin, length, clock.millis(), unqueued));
+        connection.sendRequest(pieceIndex, begin, length);
+        return true;
+    }
+
+    // Returns false for blocks that were not requested (or already cancelled), which the caller should drop.
+    public boolean onBlock(int pieceIndex, int begin, int length) {
+        Request request = remove(pieceIndex, begin, length);
+
+        if (request == null) {
+            return false;
+        }
+
+        long now = clock.millis();
+
+        if (request.unqueued) {
+            sampleRtt(now, now - request.sentAt);
+        }
+
+        sampleRate(now, length);
+        depth = targetDepth();
+        return true;
+    }
+
+    public boolean cancel(int pieceIndex, int begin, int length) {
+        Request request = remove(pieceIndex, begin, length);
+
+        if (request == null) {
+            return false;
+        }
+
+        if (request.unqueued) {
+            probing = false;
+        }
+
+        connection.sendCancel(pieceIndex, begin, length);
+        return true;
+    }
+
+    // A choking peer discards its request queue; returns how many requests were lost so the caller can
+    // hand the blocks to other peers.
+    public int onChoke() {
+        int dropped = outstanding.size();
+        outstanding.clear();
+        probing = false;
+        return dropped;
+    }
+
+    private Request remove(int pieceIndex, int begin, int length) {
+        Iterator<Request> iterator = outstanding.iterator();
+
+        while (iterator.hasNext()) {
+            Request request = iterator.next();
+
+            if (request.pieceIndex == pieceIndex && request.begin == begin && request.length == length) {
+                iterator.remove();
+                return request;
+            }
+        }
+
+        return null;
+    }
+
+    private void sampleRtt(long now, long rtt) {
+        long sample = Math.max(1, rtt);
+        probing = false;
+
+        if (minRtt < 0 || sample <= minRtt || rttExpired(now)) {
+            minRtt = sample;
+            minRttAt = now;
+        }
+    }
+
+    private boolean rttExpired(long now) {
+        return minRtt >= 0 && now - minRttAt >= RTT_WINDOW_MILLIS;
+    }
+
+    private void sampleRate(long now, int length) {
+        if (windowStart < 0) {
+            windowStart = now;
+        }
+
+        windowBytes += length;
+        long elapsed = now - windowStart;
+
+        if (elapsed >= RATE_WINDOW_MILLIS) {
+            double sample = windowBytes * 1000.0 / elapsed;
+            // Rises immediately but decays slowly, so the queue ramps up within a few windows.
+            bytesPerSecond = sample > bytesPerSecond ? sample : bytesPerSecond + (sample - bytesPerSecond) / 4;
+            windowStart = now;
+            windowBytes = 0;
+        }
+    }
+
+    private int targetDepth() {
+        long rtt = getRttMillis();
+
+        if (bytesPerSecond == 0 || rtt < 0) {
+            return depth;
+        }
+
+        double bdpBlocks = bytesPerSecond * rtt / 1000.0 / BLOCK_SIZE;
+        long target = (long) Math.ceil(bdpBlocks * GAIN);
+        return (int) Math.max(MIN_DEPTH, Math.min(maxDepth, target));
+    }
+
+    private static class Request {
+
+        private final int pieceIndex;
+        private final int begin;
+        private final int length;
+        private final long sentAt;
+        // Sent while nothing else was outstanding, so its round trip includes no queueing.
+        private final boolean unqueued;
+
+        private Request(int pieceIndex, int begin, int length, long sentAt, boolean unqueued) {
+            this.pieceIndex = pieceIndex;
+            this.begin = begin;
+            this.length = length;
+            this.sentAt = sentAt;
+            this.unqueued = unqueued;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package core.peer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// One selector and the thread that owns it. Channel registration and interest changes must run on the
+// loop thread, so other threads hand them over through execute().
+final class SelectorLoop implements Closeable {
+
+    interface Handler {
+        void ready(SelectionKey key);
+    }
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    SelectorLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = Thread.ofPlatform().daemon().name(name).start(this::run);
+    }
+
+    void execute(Runnable task) {
+        tasks.add(task);
+
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    SelectionKey register(SelectableChannel channel, int ops, Handler handler) throws IOException {
+        return channel.register(selector, ops, handler);
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                // Tasks queued by the loop thread itself did not wake the selector, so drain them first.
+                runTasks();
+                selector.select();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (key.isValid()) {
+                        ((Handler) key.attachment()).ready(key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            closed = true;
+        } finally {
+            runTasks();
+
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // Channels are closed by their owners.
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package core.peer;
+
+import core.storage.FileRegion;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+// Non-blocking connection driven by a SelectorLoop. Messages are encoded into one pooled write buffer kept
+// for the connection's lifetime; messages that do not fit, and file regions, queue behind it until the
+// socket drains.
+final class SelectorPeerConnection extends AbstractPeerConnection implements SelectorLoop.Handler {
+
+    private final SelectorLoop loop;
+    private final SocketChannel channel;
+    private final ByteBuffer writeBuffer;
+    // ByteBuffers and FileRegions, in send order.
+    private final ArrayDeque<Object> overflow = new ArrayDeque<>();
+    private boolean connected;
+    private SelectionKey key;
+
+    SelectorPeerConnection(PeerEngine engine, SelectorLoop loop, SocketChannel channel, InetSocketAddress remoteAddress, byte[] expectedInfoHash) {
+        super(engine, remoteAddress, expectedInfoHash);
+        this.loop = loop;
+        this.channel = channel;
+        this.writeBuffer = engine.bufferPool.acquire(WRITE_BUFFER_SIZE);
+    }
+
+    // Loop thread.
+    void startConnect() {
+        try {
+            key = loop.register(channel, SelectionKey.OP_CONNECT, this);
+
+            if (channel.connect(remoteAddress)) {
+                connected();
+            }
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    // Loop thread.
+    void startAccepted() {
+        try {
+            key = loop.register(channel, SelectionKey.OP_READ, this);
+            markConnected();
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    @Override
+    public void ready(SelectionKey key) {
+        try {
+            if (key.isConnectable() && channel.finishConnect()) {
+                connected();
+            }
+
+            if (key.isValid() && key.isReadable()) {
+                if (channel.read(readBuffer) == -1) {
+                    throw new EOFException("Peer closed the connection");
+                }
+
+                processInbound();
+            }
+
+            if (key.isValid() && key.isWritable()) {
+                boolean drained;
+
+                writeLock.lock();
+                try {
+                    drained = writeOut();
+                } finally {
+                    writeLock.unlock();
+                }
+
+                if (drained) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                }
+            }
+        } catch (IOException e) {
+            close(e);
+        } catch (RuntimeException e) {
+            close(new IOException("Peer handler failed", e));
+        }
+    }
+
+    private void connected() {
+        key.interestOps(SelectionKey.OP_READ);
+        markConnected();
+        sendHandshake(expectedInfoHash);
+    }
+
+    private void markConnected() {
+        writeLock.lock();
+        try {
+            connected = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Messages go to the direct buffer unless earlier ones are still queued.
+    @Override
+    ByteBuffer beginMessage(int size) {
+        if (overflow.isEmpty() && writeBuffer.remaining() >= size) {
+            return writeBuffer;
+        }
+        return network.bufferPool.acquire(size);
+    }
+
+    @Override
+    void endMessage(ByteBuffer out) {
+        if (out != writeBuffer) {
+            overflow.add(out.flip());
+        }
+    }
+
+    @Override
+    void enqueueRegion(FileRegion region) {
+        overflow.add(region);
+    }
+
+    // Writes what the socket accepts right away; the rest is left to the loop thread via OP_WRITE.
+    @Override
+    void flush() {
+        boolean drained = true;
+        IOException failure = null;
+
+        writeLock.lock();
+        try {
+            if (isOpen() && connected) {
+                drained = writeOut();
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            writeLock.unlock();
+        }
+
+        if (failure != null) {
+            close(failure);
+        } else if (!drained) {
+            loop.execute(() -> {
+                if (key != null && key.isValid()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                }
+            });
+        }
+    }
+
+    // Caller holds writeLock. Returns true once nothing is left to write, or the buffers were released.
+    private boolean writeOut() throws IOException {
+        if (!isOpen()) {
+            return true;
+        }
+
+        writeBuffer.flip();
+        channel.write(writeBuffer);
+        boolean drained = !writeBuffer.hasRemaining();
+        writeBuffer.compact();
+
+        if (!drained) {
+            return false;
+        }
+
+        while (!overflow.isEmpty()) {
+            if (!writeQueued(overflow.peek(), channel)) {
+                return false;
+            }
+
+            overflow.poll();
+        }
+
+        return true;
+    }
+
+    @Override
+    void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already unusable.
+        }
+
+        writeLock.lock();
+        try {
+            discardQueued(overflow);
+            network.bufferPool.release(writeBuffer);
+        } finally {
+            writeLock.unlock();
+        }
+
+        // The loop thread may be reading right now; it runs the task once it is done.
+        loop.execute(this::releaseReadBuffer);
+    }
+}
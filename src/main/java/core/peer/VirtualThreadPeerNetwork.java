@@ -0,0 +1,128 @@
+package core.peer;
+
+import core.buffer.BufferPool;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+
+// Thread-per-connection transport using plain blocking sockets. With the default virtual-thread factory a
+// connection costs a few KiB of stack instead of a platform thread; passing a platform factory gives the
+// classic blocking baseline the benchmark compares against.
+public class VirtualThreadPeerNetwork extends AbstractPeerNetwork {
+
+    private final ThreadFactory threadFactory;
+    private ServerSocketChannel server;
+
+    public VirtualThreadPeerNetwork(byte[] peerId) {
+        this(peerId, Thread.ofVirtual().name("peer-", 0).factory());
+    }
+
+    public VirtualThreadPeerNetwork(byte[] peerId, ThreadFactory threadFactory) {
+        this(peerId, threadFactory, new BufferPool());
+    }
+
+    public VirtualThreadPeerNetwork(byte[] peerId, ThreadFactory threadFactory, BufferPool bufferPool) {
+        super(peerId, bufferPool);
+        this.threadFactory = threadFactory;
+    }
+
+    @Override
+    public synchronized InetSocketAddress listen(InetSocketAddress bindAddress) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Already listening on " + server.getLocalAddress());
+        }
+
+        ServerSocketChannel channel = ServerSocketChannel.open();
+
+        try {
+            channel.bind(bindAddress, 1024);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        Thread acceptor = threadFactory.newThread(() -> acceptLoop(channel));
+
+        if (acceptor == null) {
+            channel.close();
+            throw new IOException("Thread factory refused to create the acceptor thread");
+        }
+
+        server = channel;
+        acceptor.start();
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    @Override
+    public CompletableFuture<PeerConnection> connect(InetSocketAddress address, byte[] infoHash) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("Peer network is closed"));
+        }
+
+        if (handlerFactory(infoHash) == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Torrent is not registered"));
+        }
+
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            BlockingPeerConnection connection = new BlockingPeerConnection(this, threadFactory, channel, address, infoHash);
+            connectionOpened(connection);
+            connection.start();
+            return connection.handshakeResult();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void acceptLoop(ServerSocketChannel channel) {
+        while (!closed) {
+            SocketChannel accepted;
+
+            try {
+                accepted = channel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                // Transient accept failures (e.g. out of file descriptors): keep serving.
+                continue;
+            }
+
+            try {
+                accepted.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                BlockingPeerConnection connection = new BlockingPeerConnection(this, threadFactory, accepted,
+                        (InetSocketAddress) accepted.getRemoteAddress(), null);
+                connectionOpened(connection);
+                connection.start();
+            } catch (IOException e) {
+                try {
+                    accepted.close();
+                } catch (IOException ignored) {
+                    // Nothing left to release.
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            if (server != null) {
+                server.close();
+            }
+        }
+
+        closeConnections();
+    }
+}
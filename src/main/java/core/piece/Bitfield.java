@@ -0,0 +1,297 @@
+package core.piece;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Fixed-size piece set in BitTorrent wire order: piece 0 is the most significant bit of the first word, so
+// the words serialized big-endian are exactly the bitfield message payload and conversion never touches
+// individual bits. Bits past size() are always zero, which keeps the word loops free of tail masking.
+// Not thread-safe.
+public class Bitfield {
+
+    private final int size;
+    private final long[] words;
+
+    public Bitfield(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative bitfield size: " + size);
+        }
+
+        this.size = size;
+        this.words = new long[(size + 63) >>> 6];
+    }
+
+    private Bitfield(int size, long[] words) {
+        this.size = size;
+        this.words = words;
+    }
+
+    public static int wireLength(int size) {
+        return (size + 7) >>> 3;
+    }
+
+    public static Bitfield fromWire(byte[] bitfield, int size) throws IOException {
+        return fromWire(ByteBuffer.wrap(bitfield), size);
+    }
+
+    // Consumes exactly wireLength(size) bytes; spare bits in the last byte must be zero, as BEP 3 requires.
+    public static Bitfield fromWire(ByteBuffer bitfield, int size) throws IOException {
+        int length = wireLength(size);
+
+        if (bitfield.remaining() != length) {
+            throw new IOException("Invalid bitfield length " + bitfield.remaining() + " for " + size + " pieces");
+        }
+
+        Bitfield result = new Bitfield(size);
+        ByteBuffer in = bitfield.slice().order(ByteOrder.BIG_ENDIAN);
+        int fullWords = length >>> 3;
+
+        for (int i = 0; i < fullWords; i++) {
+            result.words[i] = in.getLong(i << 3);
+        }
+
+        if (fullWords < result.words.length) {
+            long tail = 0;
+
+            for (int offset = fullWords << 3, shift = 56; offset < length; offset++, shift -= 8) {
+                tail |= (in.get(offset) & 0xFFL) << shift;
+            }
+
+            result.words[fullWords] = tail;
+        }
+
+        if (result.words.length > 0 && (result.words[result.words.length - 1] & ~lastWordMask(size)) != 0) {
+            throw new IOException("Bitfield has spare bits set");
+        }
+
+        bitfield.position(bitfield.position() + length);
+        return result;
+    }
+
+    public byte[] toWire() {
+        byte[] bitfield = new byte[wireLength(size)];
+        writeTo(ByteBuffer.wrap(bitfield));
+        return bitfield;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        int length = wireLength(size);
+        int fullWords = length >>> 3;
+        ByteOrder previous = out.order();
+
+        out.order(ByteOrder.BIG_ENDIAN);
+
+        for (int i = 0; i < fullWords; i++) {
+            out.putLong(words[i]);
+        }
+
+        for (int offset = fullWords << 3, shift = 56; offset < length; offset++, shift -= 8) {
+            out.put((byte) (words[fullWords] >>> shift));
+        }
+
+        out.order(previous);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean get(int index) {
+        checkIndex(index);
+        return (words[index >>> 6] & bit(index)) != 0;
+    }
+
+    public void set(int index) {
+        checkIndex(index);
+        words[index >>> 6] |= bit(index);
+    }
+
+    public void clear(int index) {
+        checkIndex(index);
+        words[index >>> 6] &= ~bit(index);
+    }
+
+    // Sets [from, to).
+    public void set(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of [0, " + size + ")");
+        }
+
+        if (from == to) {
+            return;
+        }
+
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L >>> (from & 63);
+        long lastMask = -1L << (63 - ((to - 1) & 63));
+
+        if (firstWord == lastWord) {
+            words[firstWord] |= firstMask & lastMask;
+            return;
+        }
+
+        words[firstWord] |= firstMask;
+        Arrays.fill(words, firstWord + 1, lastWord, -1L);
+        words[lastWord] |= lastMask;
+    }
+
+    public void setAll() {
+        if (size > 0) {
+            set(0, size);
+        }
+    }
+
+    public void clearAll() {
+        Arrays.fill(words, 0);
+    }
+
+    public int cardinality() {
+        int count = 0;
+
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+
+        return count;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean isFull() {
+        return cardinality() == size;
+    }
+
+    // Returns the first set bit at or after from, or -1.
+    public int nextSetBit(int from) {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("Negative index: " + from);
+        }
+
+        if (from >= size) {
+            return -1;
+        }
+
+        int wordIndex = from >>> 6;
+        long word = words[wordIndex] & (-1L >>> (from & 63));
+
+        while (word == 0) {
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+
+        return (wordIndex << 6) + Long.numberOfLeadingZeros(word);
+    }
+
+    // Returns the first clear bit at or after from, or size() if there is none.
+    public int nextClearBit(int from) {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("Negative index: " + from);
+        }
+
+        if (from >= size) {
+            return size;
+        }
+
+        int wordIndex = from >>> 6;
+        long word = ~words[wordIndex] & (-1L >>> (from & 63));
+
+        while (word == 0) {
+            if (++wordIndex == words.length) {
+                return size;
+            }
+            word = ~words[wordIndex];
+        }
+
+        return Math.min(size, (wordIndex << 6) + Long.numberOfLeadingZeros(word));
+    }
+
+    public void and(Bitfield other) {
+        checkSize(other);
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.words[i];
+        }
+    }
+
+    public void or(Bitfield other) {
+        checkSize(other);
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    public void andNot(Bitfield other) {
+        checkSize(other);
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= ~other.words[i];
+        }
+    }
+
+    // True if this set has a piece that other lacks, e.g. peer.hasAnyMissingFrom(ours) is the interested
+    // check. A branch-free OR over the words, which the JIT can vectorize.
+    public boolean hasAnyMissingFrom(Bitfield other) {
+        checkSize(other);
+        long missing = 0;
+
+        for (int i = 0; i < words.length; i++) {
+            missing |= words[i] & ~other.words[i];
+        }
+
+        return missing != 0;
+    }
+
+    public Bitfield copy() {
+        return new Bitfield(size, words.clone());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Bitfield other && size == other.size && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * size + Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return "Bitfield{" + cardinality() + "/" + size + "}";
+    }
+
+    private static long bit(int index) {
+        return Long.MIN_VALUE >>> (index & 63);
+    }
+
+    private static long lastWordMask(int size) {
+        int used = size & 63;
+        return used == 0 ? -1L : -1L << (64 - used);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Piece index " + index + " out of range [0, " + size + ")");
+        }
+    }
+
+    private void checkSize(Bitfield other) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Bitfield sizes differ: " + size + " and " + other.size);
+        }
+    }
+}
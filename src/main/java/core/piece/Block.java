@@ -0,0 +1,42 @@
+package core.piece;
+
+// A block request as handed out by the piece picker.
+public class Block {
+
+    private final int pieceIndex;
+    private final int begin;
+    private final int length;
+
+    public Block(int pieceIndex, int begin, int length) {
+        this.pieceIndex = pieceIndex;
+        this.begin = begin;
+        this.length = length;
+    }
+
+    public int getPieceIndex() {
+        return pieceIndex;
+    }
+
+    public int getBegin() {
+        return begin;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Block other && pieceIndex == other.pieceIndex && begin == other.begin && length == other.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * pieceIndex + begin) + length;
+    }
+
+    @Override
+    public String toString() {
+        return "Block{piece=" + pieceIndex + ", begin=" + begin + ", length=" + length + "}";
+    }
+}
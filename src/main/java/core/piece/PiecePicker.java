@@ -0,0 +1,387 @@
+package core.piece;
+
+import core.metainfo.TorrentMetainfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Block-level piece selection: blocks of partially downloaded pieces first, then the rarest pieces the peer
+// has with random tie-breaking, and finally endgame duplicates once every missing block is requested.
+//
+// Pieces that are neither complete nor partial live in 'order', grouped into buckets by availability:
+// bucket b spans order[bucketStart[b], bucketStart[b + 1]). A have message moves a piece into the next
+// bucket by swapping it with the bucket's last slot and shifting one boundary, so availability updates are
+// O(1) whatever the piece count. Not thread-safe.
+public class PiecePicker {
+
+    public static final int BLOCK_SIZE = 16 * 1024;
+    // Endgame sends each missing block to at most this many peers.
+    public static final int ENDGAME_MAX_REQUESTS = 2;
+
+    private final int pieceCount;
+    private final long pieceLength;
+    private final long totalLength;
+    private final Random random;
+
+    private final int[] availability;
+    private final int[] order;
+    private final int[] position;
+    private int[] bucketStart;
+    private int topBucket;
+
+    private final Bitfield completed;
+    private final PartialPiece[] partials;
+    private final List<PartialPiece> partialList = new ArrayList<>();
+
+    public PiecePicker(TorrentMetainfo metainfo) {
+        this(metainfo.getPieceCount(), metainfo.getPieceLength(), metainfo.getLength(), new Random());
+    }
+
+    public PiecePicker(int pieceCount, long pieceLength, long totalLength, Random random) {
+        this.pieceCount = pieceCount;
+        this.pieceLength = pieceLength;
+        this.totalLength = totalLength;
+        this.random = random;
+        this.availability = new int[pieceCount];
+        this.order = new int[pieceCount];
+        this.position = new int[pieceCount];
+        this.bucketStart = new int[]{ 0, pieceCount, pieceCount, pieceCount };
+        this.completed = new Bitfield(pieceCount);
+        this.partials = new PartialPiece[pieceCount];
+
+        for (int i = 0; i < pieceCount; i++) {
+            order[i] = i;
+            position[i] = i;
+        }
+    }
+
+    public int getPieceCount() {
+        return pieceCount;
+    }
+
+    public int getAvailability(int pieceIndex) {
+        return availability[pieceIndex];
+    }
+
+    public boolean isCompleted(int pieceIndex) {
+        return completed.get(pieceIndex);
+    }
+
+    public int getCompletedCount() {
+        return completed.cardinality();
+    }
+
+    public Bitfield getCompletedPieces() {
+        return completed.copy();
+    }
+
+    public boolean isPartial(int pieceIndex) {
+        return partials[pieceIndex] != null;
+    }
+
+    // True once no unrequested block is left, i.e. further picks can only duplicate outstanding requests.
+    public boolean isEndgame() {
+        if (freshCount() > 0) {
+            return false;
+        }
+
+        for (PartialPiece partial : partialList) {
+            if (partial.unrequested > 0) {
+                return false;
+            }
+        }
+
+        return completed.cardinality() < pieceCount;
+    }
+
+    public void peerHave(int pieceIndex) {
+        int from = availability[pieceIndex]++;
+
+        if (isFresh(pieceIndex)) {
+            ensureBucket(from + 1);
+            int last = bucketStart[from + 1] - 1;
+            swap(position[pieceIndex], last);
+            bucketStart[from + 1]--;
+        }
+    }
+
+    public void peerBitfield(Bitfield pieces) {
+        for (int i = pieces.nextSetBit(0); i >= 0 && i < pieceCount; i = pieces.nextSetBit(i + 1)) {
+            peerHave(i);
+        }
+    }
+
+    // Undoes peerBitfield/peerHave for a peer that disconnected.
+    public void peerLost(Bitfield pieces) {
+        for (int i = pieces.nextSetBit(0); i >= 0 && i < pieceCount; i = pieces.nextSetBit(i + 1)) {
+            int from = availability[i];
+
+            if (from == 0) {
+                continue;
+            }
+
+            availability[i] = from - 1;
+
+            if (isFresh(i)) {
+                swap(position[i], bucketStart[from]);
+                bucketStart[from]++;
+            }
+        }
+    }
+
+    public void markCompleted(Bitfield pieces) {
+        for (int i = pieces.nextSetBit(0); i >= 0; i = pieces.nextSetBit(i + 1)) {
+            markCompleted(i);
+        }
+    }
+
+    // Marks a verified piece; it is never picked again.
+    public void markCompleted(int pieceIndex) {
+        if (completed.get(pieceIndex)) {
+            return;
+        }
+
+        if (isFresh(pieceIndex)) {
+            removeFresh(pieceIndex);
+        } else {
+            partialList.remove(partials[pieceIndex]);
+            partials[pieceIndex] = null;
+        }
+
+        completed.set(pieceIndex);
+    }
+
+    // A piece that failed its hash check is downloaded again from scratch.
+    public void pieceFailed(int pieceIndex) {
+        PartialPiece partial = partials[pieceIndex];
+
+        if (partial != null) {
+            partialList.remove(partial);
+            partials[pieceIndex] = null;
+            insertFresh(pieceIndex);
+        }
+    }
+
+    // Picks up to maxBlocks blocks the peer has. The peer object only identifies the requester, so endgame
+    // never hands a peer a block it was already asked for.
+    public List<Block> pick(Object peer, Bitfield peerPieces, int maxBlocks) {
+        List<Block> picked = new ArrayList<>();
+
+        while (picked.size() < maxBlocks) {
+            pickFromPartials(peer, peerPieces, maxBlocks, picked);
+
+            if (picked.size() >= maxBlocks || !startRarestPiece(peerPieces)) {
+                break;
+            }
+        }
+
+        if (picked.size() < maxBlocks && freshCount() == 0) {
+            pickEndgame(peer, peerPieces, maxBlocks, picked);
+        }
+
+        return picked;
+    }
+
+    // Returns true once every block of the piece has arrived and it is ready for hash verification.
+    public boolean blockReceived(int pieceIndex, int begin) {
+        PartialPiece partial = partials[pieceIndex];
+
+        if (partial == null) {
+            return false;
+        }
+
+        int block = begin / BLOCK_SIZE;
+
+        if (!partial.received.get(block)) {
+            if (partial.requests[block] == 0) {
+                partial.unrequested--;
+            }
+            partial.received.set(block);
+            partial.receivedCount++;
+        }
+
+        return partial.receivedCount == partial.blockCount;
+    }
+
+    // The request was rejected, cancelled or lost with its peer; the block becomes pickable again once no
+    // other peer has it outstanding.
+    public void requestFailed(Object peer, int pieceIndex, int begin) {
+        PartialPiece partial = partials[pieceIndex];
+
+        if (partial == null) {
+            return;
+        }
+
+        int block = begin / BLOCK_SIZE;
+
+        if (partial.received.get(block) || partial.requests[block] == 0) {
+            return;
+        }
+
+        if (partial.requesters[block] == peer) {
+            partial.requesters[block] = null;
+        }
+
+        if (--partial.requests[block] == 0) {
+            partial.unrequested++;
+        }
+    }
+
+    private void pickFromPartials(Object peer, Bitfield peerPieces, int maxBlocks, List<Block> picked) {
+        for (PartialPiece partial : partialList) {
+            if (partial.unrequested == 0 || !peerPieces.get(partial.pieceIndex)) {
+                continue;
+            }
+
+            for (int block = 0; block < partial.blockCount && picked.size() < maxBlocks; block++) {
+                if (partial.requests[block] == 0 && !partial.received.get(block)) {
+                    picked.add(request(partial, block, peer));
+                    partial.unrequested--;
+                }
+            }
+
+            if (picked.size() >= maxBlocks) {
+                return;
+            }
+        }
+    }
+
+    // Turns the rarest piece the peer has into a partial piece; ties are broken by a random starting slot.
+    private boolean startRarestPiece(Bitfield peerPieces) {
+        for (int bucket = 1; bucket <= topBucket; bucket++) {
+            int start = bucketStart[bucket];
+            int size = bucketStart[bucket + 1] - start;
+
+            if (size == 0) {
+                continue;
+            }
+
+            int offset = random.nextInt(size);
+
+            for (int i = 0; i < size; i++) {
+                int pieceIndex = order[start + (offset + i) % size];
+
+                if (peerPieces.get(pieceIndex)) {
+                    removeFresh(pieceIndex);
+                    PartialPiece partial = new PartialPiece(pieceIndex, blockCount(pieceIndex));
+                    partials[pieceIndex] = partial;
+                    partialList.add(partial);
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private void pickEndgame(Object peer, Bitfield peerPieces, int maxBlocks, List<Block> picked) {
+        for (PartialPiece partial : partialList) {
+            if (!peerPieces.get(partial.pieceIndex)) {
+                continue;
+            }
+
+            for (int block = 0; block < partial.blockCount && picked.size() < maxBlocks; block++) {
+                if (!partial.received.get(block) && partial.requests[block] > 0
+                        && partial.requests[block] < ENDGAME_MAX_REQUESTS && partial.requesters[block] != peer) {
+                    picked.add(request(partial, block, peer));
+                }
+            }
+
+            if (picked.size() >= maxBlocks) {
+                return;
+            }
+        }
+    }
+
+    private Block request(PartialPiece partial, int block, Object peer) {
+        partial.requests[block]++;
+        partial.requesters[block] = peer;
+        int begin = block * BLOCK_SIZE;
+        return new Block(partial.pieceIndex, begin, Math.min(BLOCK_SIZE, pieceSize(partial.pieceIndex) - begin));
+    }
+
+    private int pieceSize(int pieceIndex) {
+        return (int) Math.min(pieceLength, totalLength - pieceIndex * pieceLength);
+    }
+
+    private int blockCount(int pieceIndex) {
+        return (pieceSize(pieceIndex) + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    private boolean isFresh(int pieceIndex) {
+        return position[pieceIndex] < freshCount();
+    }
+
+    private int freshCount() {
+        return bucketStart[topBucket + 1];
+    }
+
+    // Moves the piece past the end of every higher bucket, one boundary at a time.
+    private void removeFresh(int pieceIndex) {
+        for (int bucket = availability[pieceIndex]; bucket <= topBucket; bucket++) {
+            swap(position[pieceIndex], bucketStart[bucket + 1] - 1);
+            bucketStart[bucket + 1]--;
+        }
+    }
+
+    private void insertFresh(int pieceIndex) {
+        int target = availability[pieceIndex];
+        ensureBucket(target);
+
+        swap(position[pieceIndex], bucketStart[topBucket + 1]);
+        bucketStart[topBucket + 1]++;
+
+        for (int bucket = topBucket; bucket > target; bucket--) {
+            swap(position[pieceIndex], bucketStart[bucket]);
+            bucketStart[bucket]++;
+        }
+    }
+
+    private void ensureBucket(int bucket) {
+        if (bucket <= topBucket) {
+            return;
+        }
+
+        if (bucket + 2 > bucketStart.length) {
+            int end = bucketStart[topBucket + 1];
+            int oldLength = bucketStart.length;
+            bucketStart = Arrays.copyOf(bucketStart, Math.max(bucket + 2, oldLength * 2));
+            Arrays.fill(bucketStart, oldLength, bucketStart.length, end);
+        }
+
+        int end = bucketStart[topBucket + 1];
+        Arrays.fill(bucketStart, topBucket + 2, bucket + 2, end);
+        topBucket = bucket;
+    }
+
+    private void swap(int i, int j) {
+        int a = order[i];
+        int b = order[j];
+        order[i] = b;
+        order[j] = a;
+        position[b] = i;
+        position[a] = j;
+    }
+
+    private static class PartialPiece {
+
+        private final int pieceIndex;
+        private final int blockCount;
+        private final byte[] requests;
+        private final Object[] requesters;
+        private final Bitfield received;
+        private int receivedCount;
+        private int unrequested;
+
+        private PartialPiece(int pieceIndex, int blockCount) {
+            this.pieceIndex = pieceIndex;
+            this.blockCount = blockCount;
+            this.requests = new byte[blockCount];
+            this.requesters = new Object[blockCount];
+            this.received = new Bitfield(blockCount);
+            this.unrequested = blockCount;
+        }
+    }
+}
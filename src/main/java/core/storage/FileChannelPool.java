@@ -0,0 +1,207 @@
+package core.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Bounded LRU of open file channels shared by all torrents. Channels are handed out as leases and only
+// idle ones are closed on eviction, so the pool may briefly exceed its limit while every channel is in use.
+// Files are opened read-only until something needs to write them, so seeding works from read-only files;
+// a later write replaces the pooled channel with a writable one.
+public class FileChannelPool implements Closeable {
+
+    public static final int DEFAULT_MAX_OPEN_FILES = 512;
+
+    private final int maxOpenFiles;
+    private final LinkedHashMap<Path, PooledChannel> channels = new LinkedHashMap<>(16, 0.75f, true);
+    // Read-only channels replaced by a writable one while still leased; they stay open until released.
+    private final Set<PooledChannel> superseded = new HashSet<>();
+    private boolean closed;
+
+    public FileChannelPool() {
+        this(DEFAULT_MAX_OPEN_FILES);
+    }
+
+    public FileChannelPool(int maxOpenFiles) {
+        if (maxOpenFiles < 1) {
+            throw new IllegalArgumentException("maxOpenFiles must be positive");
+        }
+        this.maxOpenFiles = maxOpenFiles;
+    }
+
+    // With write, opens the file for reading and writing and creates it if missing. Otherwise the channel
+    // may be read-only and a missing file fails with NoSuchFileException.
+    public Lease acquire(Path path, boolean write) throws IOException {
+        synchronized (this) {
+            Lease lease = leaseExisting(path, write);
+            if (lease != null) {
+                return lease;
+            }
+        }
+
+        FileChannel channel = write
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+
+        synchronized (this) {
+            Lease lease = leaseExisting(path, write);
+
+            if (lease != null) {
+                channel.close();
+                return lease;
+            }
+
+            PooledChannel previous = channels.remove(path);
+
+            if (previous != null && previous.leases == 0) {
+                previous.channel.close();
+            } else if (previous != null) {
+                previous.evicted = true;
+                superseded.add(previous);
+            }
+
+            PooledChannel pooled = new PooledChannel(channel, write);
+            pooled.leases = 1;
+            channels.put(path, pooled);
+            evictIdle();
+
+            return new Lease(pooled);
+        }
+    }
+
+    public synchronized void evict(Path path) throws IOException {
+        PooledChannel pooled = channels.get(path);
+
+        if (pooled != null && pooled.leases == 0) {
+            channels.remove(path);
+            pooled.channel.close();
+        } else if (pooled != null) {
+            pooled.evicted = true;
+        }
+    }
+
+    public synchronized int openFileCount() {
+        return channels.size() + superseded.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        List<IOException> failures = new ArrayList<>();
+
+        List<PooledChannel> open = new ArrayList<>(channels.values());
+        open.addAll(superseded);
+
+        for (PooledChannel pooled : open) {
+            try {
+                pooled.channel.close();
+            } catch (IOException e) {
+                failures.add(e);
+            }
+        }
+
+        channels.clear();
+        superseded.clear();
+
+        if (!failures.isEmpty()) {
+            IOException exception = new IOException("Failed to close " + failures.size() + " file channel(s)");
+            failures.forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+
+    private Lease leaseExisting(Path path, boolean write) throws IOException {
+        if (closed) {
+            throw new IOException("File channel pool is closed");
+        }
+
+        PooledChannel pooled = channels.get(path);
+
+        if (pooled == null) {
+            return null;
+        }
+
+        if (!pooled.channel.isOpen()) {
+            channels.remove(path);
+            return null;
+        }
+
+        if (write && !pooled.writable) {
+            return null;
+        }
+
+        pooled.leases++;
+        return new Lease(pooled);
+    }
+
+    private synchronized void release(PooledChannel pooled) throws IOException {
+        pooled.leases--;
+
+        if (pooled.leases == 0 && pooled.evicted) {
+            if (!superseded.remove(pooled)) {
+                channels.values().remove(pooled);
+            }
+            pooled.channel.close();
+            return;
+        }
+
+        evictIdle();
+    }
+
+    private void evictIdle() throws IOException {
+        Iterator<Map.Entry<Path, PooledChannel>> iterator = channels.entrySet().iterator();
+
+        while (channels.size() > maxOpenFiles && iterator.hasNext()) {
+            PooledChannel pooled = iterator.next().getValue();
+
+            if (pooled.leases == 0) {
+                iterator.remove();
+                pooled.channel.close();
+            }
+        }
+    }
+
+    private static class PooledChannel {
+
+        private final FileChannel channel;
+        private final boolean writable;
+        private int leases;
+        private boolean evicted;
+
+        private PooledChannel(FileChannel channel, boolean writable) {
+            this.channel = channel;
+            this.writable = writable;
+        }
+    }
+
+    public class Lease implements AutoCloseable {
+
+        private final PooledChannel pooled;
+        private boolean released;
+
+        private Lease(PooledChannel pooled) {
+            this.pooled = pooled;
+        }
+
+        public FileChannel channel() {
+            return pooled.channel;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!released) {
+                released = true;
+                release(pooled);
+            }
+        }
+    }
+}
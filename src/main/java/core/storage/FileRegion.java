@@ -0,0 +1,52 @@
+package core.storage;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+// A byte range of a single torrent file, kept open through a pool lease until closed. Sent with
+// FileChannel.transferTo, which lets the kernel copy file pages straight to a socket (sendfile).
+public class FileRegion implements Closeable {
+
+    private final FileChannelPool.Lease lease;
+    private final long end;
+    private long position;
+
+    FileRegion(FileChannelPool.Lease lease, long position, long length) {
+        this.lease = lease;
+        this.position = position;
+        this.end = position + length;
+    }
+
+    public long remaining() {
+        return end - position;
+    }
+
+    // Transfers as much as the target accepts; returns true once the whole region was sent. A non-blocking
+    // target may accept only part of it, in which case the call is repeated when the socket is writable.
+    public boolean transferTo(WritableByteChannel target) throws IOException {
+        FileChannel channel = lease.channel();
+
+        while (position < end) {
+            long transferred = channel.transferTo(position, end - position, target);
+
+            if (transferred == 0) {
+                if (position >= channel.size()) {
+                    throw new EOFException("Unexpected end of file at position " + position);
+                }
+                return false;
+            }
+
+            position += transferred;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lease.close();
+    }
+}
@@ -0,0 +1,196 @@
+package core.storage;
+
+import core.metainfo.FileLayout;
+import core.metainfo.TorrentFile;
+import core.metainfo.TorrentMetainfo;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Reads and writes torrent data with positional FileChannel I/O. Offsets are positions in the torrent's
+// concatenated byte stream; ranges crossing file boundaries are split using the metainfo FileLayout.
+public class PieceStorage {
+
+    public static final int BLOCK_SIZE = 16 * 1024;
+
+    private final TorrentMetainfo metainfo;
+    private final FileLayout layout;
+    private final FileChannelPool channelPool;
+    private final Path[] filePaths;
+
+    public PieceStorage(TorrentMetainfo metainfo, Path downloadDirectory, FileChannelPool channelPool) throws IOException {
+        this.metainfo = metainfo;
+        this.layout = metainfo.getLayout();
+        this.channelPool = channelPool;
+        this.filePaths = resolveFilePaths(metainfo, downloadDirectory);
+    }
+
+    private static Path[] resolveFilePaths(TorrentMetainfo metainfo, Path downloadDirectory) throws IOException {
+        Path root = downloadDirectory.toAbsolutePath().normalize();
+        Path base = metainfo.isMultiFile() ? root.resolve(metainfo.getName()) : root;
+        List<TorrentFile> files = metainfo.getFiles();
+        Path[] paths = new Path[files.size()];
+
+        for (int i = 0; i < paths.length; i++) {
+            Path path = base;
+
+            for (String component : files.get(i).getPath()) {
+                path = path.resolve(component);
+            }
+
+            path = path.normalize();
+
+            if (!path.startsWith(root) || path.equals(root)) {
+                throw new IOException("File path escapes the download directory: " + path);
+            }
+
+            paths[i] = path;
+        }
+
+        return paths;
+    }
+
+    public TorrentMetainfo getMetainfo() {
+        return metainfo;
+    }
+
+    public Path getFilePath(int fileIndex) {
+        return filePaths[fileIndex];
+    }
+
+    public int getFileCount() {
+        return filePaths.length;
+    }
+
+    // Creates every file at its final size. Files are extended by writing their last byte, which
+    // leaves them sparse on filesystems that support it.
+    public void preallocate() throws IOException {
+        ByteBuffer zero = ByteBuffer.allocate(1);
+
+        for (int i = 0; i < filePaths.length; i++) {
+            Files.createDirectories(filePaths[i].getParent());
+            long length = layout.getFileLength(i);
+
+            try (FileChannelPool.Lease lease = channelPool.acquire(filePaths[i], true)) {
+                FileChannel channel = lease.channel();
+
+                if (channel.size() > length) {
+                    channel.truncate(length);
+                } else if (channel.size() < length) {
+                    channel.write(zero.clear(), length - 1);
+                }
+            }
+        }
+    }
+
+    public void readBlock(int pieceIndex, int begin, ByteBuffer destination) throws IOException {
+        read(blockOffset(pieceIndex, begin, destination.remaining()), destination);
+    }
+
+    public void writeBlock(int pieceIndex, int begin, ByteBuffer source) throws IOException {
+        write(blockOffset(pieceIndex, begin, source.remaining()), source);
+    }
+
+    // Opens the block for a zero-copy transfer. Returns null when it spans more than one file, in which
+    // case the caller has to read it into a buffer.
+    public FileRegion openRegion(int pieceIndex, int begin, int length) throws IOException {
+        long offset = blockOffset(pieceIndex, begin, length);
+
+        if (length == 0) {
+            return null;
+        }
+
+        int fileIndex = layout.fileIndexAt(offset);
+        long fileStart = layout.getFileOffset(fileIndex);
+
+        if (offset + length > fileStart + layout.getFileLength(fileIndex)) {
+            return null;
+        }
+
+        return new FileRegion(channelPool.acquire(filePaths[fileIndex], false), offset - fileStart, length);
+    }
+
+    // Fills the destination's remaining bytes; throws EOFException if a file is shorter than expected.
+    public void read(long torrentOffset, ByteBuffer destination) throws IOException {
+        transfer(torrentOffset, destination, false);
+    }
+
+    public void write(long torrentOffset, ByteBuffer source) throws IOException {
+        transfer(torrentOffset, source, true);
+    }
+
+    private void transfer(long torrentOffset, ByteBuffer buffer, boolean write) throws IOException {
+        int length = buffer.remaining();
+
+        if (torrentOffset < 0 || torrentOffset + length > layout.getTotalLength()) {
+            throw new IndexOutOfBoundsException("Range [" + torrentOffset + ", " + (torrentOffset + length) + ") out of range [0, " + layout.getTotalLength() + "]");
+        }
+
+        if (length == 0) {
+            return;
+        }
+
+        int originalLimit = buffer.limit();
+        int fileIndex = layout.fileIndexAt(torrentOffset);
+        long position = torrentOffset;
+
+        try {
+            while (buffer.position() < originalLimit) {
+                long fileStart = layout.getFileOffset(fileIndex);
+                long fileEnd = fileStart + layout.getFileLength(fileIndex);
+
+                if (fileEnd > position) {
+                    int count = (int) Math.min(originalLimit - buffer.position(), fileEnd - position);
+                    buffer.limit(buffer.position() + count);
+
+                    try (FileChannelPool.Lease lease = channelPool.acquire(filePaths[fileIndex], write)) {
+                        if (write) {
+                            writeFully(lease.channel(), buffer, position - fileStart);
+                        } else {
+                            readFully(lease.channel(), buffer, position - fileStart);
+                        }
+                    }
+
+                    position += count;
+                }
+
+                fileIndex++;
+            }
+        } finally {
+            buffer.limit(originalLimit);
+        }
+    }
+
+    private long blockOffset(int pieceIndex, int begin, int length) {
+        int pieceSize = metainfo.getPieceSize(pieceIndex);
+
+        if (begin < 0 || length < 0 || begin + length > pieceSize) {
+            throw new IndexOutOfBoundsException("Block [" + begin + ", " + (begin + length) + ") out of piece " + pieceIndex + " of size " + pieceSize);
+        }
+
+        return metainfo.getPieceOffset(pieceIndex) + begin;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer destination, long position) throws IOException {
+        while (destination.hasRemaining()) {
+            int read = channel.read(destination, position);
+
+            if (read == -1) {
+                throw new EOFException("Unexpected end of file at position " + position);
+            }
+
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer source, long position) throws IOException {
+        while (source.hasRemaining()) {
+            position += channel.write(source, position);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package core.storage;
+
+import core.metainfo.TorrentMetainfo;
+import core.piece.Bitfield;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hashes on-disk pieces in parallel. Each leaf task checks a run of consecutive pieces so reads stay
+// sequential per worker. Every worker thread reuses one digest and one read buffer for the whole
+// verification; they are dropped when it returns, so nothing outlives it. Pieces are read and hashed in
+// chunks, which bounds the buffer at READ_CHUNK whatever the piece length.
+//
+// The reads block, so without a pool of their own they run on a pool created for each verification and
+// shut down after it, never on the common pool that CompletableFuture and parallel streams rely on.
+public class PieceVerifier {
+
+    private static final int PIECES_PER_TASK = 16;
+    private static final int READ_CHUNK = 256 * 1024;
+
+    private final PieceStorage storage;
+    private final TorrentMetainfo metainfo;
+    private final ForkJoinPool pool;
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        // Called from worker threads after each checked piece.
+        void onProgress(int checkedPieces, int totalPieces);
+    }
+
+    public PieceVerifier(PieceStorage storage) {
+        this(storage, null);
+    }
+
+    // Runs on the given pool, which stays owned by the caller; with null, each verification gets its own.
+    public PieceVerifier(PieceStorage storage, ForkJoinPool pool) {
+        this.storage = storage;
+        this.metainfo = storage.getMetainfo();
+        this.pool = pool;
+    }
+
+    public Bitfield verifyAll(ProgressListener listener) {
+        Bitfield candidates = new Bitfield(metainfo.getPieceCount());
+        candidates.setAll();
+        return verify(candidates, listener);
+    }
+
+    // Returns the subset of candidate pieces whose on-disk data matches the metainfo hash.
+    public Bitfield verify(Bitfield candidates, ProgressListener listener) {
+        Bitfield verified = new Bitfield(metainfo.getPieceCount());
+        int total = candidates.cardinality();
+
+        if (total == 0) {
+            return verified;
+        }
+
+        VerifyTask task = new VerifyTask(new Verification(candidates, verified, total, listener), 0, metainfo.getPieceCount());
+
+        if (pool != null) {
+            pool.invoke(task);
+        } else {
+            ForkJoinPool dedicated = new ForkJoinPool();
+
+            try {
+                dedicated.invoke(task);
+            } finally {
+                dedicated.shutdown();
+            }
+        }
+
+        return verified;
+    }
+
+    public boolean verifyPiece(int pieceIndex) {
+        return verifyPiece(pieceIndex, newReadBuffer(), newSha1());
+    }
+
+    private boolean verifyPiece(int pieceIndex, ByteBuffer buffer, MessageDigest digest) {
+        long offset = metainfo.getPieceOffset(pieceIndex);
+        long end = offset + metainfo.getPieceSize(pieceIndex);
+        digest.reset();
+
+        try {
+            while (offset < end) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end - offset));
+                storage.read(offset, buffer);
+                offset += buffer.position();
+                digest.update(buffer.flip());
+            }
+        } catch (IOException e) {
+            return false;
+        }
+
+        return metainfo.matches(pieceIndex, digest.digest());
+    }
+
+    // State shared by the tasks of one verify() call.
+    private class Verification {
+
+        private final Bitfield candidates;
+        private final Bitfield verified;
+        private final int total;
+        private final ProgressListener listener;
+        private final AtomicInteger checked = new AtomicInteger();
+        private final ConcurrentHashMap<Thread, Worker> workers = new ConcurrentHashMap<>();
+
+        private Verification(Bitfield candidates, Bitfield verified, int total, ProgressListener listener) {
+            this.candidates = candidates;
+            this.verified = verified;
+            this.total = total;
+            this.listener = listener;
+        }
+
+        private Worker worker() {
+            return workers.computeIfAbsent(Thread.currentThread(), thread -> new Worker(newReadBuffer(), newSha1()));
+        }
+    }
+
+    // Read buffer and digest of one worker thread.
+    private static class Worker {
+
+        private final ByteBuffer buffer;
+        private final MessageDigest digest;
+
+        private Worker(ByteBuffer buffer, MessageDigest digest) {
+            this.buffer = buffer;
+            this.digest = digest;
+        }
+    }
+
+    private ByteBuffer newReadBuffer() {
+        return ByteBuffer.allocateDirect((int) Math.min(READ_CHUNK, metainfo.getPieceLength()));
+    }
+
+    private static MessageDigest newSha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-1 algorithm not found", e);
+        }
+    }
+
+    // Only ever run in-process, never serialized, so the captured state does not have to be serializable.
+    @SuppressWarnings("serial")
+    private class VerifyTask extends RecursiveAction {
+
+        private final Verification verification;
+        private final int from;
+        private final int to;
+
+        private VerifyTask(Verification verification, int from, int to) {
+            this.verification = verification;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PIECES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new VerifyTask(verification, from, middle), new VerifyTask(verification, middle, to));
+                return;
+            }
+
+            Bitfield candidates = verification.candidates;
+            Worker worker = null;
+
+            for (int i = candidates.nextSetBit(from); i >= 0 && i < to; i = candidates.nextSetBit(i + 1)) {
+                if (worker == null) {
+                    worker = verification.worker();
+                }
+
+                if (verifyPiece(i, worker.buffer, worker.digest)) {
+                    synchronized (verification.verified) {
+                        verification.verified.set(i);
+                    }
+                }
+
+                int done = verification.checked.incrementAndGet();
+
+                if (verification.listener != null) {
+                    verification.listener.onProgress(done, verification.total);
+                }
+            }
+        }
+    }
+}
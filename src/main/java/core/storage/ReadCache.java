@@ -0,0 +1,340 @@
+package core.storage;
+
+import core.piece.Bitfield;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+// Piece-granular cache for serving upload requests, shared by all torrents. A miss reads the requested
+// block and the rest of its piece in one go, so peers fetching a piece front to back hit from the second
+// block on.
+//
+// Eviction follows ARC, weighted by bytes: T1 holds pieces seen once, T2 pieces seen at least twice, and the
+// ghost lists B1/B2 remember recently evicted keys. A hit in a ghost list shifts the T1 target towards the
+// list that would have kept it, so a one-off scan through cold pieces only cycles T1 and cannot flush the
+// hot pieces in T2. A piece only counts as seen again when a block of it that was already served is requested
+// again: a peer downloading a cold piece front to back hits the read-ahead for every block after the first,
+// and those hits must not promote the piece. Disk reads happen outside the lock.
+public class ReadCache {
+
+    private final long capacity;
+    private final LinkedHashMap<Key, Entry> t1 = new LinkedHashMap<>();
+    private final LinkedHashMap<Key, Entry> t2 = new LinkedHashMap<>();
+    private final LinkedHashMap<Key, Integer> b1 = new LinkedHashMap<>();
+    private final LinkedHashMap<Key, Integer> b2 = new LinkedHashMap<>();
+    private final Map<String, Stats> stats = new HashMap<>();
+    private long t1Bytes;
+    private long t2Bytes;
+    private long b1Bytes;
+    private long b2Bytes;
+    // Target size of T1 in bytes.
+    private long target;
+
+    public ReadCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+
+        this.capacity = maxBytes;
+    }
+
+    public static class Stats {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public double getHitRatio() {
+            long hits = getHits();
+            long total = hits + getMisses();
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    public void readBlock(PieceStorage storage, int pieceIndex, int begin, ByteBuffer destination) throws IOException {
+        int pieceSize = storage.getMetainfo().getPieceSize(pieceIndex);
+        int length = destination.remaining();
+
+        if (begin < 0 || begin + length > pieceSize) {
+            throw new IndexOutOfBoundsException("Block [" + begin + ", " + (begin + length) + ") out of piece " + pieceIndex + " of size " + pieceSize);
+        }
+
+        Key key = new Key(storage.getMetainfo().getHexInfoHash(), pieceIndex);
+        Stats torrentStats;
+        Entry entry;
+
+        synchronized (this) {
+            torrentStats = stats.computeIfAbsent(key.torrent, torrent -> new Stats());
+            entry = lookup(key, begin, length);
+
+            if (entry != null && entry.validFrom <= begin) {
+                torrentStats.hits.increment();
+                destination.put(entry.data.slice(begin, length));
+                return;
+            }
+        }
+
+        torrentStats.misses.increment();
+
+        // Read from the requested block to the end of the piece, or only the missing front of a cached piece.
+        int loadFrom = begin;
+        int loadTo = entry != null ? entry.validFrom : pieceSize;
+        ByteBuffer data = entry != null ? entry.data.duplicate() : ByteBuffer.allocate(pieceSize);
+        storage.read(storage.getMetainfo().getPieceOffset(pieceIndex) + loadFrom, data.limit(loadTo).position(loadFrom).slice());
+
+        destination.put(data.clear().slice(begin, length));
+
+        synchronized (this) {
+            if (entry != null) {
+                entry.validFrom = Math.min(entry.validFrom, loadFrom);
+            } else {
+                Entry loaded = new Entry(data.clear(), loadFrom);
+                loaded.markServed(begin, length);
+                insert(key, loaded);
+            }
+        }
+    }
+
+    // Returns a read-only view of the block if it is cached, or null without counting a miss, since the
+    // caller goes on to serve the block some other way: through readBlock(), which counts it, or around the
+    // cache followed by recordMiss(). Cached bytes are never rewritten, so the view stays valid after the
+    // piece is evicted.
+    public ByteBuffer getIfCached(PieceStorage storage, int pieceIndex, int begin, int length) {
+        Key key = new Key(storage.getMetainfo().getHexInfoHash(), pieceIndex);
+
+        synchronized (this) {
+            if (begin < 0 || length <= 0) {
+                return null;
+            }
+
+            Entry entry = lookup(key, begin, length);
+
+            if (entry == null || begin < entry.validFrom || begin + length > entry.data.capacity()) {
+                return null;
+            }
+
+            stats.computeIfAbsent(key.torrent, torrent -> new Stats()).hits.increment();
+            return entry.data.slice(begin, length).asReadOnlyBuffer();
+        }
+    }
+
+    // Counts a block that was served without going through the cache, such as one sent straight from the file,
+    // so the hit ratio covers every upload and not only the cached ones.
+    public void recordMiss(PieceStorage storage) {
+        Stats torrentStats;
+
+        synchronized (this) {
+            torrentStats = stats.computeIfAbsent(storage.getMetainfo().getHexInfoHash(), torrent -> new Stats());
+        }
+
+        torrentStats.misses.increment();
+    }
+
+    public synchronized Stats getStats(byte[] infoHash) {
+        return stats.computeIfAbsent(HexFormat.of().formatHex(infoHash), torrent -> new Stats());
+    }
+
+    public synchronized long getCachedBytes() {
+        return t1Bytes + t2Bytes;
+    }
+
+    public synchronized int getCachedPieceCount() {
+        return t1.size() + t2.size();
+    }
+
+    // Drops a torrent's pieces and statistics, e.g. when it is removed or its data is rewritten.
+    public synchronized void removeTorrent(byte[] infoHash) {
+        String torrent = HexFormat.of().formatHex(infoHash);
+        stats.remove(torrent);
+        t1Bytes -= removeTorrent(t1, torrent);
+        t2Bytes -= removeTorrent(t2, torrent);
+        b1Bytes -= removeTorrent(b1, torrent);
+        b2Bytes -= removeTorrent(b2, torrent);
+        target = Math.min(target, capacity);
+    }
+
+    private static long removeTorrent(LinkedHashMap<Key, ?> list, String torrent) {
+        long removed = 0;
+        Iterator<? extends Map.Entry<Key, ?>> iterator = list.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Key, ?> next = iterator.next();
+
+            if (next.getKey().torrent.equals(torrent)) {
+                removed += sizeOf(next.getValue());
+                iterator.remove();
+            }
+        }
+
+        return removed;
+    }
+
+    private static long sizeOf(Object value) {
+        return value instanceof Entry entry ? entry.data.capacity() : (Integer) value;
+    }
+
+    // Moves the piece to the most recently used end of its list. A piece in T1 is promoted to T2 only when the
+    // requested block was served before; first requests for its other blocks keep it in T1.
+    private Entry lookup(Key key, int begin, int length) {
+        Entry entry = t2.remove(key);
+
+        if (entry != null) {
+            entry.markServed(begin, length);
+            t2.put(key, entry);
+            return entry;
+        }
+
+        entry = t1.remove(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.markServed(begin, length)) {
+            t1Bytes -= entry.size();
+            t2.put(key, entry);
+            t2Bytes += entry.size();
+        } else {
+            t1.put(key, entry);
+        }
+
+        return entry;
+    }
+
+    private void insert(Key key, Entry entry) {
+        int size = entry.size();
+
+        if (size > capacity || t1.containsKey(key) || t2.containsKey(key)) {
+            return;
+        }
+
+        Integer ghost;
+
+        if ((ghost = b1.remove(key)) != null) {
+            b1Bytes -= ghost;
+            target = Math.min(capacity, target + Math.max(size, b2Bytes * size / Math.max(1, b1Bytes + ghost)));
+            makeRoom(size, false);
+            t2.put(key, entry);
+            t2Bytes += size;
+        } else if ((ghost = b2.remove(key)) != null) {
+            b2Bytes -= ghost;
+            target = Math.max(0, target - Math.max(size, b1Bytes * size / Math.max(1, b2Bytes + ghost)));
+            makeRoom(size, true);
+            t2.put(key, entry);
+            t2Bytes += size;
+        } else {
+            makeRoom(size, false);
+            t1.put(key, entry);
+            t1Bytes += size;
+        }
+
+        trimGhosts();
+    }
+
+    // ARC's replace step, repeated until the new piece fits.
+    private void makeRoom(int size, boolean hitInB2) {
+        while (t1Bytes + t2Bytes + size > capacity) {
+            boolean fromT1 = !t1.isEmpty() && (t1Bytes > target || (hitInB2 && t1Bytes == target) || t2.isEmpty());
+            LinkedHashMap<Key, Entry> source = fromT1 ? t1 : t2;
+            Iterator<Map.Entry<Key, Entry>> eldest = source.entrySet().iterator();
+            Map.Entry<Key, Entry> victim = eldest.next();
+            eldest.remove();
+            int victimSize = victim.getValue().size();
+
+            if (fromT1) {
+                t1Bytes -= victimSize;
+                b1.put(victim.getKey(), victimSize);
+                b1Bytes += victimSize;
+            } else {
+                t2Bytes -= victimSize;
+                b2.put(victim.getKey(), victimSize);
+                b2Bytes += victimSize;
+            }
+        }
+    }
+
+    // Keeps T1 + B1 within the capacity and the whole directory within twice the capacity.
+    private void trimGhosts() {
+        while (t1Bytes + b1Bytes > capacity && !b1.isEmpty()) {
+            b1Bytes -= dropEldest(b1);
+        }
+
+        while (t1Bytes + t2Bytes + b1Bytes + b2Bytes > 2 * capacity && !b2.isEmpty()) {
+            b2Bytes -= dropEldest(b2);
+        }
+    }
+
+    private static int dropEldest(LinkedHashMap<Key, Integer> ghosts) {
+        Iterator<Map.Entry<Key, Integer>> eldest = ghosts.entrySet().iterator();
+        int size = eldest.next().getValue();
+        eldest.remove();
+        return size;
+    }
+
+    private static class Key {
+
+        private final String torrent;
+        private final int pieceIndex;
+
+        private Key(String torrent, int pieceIndex) {
+            this.torrent = torrent;
+            this.pieceIndex = pieceIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && pieceIndex == other.pieceIndex && torrent.equals(other.torrent);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(torrent, pieceIndex);
+        }
+    }
+
+    private static class Entry {
+
+        private final ByteBuffer data;
+        // Blocks requested so far; guarded by the cache's lock.
+        private final Bitfield served;
+        // Bytes before this offset were not requested yet and are not loaded.
+        private volatile int validFrom;
+
+        private Entry(ByteBuffer data, int validFrom) {
+            this.data = data;
+            this.validFrom = validFrom;
+            this.served = new Bitfield((data.capacity() + PieceStorage.BLOCK_SIZE - 1) / PieceStorage.BLOCK_SIZE);
+        }
+
+        // Records the request; returns whether its first block was requested before.
+        private boolean markServed(int begin, int length) {
+            int first = begin / PieceStorage.BLOCK_SIZE;
+            int last = Math.min(served.size() - 1, (begin + Math.max(1, length) - 1) / PieceStorage.BLOCK_SIZE);
+            boolean repeated = first < served.size() && served.get(first);
+
+            if (first <= last) {
+                served.set(first, last + 1);
+            }
+
+            return repeated;
+        }
+
+        private int size() {
+            return data.capacity();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package core.storage;
+
+import core.bencode.BencodeByteArray;
+import core.bencode.BencodeDictionary;
+import core.bencode.BencodeElement;
+import core.bencode.BencodeList;
+import core.bencode.BencodeNumber;
+import core.piece.Bitfield;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ResumeData {
+
+    // Recorded for files that did not exist when the state was captured.
+    public static final long MISSING = -1;
+
+    private final byte[] infoHash;
+    private final int pieceCount;
+    private final Bitfield completedPieces;
+    private final long[] fileSizes;
+    private final long[] fileModifiedTimes;
+    private final long uploaded;
+    private final long downloaded;
+
+    public ResumeData(byte[] infoHash, int pieceCount, Bitfield completedPieces, long[] fileSizes, long[] fileModifiedTimes, long uploaded, long downloaded) {
+        if (fileSizes.length != fileModifiedTimes.length) {
+            throw new IllegalArgumentException("File sizes and modification times must have the same length");
+        }
+
+        if (completedPieces.size() != pieceCount) {
+            throw new IllegalArgumentException("Completed pieces must cover " + pieceCount + " pieces");
+        }
+
+        this.infoHash = infoHash.clone();
+        this.pieceCount = pieceCount;
+        this.completedPieces = completedPieces.copy();
+        this.fileSizes = fileSizes.clone();
+        this.fileModifiedTimes = fileModifiedTimes.clone();
+        this.uploaded = uploaded;
+        this.downloaded = downloaded;
+    }
+
+    public static ResumeData capture(PieceStorage storage, Bitfield completedPieces, long uploaded, long downloaded) throws IOException {
+        int fileCount = storage.getFileCount();
+        long[] sizes = new long[fileCount];
+        long[] modifiedTimes = new long[fileCount];
+
+        for (int i = 0; i < fileCount; i++) {
+            long[] attributes = readFileAttributes(storage.getFilePath(i));
+            sizes[i] = attributes[0];
+            modifiedTimes[i] = attributes[1];
+        }
+
+        return new ResumeData(storage.getMetainfo().getInfoHash(), storage.getMetainfo().getPieceCount(),
+                completedPieces, sizes, modifiedTimes, uploaded, downloaded);
+    }
+
+    // Returns {size, modified time in millis}, or MISSING for both when the file does not exist.
+    static long[] readFileAttributes(Path path) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new long[]{ attributes.size(), attributes.lastModifiedTime().toMillis() };
+        } catch (NoSuchFileException e) {
+            return new long[]{ MISSING, MISSING };
+        }
+    }
+
+    public BencodeDictionary toBencode() {
+        List<BencodeElement<?>> files = new ArrayList<>(fileSizes.length);
+
+        for (int i = 0; i < fileSizes.length; i++) {
+            Map<String, BencodeElement<?>> file = new LinkedHashMap<>();
+            file.put("length", new BencodeNumber(fileSizes[i]));
+            file.put("mtime", new BencodeNumber(fileModifiedTimes[i]));
+            files.add(new BencodeDictionary(file));
+        }
+
+        Map<String, BencodeElement<?>> map = new LinkedHashMap<>();
+        map.put("downloaded", new BencodeNumber(downloaded));
+        map.put("files", new BencodeList(files));
+        map.put("info-hash", new BencodeByteArray(infoHash));
+        map.put("piece-count", new BencodeNumber((long) pieceCount));
+        map.put("pieces", new BencodeByteArray(completedPieces.toWire()));
+        map.put("uploaded", new BencodeNumber(uploaded));
+
+        return new BencodeDictionary(map);
+    }
+
+    public static ResumeData fromBencode(BencodeElement<?> element) throws IOException {
+        return fromBencode(element, -1);
+    }
+
+    // Rejects state saved for a torrent with a different number of pieces; a negative count accepts any.
+    public static ResumeData fromBencode(BencodeElement<?> element, int expectedPieceCount) throws IOException {
+        if (!(element instanceof BencodeDictionary)) {
+            throw new IOException("Invalid resume data.");
+        }
+
+        Map<String, BencodeElement<?>> map = ((BencodeDictionary) element).getValue();
+
+        if (!(map.get("info-hash") instanceof BencodeByteArray infoHash)
+                || !(map.get("piece-count") instanceof BencodeNumber pieceCount)
+                || !(map.get("pieces") instanceof BencodeByteArray pieces)
+                || !(map.get("files") instanceof BencodeList files)
+                || !(map.get("uploaded") instanceof BencodeNumber uploaded)
+                || !(map.get("downloaded") instanceof BencodeNumber downloaded)) {
+            throw new IOException("Missing required fields in resume data.");
+        }
+
+        if (pieceCount.getValue() < 0 || pieceCount.getValue() > Integer.MAX_VALUE) {
+            throw new IOException("Invalid 'piece-count' in resume data: " + pieceCount.getValue());
+        }
+
+        int count = pieceCount.getValue().intValue();
+
+        if (expectedPieceCount >= 0 && count != expectedPieceCount) {
+            throw new IOException("Resume data has " + count + " pieces but the torrent has " + expectedPieceCount + ".");
+        }
+
+        if (pieces.length() != Bitfield.wireLength(count)) {
+            throw new IOException("Invalid 'pieces' bitfield size in resume data.");
+        }
+
+        Bitfield completed = Bitfield.fromWire(pieces.getValue(), count);
+
+        List<BencodeElement<?>> fileEntries = files.getValue();
+        long[] sizes = new long[fileEntries.size()];
+        long[] modifiedTimes = new long[fileEntries.size()];
+
+        for (int i = 0; i < sizes.length; i++) {
+            if (!(fileEntries.get(i) instanceof BencodeDictionary file)
+                    || !(file.getValue().get("length") instanceof BencodeNumber length)
+                    || !(file.getValue().get("mtime") instanceof BencodeNumber modifiedTime)) {
+                throw new IOException("Invalid file entry in resume data.");
+            }
+
+            sizes[i] = length.getValue();
+            modifiedTimes[i] = modifiedTime.getValue();
+        }
+
+        return new ResumeData(infoHash.getValue(), count, completed, sizes, modifiedTimes,
+                uploaded.getValue(), downloaded.getValue());
+    }
+
+    public byte[] getInfoHash() {
+        return infoHash.clone();
+    }
+
+    public int getPieceCount() {
+        return pieceCount;
+    }
+
+    public Bitfield getCompletedPieces() {
+        return completedPieces.copy();
+    }
+
+    public int getFileCount() {
+        return fileSizes.length;
+    }
+
+    public long getFileSize(int fileIndex) {
+        return fileSizes[fileIndex];
+    }
+
+    public long getFileModifiedTime(int fileIndex) {
+        return fileModifiedTimes[fileIndex];
+    }
+
+    public long getUploaded() {
+        return uploaded;
+    }
+
+    public long getDownloaded() {
+        return downloaded;
+    }
+}
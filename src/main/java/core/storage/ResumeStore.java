@@ -0,0 +1,81 @@
+package core.storage;
+
+import core.bencode.BencodeDecoder;
+import core.bencode.BencodeEncoder;
+import core.metainfo.TorrentMetainfo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+
+// Persists one bencoded resume file per infohash. Files are written to a temporary file, synced and
+// renamed over the previous state so a crash never leaves a truncated resume file behind.
+public class ResumeStore {
+
+    private static final String EXTENSION = ".resume";
+
+    private final Path directory;
+
+    public ResumeStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public void save(ResumeData data) throws IOException {
+        Files.createDirectories(directory);
+
+        Path target = pathFor(data.getInfoHash());
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                BencodeEncoder.encode(data.toBencode(), channel);
+                channel.force(true);
+            }
+
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // Returns null when no resume state exists for the infohash.
+    public ResumeData load(byte[] infoHash) throws IOException {
+        return load(infoHash, -1);
+    }
+
+    // Loads the state saved for the torrent and rejects it if it covers a different number of pieces.
+    public ResumeData load(TorrentMetainfo metainfo) throws IOException {
+        return load(metainfo.getInfoHash(), metainfo.getPieceCount());
+    }
+
+    private ResumeData load(byte[] infoHash, int pieceCount) throws IOException {
+        byte[] content;
+
+        try {
+            content = Files.readAllBytes(pathFor(infoHash));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        return ResumeData.fromBencode(BencodeDecoder.decode(ByteBuffer.wrap(content)), pieceCount);
+    }
+
+    public void delete(byte[] infoHash) throws IOException {
+        Files.deleteIfExists(pathFor(infoHash));
+    }
+
+    private Path pathFor(byte[] infoHash) {
+        return directory.resolve(HexFormat.of().formatHex(infoHash) + EXTENSION);
+    }
+}
@@ -0,0 +1,57 @@
+package core.storage;
+
+import core.metainfo.FileLayout;
+import core.metainfo.TorrentMetainfo;
+import core.piece.Bitfield;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Turns saved resume state back into a completed-piece set. Pieces touching a file whose size or
+// modification time changed since the state was saved are rehashed; everything else is trusted.
+public class ResumeValidator {
+
+    private final PieceStorage storage;
+    private final PieceVerifier verifier;
+
+    public ResumeValidator(PieceStorage storage, PieceVerifier verifier) {
+        this.storage = storage;
+        this.verifier = verifier;
+    }
+
+    public Bitfield restore(ResumeData data, PieceVerifier.ProgressListener listener) throws IOException {
+        TorrentMetainfo metainfo = storage.getMetainfo();
+
+        if (data == null || !matchesTorrent(data, metainfo)) {
+            return verifier.verifyAll(listener);
+        }
+
+        Bitfield completed = data.getCompletedPieces();
+        Bitfield candidates = new Bitfield(metainfo.getPieceCount());
+        FileLayout layout = metainfo.getLayout();
+
+        for (int i = 0; i < storage.getFileCount(); i++) {
+            long[] attributes = ResumeData.readFileAttributes(storage.getFilePath(i));
+            boolean unchanged = attributes[0] == data.getFileSize(i) && attributes[1] == data.getFileModifiedTime(i);
+
+            if (unchanged || layout.getFileLength(i) == 0) {
+                continue;
+            }
+
+            int firstPiece = (int) (layout.getFileOffset(i) / metainfo.getPieceLength());
+            int lastPiece = (int) ((layout.getFileOffset(i) + layout.getFileLength(i) - 1) / metainfo.getPieceLength());
+            candidates.set(firstPiece, lastPiece + 1);
+        }
+
+        completed.andNot(candidates);
+        completed.or(verifier.verify(candidates, listener));
+
+        return completed;
+    }
+
+    private boolean matchesTorrent(ResumeData data, TorrentMetainfo metainfo) {
+        return Arrays.equals(data.getInfoHash(), metainfo.getInfoHash())
+                && data.getPieceCount() == metainfo.getPieceCount()
+                && data.getFileCount() == storage.getFileCount();
+    }
+}
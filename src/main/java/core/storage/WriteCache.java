@@ -0,0 +1,369 @@
+package core.storage;
+
+import core.metainfo.TorrentMetainfo;
+import core.piece.Bitfield;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Write-back cache that assembles downloaded blocks into whole pieces. Blocks are copied into a pooled
+// direct buffer per piece and hashed as soon as they extend the contiguous prefix, so a complete piece is
+// verified without reading it back and reaches disk in a single write.
+//
+// Memory is capped at maxBytes worth of piece buffers. When a new piece needs a buffer and the cap is
+// reached, the least recently written piece spills its blocks to disk (contiguous runs coalesced) and keeps
+// only its bookkeeping; the part of it that could not be hashed in memory is read back on completion.
+//
+// Each piece has its own lock, held while its blocks are copied, hashed, spilled or read back, so peers
+// writing different pieces proceed in parallel. The cache-wide lock only guards the piece table and the
+// buffer pool and is never held across hashing or I/O. Both are ReentrantLocks, so a virtual thread
+// waiting on disk does not pin its carrier. Piece locks may be taken before the cache lock but never after
+// it; under the cache lock an eviction only tries the lock of a victim and moves on to the next piece if
+// the victim is in use.
+public class WriteCache {
+
+    public enum Result {
+        // The block was stored; the piece is still missing blocks.
+        BUFFERED,
+        // The piece is complete, matched its hash and is on disk.
+        VERIFIED,
+        // The piece is complete but did not match its hash; it must be downloaded again.
+        FAILED
+    }
+
+    private static final int BLOCK_SIZE = PieceStorage.BLOCK_SIZE;
+
+    private final PieceStorage storage;
+    private final TorrentMetainfo metainfo;
+    private final int pieceLength;
+    private final int maxBuffers;
+    // Guards entries, buffered, freeBuffers and allocatedBuffers. An entry is in 'buffered' exactly when it
+    // holds a buffer, which only changes under the entry's own lock.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final LinkedHashMap<Integer, Entry> buffered = new LinkedHashMap<>(16, 0.75f, true);
+    private final ArrayDeque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+    private int allocatedBuffers;
+
+    public WriteCache(PieceStorage storage, long maxBytes) {
+        this.storage = storage;
+        this.metainfo = storage.getMetainfo();
+        this.pieceLength = (int) metainfo.getPieceLength();
+        this.maxBuffers = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / pieceLength));
+    }
+
+    public Result writeBlock(int pieceIndex, int begin, ByteBuffer block) throws IOException {
+        int pieceSize = metainfo.getPieceSize(pieceIndex);
+        int blockIndex = begin / BLOCK_SIZE;
+
+        if (begin % BLOCK_SIZE != 0 || begin >= pieceSize || block.remaining() != Math.min(BLOCK_SIZE, pieceSize - begin)) {
+            throw new IllegalArgumentException("Misaligned block [" + begin + ", +" + block.remaining() + ") for piece " + pieceIndex);
+        }
+
+        while (true) {
+            Entry entry;
+            lock.lock();
+
+            try {
+                entry = entries.computeIfAbsent(pieceIndex, index -> new Entry(index, pieceSize));
+            } finally {
+                lock.unlock();
+            }
+
+            entry.lock.lock();
+
+            try {
+                // Completed or discarded while we waited; the block starts a new download of the piece.
+                if (entry.closed) {
+                    continue;
+                }
+
+                if (entry.received.get(blockIndex)) {
+                    return Result.BUFFERED;
+                }
+
+                if (entry.buffer == null) {
+                    entry.buffer = takeBuffer(entry);
+                }
+
+                touch(entry);
+                entry.buffer.put(begin, block, block.position(), block.remaining());
+                block.position(block.limit());
+                entry.received.set(blockIndex);
+                entry.inBuffer.set(blockIndex);
+                entry.hashContiguous();
+
+                if (!entry.received.isFull()) {
+                    return Result.BUFFERED;
+                }
+
+                return complete(entry);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    // Writes every buffered block to disk, e.g. before shutdown. Partial pieces keep their bookkeeping.
+    public void flush() throws IOException {
+        List<Entry> pending;
+        lock.lock();
+
+        try {
+            pending = new ArrayList<>(buffered.values());
+        } finally {
+            lock.unlock();
+        }
+
+        for (Entry entry : pending) {
+            entry.lock.lock();
+
+            try {
+                if (entry.buffer != null) {
+                    entry.spill();
+                    releaseBuffer(entry);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    // Forgets a piece, e.g. after its download was abandoned. Buffered blocks are dropped, not written.
+    public void discard(int pieceIndex) {
+        Entry entry;
+        lock.lock();
+
+        try {
+            entry = entries.remove(pieceIndex);
+        } finally {
+            lock.unlock();
+        }
+
+        if (entry == null) {
+            return;
+        }
+
+        entry.lock.lock();
+
+        try {
+            entry.closed = true;
+
+            if (entry.buffer != null) {
+                releaseBuffer(entry);
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    public int getPieceCount() {
+        lock.lock();
+
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getBufferedPieceCount() {
+        lock.lock();
+
+        try {
+            return buffered.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Off-heap bytes held by the cache, including idle pooled buffers.
+    public long getAllocatedBytes() {
+        lock.lock();
+
+        try {
+            return (long) allocatedBuffers * pieceLength;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaxBytes() {
+        return (long) maxBuffers * pieceLength;
+    }
+
+    // Called with the entry's lock held; hashes the rest of the piece and writes it without the cache lock.
+    private Result complete(Entry entry) throws IOException {
+        lock.lock();
+
+        try {
+            entries.remove(entry.pieceIndex, entry);
+        } finally {
+            lock.unlock();
+        }
+
+        entry.closed = true;
+
+        try {
+            if (entry.hashedUpTo < entry.pieceSize) {
+                // Some blocks were spilled before they could be hashed; read the unhashed tail back from disk.
+                entry.spill();
+                ByteBuffer tail = entry.buffer.clear().position(entry.hashedUpTo).limit(entry.pieceSize).slice();
+                storage.read(metainfo.getPieceOffset(entry.pieceIndex) + entry.hashedUpTo, tail);
+                entry.digest.update(tail.flip());
+                entry.hashedUpTo = entry.pieceSize;
+            }
+
+            if (!metainfo.matches(entry.pieceIndex, entry.digest.digest())) {
+                return Result.FAILED;
+            }
+
+            entry.spill();
+            return Result.VERIFIED;
+        } finally {
+            releaseBuffer(entry);
+        }
+    }
+
+    private void touch(Entry entry) {
+        lock.lock();
+
+        try {
+            buffered.put(entry.pieceIndex, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the owner's lock held. Takes a free or new buffer, or else spills the least recently written
+    // piece that nobody is writing to; pieces in use hold their lock only briefly, so it retries until one is idle.
+    private ByteBuffer takeBuffer(Entry owner) throws IOException {
+        while (true) {
+            Entry victim = null;
+            lock.lock();
+
+            try {
+                ByteBuffer buffer = freeBuffers.poll();
+
+                if (buffer != null) {
+                    return buffer.clear();
+                }
+
+                if (allocatedBuffers < maxBuffers) {
+                    allocatedBuffers++;
+                    return ByteBuffer.allocateDirect(pieceLength);
+                }
+
+                Iterator<Entry> eldest = buffered.values().iterator();
+
+                while (victim == null && eldest.hasNext()) {
+                    Entry candidate = eldest.next();
+
+                    if (candidate != owner && candidate.lock.tryLock()) {
+                        eldest.remove();
+                        victim = candidate;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (victim == null) {
+                Thread.yield();
+                continue;
+            }
+
+            try {
+                victim.spill();
+                ByteBuffer reclaimed = victim.buffer;
+                victim.buffer = null;
+                return reclaimed.clear();
+            } catch (IOException e) {
+                // The victim keeps its buffer, so it goes back to the buffered pieces.
+                touch(victim);
+                throw e;
+            } finally {
+                victim.lock.unlock();
+            }
+        }
+    }
+
+    private void releaseBuffer(Entry entry) {
+        lock.lock();
+
+        try {
+            buffered.remove(entry.pieceIndex, entry);
+            freeBuffers.push(entry.buffer);
+            entry.buffer = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static MessageDigest newSha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-1 algorithm not found", e);
+        }
+    }
+
+    private class Entry {
+
+        private final int pieceIndex;
+        private final int pieceSize;
+        private final Bitfield received;
+        // Blocks held in the current buffer; the rest of 'received' is already on disk.
+        private final Bitfield inBuffer;
+        private final MessageDigest digest = newSha1();
+        private final ReentrantLock lock = new ReentrantLock();
+        private int hashedUpTo;
+        private ByteBuffer buffer;
+        // Set once the piece completed or was discarded; a later block starts over with a new entry.
+        private boolean closed;
+
+        private Entry(int pieceIndex, int pieceSize) {
+            this.pieceIndex = pieceIndex;
+            this.pieceSize = pieceSize;
+            int blocks = (pieceSize + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            this.received = new Bitfield(blocks);
+            this.inBuffer = new Bitfield(blocks);
+        }
+
+        private void hashContiguous() {
+            int block = hashedUpTo / BLOCK_SIZE;
+
+            while (hashedUpTo < pieceSize && inBuffer.get(block)) {
+                int length = Math.min(BLOCK_SIZE, pieceSize - hashedUpTo);
+                digest.update(buffer.slice(hashedUpTo, length));
+                hashedUpTo += length;
+                block++;
+            }
+        }
+
+        // Writes each run of buffered blocks with one positional write.
+        private void spill() throws IOException {
+            long pieceOffset = metainfo.getPieceOffset(pieceIndex);
+
+            for (int first = inBuffer.nextSetBit(0); first >= 0; first = inBuffer.nextSetBit(first)) {
+                int end = inBuffer.nextClearBit(first);
+                int from = first * BLOCK_SIZE;
+                int to = Math.min(pieceSize, end * BLOCK_SIZE);
+                storage.write(pieceOffset + from, buffer.slice(from, to - from));
+                first = end;
+            }
+
+            inBuffer.clearAll();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package core.tracker;
+
+// Announce events with their BEP 15 action codes and BEP 3 query values.
+public enum AnnounceEvent {
+
+    NONE(0, null),
+    COMPLETED(1, "completed"),
+    STARTED(2, "started"),
+    STOPPED(3, "stopped");
+
+    private final int id;
+    private final String queryValue;
+
+    AnnounceEvent(int id, String queryValue) {
+        this.id = id;
+        this.queryValue = queryValue;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    // Null for NONE, which is sent by omitting the 'event' parameter.
+    public String getQueryValue() {
+        return queryValue;
+    }
+}
@@ -0,0 +1,86 @@
+package core.tracker;
+
+import core.metainfo.TorrentMetainfo;
+
+// Immutable announce parameters shared by the HTTP and UDP tracker clients.
+public class AnnounceRequest {
+
+    public static final int DEFAULT_NUM_WANT = -1;
+
+    private final byte[] infoHash;
+    private final byte[] peerId;
+    private final int port;
+    private final long uploaded;
+    private final long downloaded;
+    private final long left;
+    private final AnnounceEvent event;
+    private final int numWant;
+    private final int key;
+
+    public AnnounceRequest(byte[] infoHash, byte[] peerId, int port, long uploaded, long downloaded, long left,
+                           AnnounceEvent event, int numWant, int key) {
+        this.infoHash = infoHash;
+        this.peerId = peerId;
+        this.port = port;
+        this.uploaded = uploaded;
+        this.downloaded = downloaded;
+        this.left = left;
+        this.event = event;
+        this.numWant = numWant;
+        this.key = key;
+    }
+
+    // A first announce for a torrent with nothing transferred yet.
+    public static AnnounceRequest forTorrent(TorrentMetainfo metainfo, byte[] peerId, int port, int key) {
+        return new AnnounceRequest(metainfo.getInfoHash(), peerId, port, 0, 0, metainfo.getLength(),
+                AnnounceEvent.NONE, DEFAULT_NUM_WANT, key);
+    }
+
+    public AnnounceRequest withTransfer(long uploaded, long downloaded, long left) {
+        return new AnnounceRequest(infoHash, peerId, port, uploaded, downloaded, left, event, numWant, key);
+    }
+
+    public AnnounceRequest withEvent(AnnounceEvent event) {
+        return new AnnounceRequest(infoHash, peerId, port, uploaded, downloaded, left, event, numWant, key);
+    }
+
+    public AnnounceRequest withNumWant(int numWant) {
+        return new AnnounceRequest(infoHash, peerId, port, uploaded, downloaded, left, event, numWant, key);
+    }
+
+    public byte[] getInfoHash() {
+        return infoHash;
+    }
+
+    public byte[] getPeerId() {
+        return peerId;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public long getUploaded() {
+        return uploaded;
+    }
+
+    public long getDownloaded() {
+        return downloaded;
+    }
+
+    public long getLeft() {
+        return left;
+    }
+
+    public AnnounceEvent getEvent() {
+        return event;
+    }
+
+    public int getNumWant() {
+        return numWant;
+    }
+
+    public int getKey() {
+        return key;
+    }
+}
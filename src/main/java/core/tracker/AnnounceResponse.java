@@ -0,0 +1,240 @@
+package core.tracker;
+
+import core.bencode.BencodeHandler;
+import core.bencode.BencodeStreamParser;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class AnnounceResponse {
+
+    public static final int ABSENT = -1;
+
+    private final String failureReason;
+    private final String warningMessage;
+    private final String trackerId;
+    private final int interval;
+    private final int minInterval;
+    private final int complete;
+    private final int incomplete;
+    private final PeerBuffer peers;
+
+    public AnnounceResponse(String failureReason, String warningMessage, String trackerId, int interval, int minInterval,
+                            int complete, int incomplete, PeerBuffer peers) {
+        this.failureReason = failureReason;
+        this.warningMessage = warningMessage;
+        this.trackerId = trackerId;
+        this.interval = interval;
+        this.minInterval = minInterval;
+        this.complete = complete;
+        this.incomplete = incomplete;
+        this.peers = peers;
+    }
+
+    public static AnnounceResponse parse(byte[] body) throws IOException {
+        return parse(ByteBuffer.wrap(body), new PeerBuffer());
+    }
+
+    // Streams the response without building a bencode tree; compact peers are decoded straight into the
+    // given buffer, which is cleared first and can be reused across announces.
+    public static AnnounceResponse parse(ByteBuffer body, PeerBuffer peers) throws IOException {
+        peers.clear();
+
+        ResponseHandler handler = new ResponseHandler(peers);
+        BencodeStreamParser.parse(body, handler);
+
+        if (handler.failureReason == null && handler.interval == ABSENT) {
+            throw new IOException("Missing 'interval' in tracker response.");
+        }
+
+        return new AnnounceResponse(handler.failureReason, handler.warningMessage, handler.trackerId, handler.interval,
+                handler.minInterval, handler.complete, handler.incomplete, peers);
+    }
+
+    public boolean isFailure() {
+        return failureReason != null;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public String getWarningMessage() {
+        return warningMessage;
+    }
+
+    public String getTrackerId() {
+        return trackerId;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getMinInterval() {
+        return minInterval;
+    }
+
+    public int getComplete() {
+        return complete;
+    }
+
+    public int getIncomplete() {
+        return incomplete;
+    }
+
+    public PeerBuffer getPeers() {
+        return peers;
+    }
+
+    private static class ResponseHandler implements BencodeHandler {
+
+        private final PeerBuffer peers;
+
+        private int depth;
+        private String rootKey;
+        private boolean inPeerList;
+        private String peerKey;
+        private String peerIp;
+        private int peerPort = ABSENT;
+
+        private String failureReason;
+        private String warningMessage;
+        private String trackerId;
+        private int interval = ABSENT;
+        private int minInterval = ABSENT;
+        private int complete = ABSENT;
+        private int incomplete = ABSENT;
+
+        private ResponseHandler(PeerBuffer peers) {
+            this.peers = peers;
+        }
+
+        @Override
+        public void startDictionary() {
+            if (inPeerList && depth == 2) {
+                peerIp = null;
+                peerPort = ABSENT;
+            }
+
+            depth++;
+        }
+
+        @Override
+        public void startList() throws IOException {
+            // Only a dictionary root gives values a key; a list root would reach depth 1 without one.
+            if (depth == 0) {
+                throw new IOException("Tracker response is not a dictionary.");
+            }
+
+            if (depth == 1 && "peers".equals(rootKey)) {
+                inPeerList = true;
+            }
+            depth++;
+        }
+
+        @Override
+        public void key(ByteBuffer key) {
+            if (depth == 1) {
+                rootKey = StandardCharsets.UTF_8.decode(key).toString();
+            } else if (inPeerList && depth == 3) {
+                peerKey = StandardCharsets.UTF_8.decode(key).toString();
+            }
+        }
+
+        @Override
+        public void integer(long value) {
+            if (depth == 1) {
+                int clamped = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+
+                switch (rootKey) {
+                    case "interval" -> interval = clamped;
+                    case "min interval" -> minInterval = clamped;
+                    case "complete" -> complete = clamped;
+                    case "incomplete" -> incomplete = clamped;
+                    default -> { }
+                }
+            } else if (inPeerList && depth == 3 && "port".equals(peerKey)) {
+                peerPort = (int) value;
+            }
+        }
+
+        @Override
+        public void bytes(ByteBuffer value) throws IOException {
+            if (depth == 1) {
+                switch (rootKey) {
+                    case "failure reason" -> failureReason = StandardCharsets.UTF_8.decode(value).toString();
+                    case "warning message" -> warningMessage = StandardCharsets.UTF_8.decode(value).toString();
+                    case "tracker id" -> trackerId = StandardCharsets.UTF_8.decode(value).toString();
+                    case "peers" -> peers.addCompactIpv4(value);
+                    case "peers6" -> peers.addCompactIpv6(value);
+                    default -> { }
+                }
+            } else if (inPeerList && depth == 3 && "ip".equals(peerKey)) {
+                peerIp = StandardCharsets.US_ASCII.decode(value).toString();
+            }
+        }
+
+        @Override
+        public void end() {
+            depth--;
+
+            if (inPeerList && depth == 2) {
+                addDictionaryPeer();
+            } else if (inPeerList && depth == 1) {
+                inPeerList = false;
+            }
+        }
+
+        // Non-compact peers are only accepted with literal addresses; host names would require DNS lookups.
+        private void addDictionaryPeer() {
+            if (peerIp == null || peerPort < 0 || peerPort > 0xFFFF) {
+                return;
+            }
+
+            long ipv4 = parseIpv4(peerIp);
+
+            if (ipv4 >= 0) {
+                peers.addIpv4((int) ipv4, peerPort);
+            } else if (peerIp.indexOf(':') >= 0) {
+                try {
+                    byte[] address = InetAddress.getByName(peerIp).getAddress();
+                    if (address.length == 16) {
+                        peers.addIpv6(address, peerPort);
+                    }
+                } catch (IOException ignored) {
+                    // Malformed IPv6 literal: skip the peer.
+                }
+            }
+        }
+
+        // Returns the unsigned address, or -1 if the string is not a dotted IPv4 literal.
+        private static long parseIpv4(String ip) {
+            String[] parts = ip.split("\\.", -1);
+
+            if (parts.length != 4) {
+                return -1;
+            }
+
+            long address = 0;
+
+            for (String part : parts) {
+                if (part.isEmpty() || part.length() > 3 || !part.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                    return -1;
+                }
+
+                int octet = Integer.parseInt(part);
+
+                if (octet > 255) {
+                    return -1;
+                }
+
+                address = (address << 8) | octet;
+            }
+
+            return address;
+        }
+    }
+}
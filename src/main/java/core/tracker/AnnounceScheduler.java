@@ -0,0 +1,255 @@
+package core.tracker;
+
+import core.metainfo.TorrentMetainfo;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Re-announces every registered torrent when its tracker interval elapses. Next-announce times live in
+// one hashed timing wheel driven by a single periodic tick, instead of a scheduled task per torrent.
+// Intervals get up to 10% of random jitter so torrents added together do not hit a tracker in lockstep,
+// and failed announces are retried with exponential backoff.
+public class AnnounceScheduler {
+
+    public static final Duration DEFAULT_TICK = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(30);
+    public static final Duration MIN_INTERVAL = Duration.ofSeconds(30);
+    public static final Duration INITIAL_BACKOFF = Duration.ofSeconds(15);
+    public static final Duration MAX_BACKOFF = Duration.ofMinutes(30);
+
+    private static final int WHEEL_BUCKETS = 512;
+    private static final double JITTER_FRACTION = 0.1;
+
+    // Current totals for a torrent, read each time an announce is sent.
+    public interface TransferStats {
+
+        long uploaded();
+
+        long downloaded();
+
+        long left();
+    }
+
+    private final MultiTrackerAnnouncer announcer;
+    private final Clock clock;
+    private final Random random;
+    private final int trackerKey = PeerIdGenerator.generateKey();
+    private final TimingWheel<ScheduledTorrent> wheel;
+    private final Map<String, ScheduledTorrent> torrents = new HashMap<>();
+    private ScheduledFuture<?> ticker;
+
+    public AnnounceScheduler(MultiTrackerAnnouncer announcer) {
+        this(announcer, Clock.systemUTC(), new Random());
+    }
+
+    public AnnounceScheduler(MultiTrackerAnnouncer announcer, Clock clock, Random random) {
+        this.announcer = announcer;
+        this.clock = clock;
+        this.random = random;
+        this.wheel = new TimingWheel<>(DEFAULT_TICK.toMillis(), WHEEL_BUCKETS, clock.millis());
+    }
+
+    // Drives the wheel from the given executor; tick() can also be called directly.
+    public synchronized void start(ScheduledExecutorService executor) {
+        if (ticker == null) {
+            long tick = DEFAULT_TICK.toMillis();
+            ticker = executor.scheduleAtFixedRate(this::tick, tick, tick, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+    }
+
+    // Registers the torrent and announces it with 'started' on the next tick.
+    public synchronized void add(TorrentMetainfo metainfo, byte[] peerId, int port, TransferStats stats, Consumer<AnnounceResponse> listener) {
+        String key = keyOf(metainfo.getInfoHash());
+
+        if (torrents.containsKey(key)) {
+            return;
+        }
+
+        ScheduledTorrent torrent = new ScheduledTorrent(AnnounceRequest.forTorrent(metainfo, peerId, port, trackerKey),
+                new TrackerTiers(metainfo.getAnnounceList(), random), stats, listener);
+        torrents.put(key, torrent);
+        reschedule(torrent, 0);
+    }
+
+    // Sends 'completed' on the next tick, or right after an announce that is already in flight.
+    public synchronized void completed(byte[] infoHash) {
+        ScheduledTorrent torrent = torrents.get(keyOf(infoHash));
+
+        if (torrent != null) {
+            torrent.pendingEvent = AnnounceEvent.COMPLETED;
+
+            if (!torrent.inFlight) {
+                reschedule(torrent, 0);
+            }
+        }
+    }
+
+    // Unregisters the torrent; trackers that saw it start are told it stopped.
+    public CompletableFuture<AnnounceResponse> remove(byte[] infoHash) {
+        ScheduledTorrent torrent;
+
+        synchronized (this) {
+            torrent = torrents.remove(keyOf(infoHash));
+
+            if (torrent == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            cancel(torrent);
+            torrent.removed = true;
+        }
+
+        if (!torrent.started) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return announcer.announce(torrent.tiers, torrent.request(AnnounceEvent.STOPPED));
+    }
+
+    public synchronized int size() {
+        return torrents.size();
+    }
+
+    // Millis until the torrent's next announce, or -1 if none is scheduled (unknown or in flight).
+    public synchronized long millisUntilAnnounce(byte[] infoHash) {
+        ScheduledTorrent torrent = torrents.get(keyOf(infoHash));
+        return torrent == null || torrent.timer == null ? -1 : Math.max(0, torrent.nextAnnounceMillis - clock.millis());
+    }
+
+    public void tick() {
+        List<ScheduledTorrent> due = new ArrayList<>();
+
+        synchronized (this) {
+            wheel.advance(clock.millis(), torrent -> {
+                torrent.timer = null;
+                torrent.inFlight = true;
+                due.add(torrent);
+            });
+        }
+
+        for (ScheduledTorrent torrent : due) {
+            announce(torrent);
+        }
+    }
+
+    private void announce(ScheduledTorrent torrent) {
+        AnnounceEvent event;
+
+        synchronized (this) {
+            event = torrent.pendingEvent;
+        }
+
+        AnnounceRequest request = torrent.request(event);
+        CompletableFuture<AnnounceResponse> response;
+
+        try {
+            response = announcer.announce(torrent.tiers, request);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        response.whenComplete((result, failure) -> finished(torrent, event, result, failure));
+    }
+
+    private void finished(ScheduledTorrent torrent, AnnounceEvent sentEvent, AnnounceResponse response, Throwable failure) {
+        synchronized (this) {
+            torrent.inFlight = false;
+
+            if (torrent.removed) {
+                return;
+            }
+
+            if (failure != null) {
+                torrent.failures++;
+                long backoff = INITIAL_BACKOFF.toMillis() << Math.min(torrent.failures - 1, 20);
+                reschedule(torrent, withJitter(Math.min(backoff, MAX_BACKOFF.toMillis())));
+                return;
+            }
+
+            torrent.failures = 0;
+            torrent.started = true;
+
+            if (torrent.pendingEvent == sentEvent) {
+                torrent.pendingEvent = AnnounceEvent.NONE;
+                reschedule(torrent, withJitter(intervalMillis(response)));
+            } else {
+                // An event was raised while this announce was in flight.
+                reschedule(torrent, 0);
+            }
+        }
+
+        torrent.listener.accept(response);
+    }
+
+    private static long intervalMillis(AnnounceResponse response) {
+        long interval = response.getInterval() > 0 ? response.getInterval() * 1000L : DEFAULT_INTERVAL.toMillis();
+        long minInterval = response.getMinInterval() > 0 ? response.getMinInterval() * 1000L : 0;
+        return Math.max(Math.max(interval, minInterval), MIN_INTERVAL.toMillis());
+    }
+
+    private long withJitter(long delayMillis) {
+        return delayMillis + (long) (random.nextDouble() * JITTER_FRACTION * delayMillis);
+    }
+
+    private void reschedule(ScheduledTorrent torrent, long delayMillis) {
+        cancel(torrent);
+        torrent.nextAnnounceMillis = clock.millis() + delayMillis;
+        torrent.timer = wheel.schedule(torrent, torrent.nextAnnounceMillis);
+    }
+
+    private void cancel(ScheduledTorrent torrent) {
+        if (torrent.timer != null) {
+            wheel.cancel(torrent.timer);
+            torrent.timer = null;
+        }
+    }
+
+    private static String keyOf(byte[] infoHash) {
+        return HexFormat.of().formatHex(infoHash);
+    }
+
+    private static class ScheduledTorrent {
+
+        private final AnnounceRequest baseRequest;
+        private final TrackerTiers tiers;
+        private final TransferStats stats;
+        private final Consumer<AnnounceResponse> listener;
+
+        private TimingWheel.Timer<ScheduledTorrent> timer;
+        private long nextAnnounceMillis;
+        private AnnounceEvent pendingEvent = AnnounceEvent.STARTED;
+        private int failures;
+        private boolean inFlight;
+        private boolean started;
+        private boolean removed;
+
+        private ScheduledTorrent(AnnounceRequest baseRequest, TrackerTiers tiers, TransferStats stats, Consumer<AnnounceResponse> listener) {
+            this.baseRequest = baseRequest;
+            this.tiers = tiers;
+            this.stats = stats;
+            this.listener = listener;
+        }
+
+        private AnnounceRequest request(AnnounceEvent event) {
+            return baseRequest.withTransfer(stats.uploaded(), stats.downloaded(), stats.left()).withEvent(event);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package core.tracker;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface Announcer {
+
+    // Tracker-reported failures complete normally with a response whose isFailure() is true.
+    CompletableFuture<AnnounceResponse> announce(String trackerUrl, AnnounceRequest request);
+}
@@ -0,0 +1,99 @@
+package core.tracker;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Announces across BEP 12 tiers. All trackers of a tier are queried at once and the first successful
+// response wins, so a slow or dead tracker costs at most the tier deadline instead of its full timeout.
+// The next tier is tried only when every tracker of the current one failed or the deadline passed.
+public class MultiTrackerAnnouncer {
+
+    private final Announcer httpAnnouncer;
+    private final Announcer udpAnnouncer;
+    private final Duration tierDeadline;
+
+    public MultiTrackerAnnouncer(Announcer httpAnnouncer, Announcer udpAnnouncer, Duration tierDeadline) {
+        this.httpAnnouncer = httpAnnouncer;
+        this.udpAnnouncer = udpAnnouncer;
+        this.tierDeadline = tierDeadline;
+    }
+
+    public CompletableFuture<AnnounceResponse> announce(TrackerTiers tiers, AnnounceRequest request) {
+        CompletableFuture<AnnounceResponse> result = new CompletableFuture<>();
+        announceTier(tiers, tiers.snapshot(), 0, request, result, null);
+        return result;
+    }
+
+    private void announceTier(TrackerTiers tiers, List<List<String>> snapshot, int tierIndex, AnnounceRequest request,
+                              CompletableFuture<AnnounceResponse> result, Throwable lastFailure) {
+        if (tierIndex == snapshot.size()) {
+            result.completeExceptionally(new IOException("No tracker answered the announce", lastFailure));
+            return;
+        }
+
+        List<String> tier = snapshot.get(tierIndex);
+        AtomicBoolean settled = new AtomicBoolean();
+        AtomicInteger remaining = new AtomicInteger(tier.size());
+        Throwable[] failure = { lastFailure };
+
+        for (String trackerUrl : tier) {
+            announceOne(trackerUrl, request).whenComplete((response, error) -> {
+                if (error == null && !response.isFailure()) {
+                    if (settled.compareAndSet(false, true)) {
+                        tiers.promote(tierIndex, trackerUrl);
+                        result.complete(response);
+                    }
+                    return;
+                }
+
+                synchronized (failure) {
+                    failure[0] = error != null ? unwrap(error) : new IOException("Tracker failure: " + response.getFailureReason());
+                }
+
+                if (remaining.decrementAndGet() == 0 && settled.compareAndSet(false, true)) {
+                    announceTier(tiers, snapshot, tierIndex + 1, request, result, failure[0]);
+                }
+            });
+        }
+
+        CompletableFuture.delayedExecutor(tierDeadline.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+            if (settled.compareAndSet(false, true)) {
+                Throwable cause;
+
+                synchronized (failure) {
+                    cause = failure[0] != null ? failure[0] : new SocketTimeoutException("Tier " + tierIndex + " missed its deadline");
+                }
+
+                announceTier(tiers, snapshot, tierIndex + 1, request, result, cause);
+            }
+        });
+    }
+
+    private CompletableFuture<AnnounceResponse> announceOne(String trackerUrl, AnnounceRequest request) {
+        try {
+            String scheme = URI.create(trackerUrl).getScheme();
+
+            if ("udp".equalsIgnoreCase(scheme)) {
+                return udpAnnouncer.announce(trackerUrl, request);
+            } else if ("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme)) {
+                return httpAnnouncer.announce(trackerUrl, request);
+            }
+
+            return CompletableFuture.failedFuture(new IOException("Unsupported tracker URL: " + trackerUrl));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,151 @@
+package core.tracker;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Reusable, allocation-free peer list. IPv4 peers are packed into one long each as (address << 16) | port;
+// IPv6 peers stay in their 18-byte compact wire form. Call clear() to reuse the buffer for another response.
+public class PeerBuffer {
+
+    public static final int COMPACT_IPV4_LENGTH = 6;
+    public static final int COMPACT_IPV6_LENGTH = 18;
+
+    private long[] ipv4Peers;
+    private int ipv4Count;
+    private byte[] ipv6Peers;
+    private int ipv6Count;
+
+    public PeerBuffer() {
+        this(64);
+    }
+
+    public PeerBuffer(int initialCapacity) {
+        this.ipv4Peers = new long[Math.max(1, initialCapacity)];
+        this.ipv6Peers = new byte[COMPACT_IPV6_LENGTH * Math.max(1, initialCapacity / 4)];
+    }
+
+    public void clear() {
+        ipv4Count = 0;
+        ipv6Count = 0;
+    }
+
+    public int size() {
+        return ipv4Count + ipv6Count;
+    }
+
+    public int ipv4Count() {
+        return ipv4Count;
+    }
+
+    public int ipv6Count() {
+        return ipv6Count;
+    }
+
+    public long ipv4Packed(int index) {
+        return ipv4Peers[checkIndex(index, ipv4Count)];
+    }
+
+    public int ipv4Address(int index) {
+        return (int) (ipv4Packed(index) >>> 16);
+    }
+
+    public int ipv4Port(int index) {
+        return (int) (ipv4Packed(index) & 0xFFFF);
+    }
+
+    public void ipv6Address(int index, byte[] destination) {
+        System.arraycopy(ipv6Peers, checkIndex(index, ipv6Count) * COMPACT_IPV6_LENGTH, destination, 0, 16);
+    }
+
+    public int ipv6Port(int index) {
+        int offset = checkIndex(index, ipv6Count) * COMPACT_IPV6_LENGTH + 16;
+        return ((ipv6Peers[offset] & 0xFF) << 8) | (ipv6Peers[offset + 1] & 0xFF);
+    }
+
+    public void addIpv4(int address, int port) {
+        if (ipv4Count == ipv4Peers.length) {
+            ipv4Peers = Arrays.copyOf(ipv4Peers, ipv4Count * 2);
+        }
+        ipv4Peers[ipv4Count++] = ((address & 0xFFFFFFFFL) << 16) | (port & 0xFFFF);
+    }
+
+    public void addIpv6(byte[] address, int port) {
+        ensureIpv6Capacity(1);
+        int offset = ipv6Count * COMPACT_IPV6_LENGTH;
+        System.arraycopy(address, 0, ipv6Peers, offset, 16);
+        ipv6Peers[offset + 16] = (byte) (port >>> 8);
+        ipv6Peers[offset + 17] = (byte) port;
+        ipv6Count++;
+    }
+
+    // Appends every 6-byte entry of a compact 'peers' string.
+    public void addCompactIpv4(ByteBuffer compact) throws IOException {
+        if (compact.remaining() % COMPACT_IPV4_LENGTH != 0) {
+            throw new IOException("Invalid compact 'peers' length: " + compact.remaining());
+        }
+
+        int count = compact.remaining() / COMPACT_IPV4_LENGTH;
+
+        if (ipv4Count + count > ipv4Peers.length) {
+            ipv4Peers = Arrays.copyOf(ipv4Peers, Math.max(ipv4Count + count, ipv4Peers.length * 2));
+        }
+
+        int position = compact.position();
+
+        for (int i = 0; i < count; i++, position += COMPACT_IPV4_LENGTH) {
+            long address = compact.getInt(position) & 0xFFFFFFFFL;
+            int port = compact.getShort(position + 4) & 0xFFFF;
+            ipv4Peers[ipv4Count++] = (address << 16) | port;
+        }
+
+        compact.position(position);
+    }
+
+    // Appends every 18-byte entry of a compact 'peers6' string.
+    public void addCompactIpv6(ByteBuffer compact) throws IOException {
+        if (compact.remaining() % COMPACT_IPV6_LENGTH != 0) {
+            throw new IOException("Invalid compact 'peers6' length: " + compact.remaining());
+        }
+
+        int count = compact.remaining() / COMPACT_IPV6_LENGTH;
+        ensureIpv6Capacity(count);
+        compact.get(ipv6Peers, ipv6Count * COMPACT_IPV6_LENGTH, count * COMPACT_IPV6_LENGTH);
+        ipv6Count += count;
+    }
+
+    // Convenience for callers that need a socket address; indexes run over IPv4 peers first, then IPv6.
+    public InetSocketAddress toSocketAddress(int index) {
+        try {
+            if (index < ipv4Count) {
+                int address = ipv4Address(index);
+                byte[] bytes = { (byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address };
+                return new InetSocketAddress(InetAddress.getByAddress(bytes), ipv4Port(index));
+            }
+
+            byte[] bytes = new byte[16];
+            ipv6Address(index - ipv4Count, bytes);
+            return new InetSocketAddress(InetAddress.getByAddress(bytes), ipv6Port(index - ipv4Count));
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Invalid address length", e);
+        }
+    }
+
+    private void ensureIpv6Capacity(int additional) {
+        int required = (ipv6Count + additional) * COMPACT_IPV6_LENGTH;
+
+        if (required > ipv6Peers.length) {
+            ipv6Peers = Arrays.copyOf(ipv6Peers, Math.max(required, ipv6Peers.length * 2));
+        }
+    }
+
+    private static int checkIndex(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Peer index " + index + " out of range [0, " + count + ")");
+        }
+        return index;
+    }
+}
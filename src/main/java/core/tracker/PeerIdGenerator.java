@@ -21,4 +21,10 @@ public class PeerIdGenerator {
         return peerId;
     }
 
+    // The announce 'key' lets a tracker recognise this client across IP changes, so it is random per
+    // session rather than derived from the public peer id.
+    public static int generateKey() {
+        return new SecureRandom().nextInt();
+    }
+
 }
@@ -0,0 +1,91 @@
+package core.tracker;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Scrape results keyed by hex info hash. refresh() only asks the tracker about hashes whose entry is
+// missing or older than the TTL, so periodic refreshes of a large catalogue cost few requests.
+public class ScrapeCache {
+
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public ScrapeCache(Duration ttl) {
+        this(ttl, Clock.systemUTC());
+    }
+
+    public ScrapeCache(Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    // Returns null when there is no fresh entry.
+    public ScrapeResult get(byte[] infoHash) {
+        Entry entry = entries.get(HexFormat.of().formatHex(infoHash));
+        return entry != null && isFresh(entry, clock.millis()) ? entry.result : null;
+    }
+
+    public void put(ScrapeResult result) {
+        entries.put(result.getHexInfoHash(), new Entry(result, clock.millis()));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void evictExpired() {
+        long now = clock.millis();
+        entries.values().removeIf(entry -> !isFresh(entry, now));
+    }
+
+    // Completes with a result per hex info hash for every hash the tracker knows, fresh entries included.
+    public CompletableFuture<Map<String, ScrapeResult>> refresh(Scraper scraper, String announceUrl, List<byte[]> infoHashes) {
+        Map<String, ScrapeResult> results = new LinkedHashMap<>();
+        List<byte[]> stale = new ArrayList<>();
+
+        for (byte[] infoHash : infoHashes) {
+            ScrapeResult cached = get(infoHash);
+
+            if (cached != null) {
+                results.put(cached.getHexInfoHash(), cached);
+            } else {
+                stale.add(infoHash);
+            }
+        }
+
+        if (stale.isEmpty()) {
+            return CompletableFuture.completedFuture(results);
+        }
+
+        return scraper.scrape(announceUrl, stale).thenApply(scraped -> {
+            for (ScrapeResult result : scraped) {
+                put(result);
+                results.put(result.getHexInfoHash(), result);
+            }
+            return results;
+        });
+    }
+
+    private boolean isFresh(Entry entry, long now) {
+        return now - entry.storedAt < ttl.toMillis();
+    }
+
+    private static class Entry {
+
+        private final ScrapeResult result;
+        private final long storedAt;
+
+        private Entry(ScrapeResult result, long storedAt) {
+            this.result = result;
+            this.storedAt = storedAt;
+        }
+    }
+}
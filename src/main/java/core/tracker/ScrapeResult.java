@@ -0,0 +1,161 @@
+package core.tracker;
+
+import core.bencode.BencodeHandler;
+import core.bencode.BencodeStreamParser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Swarm statistics for one torrent as reported by a tracker scrape.
+public class ScrapeResult {
+
+    private final byte[] infoHash;
+    private final int complete;
+    private final int downloaded;
+    private final int incomplete;
+
+    public ScrapeResult(byte[] infoHash, int complete, int downloaded, int incomplete) {
+        this.infoHash = infoHash;
+        this.complete = complete;
+        this.downloaded = downloaded;
+        this.incomplete = incomplete;
+    }
+
+    // Parses an HTTP scrape body. The 'files' keys are raw 20-byte info hashes, which a String-keyed
+    // bencode tree cannot hold losslessly, so the body is streamed instead. Torrents the tracker does
+    // not know are simply absent from the result.
+    public static List<ScrapeResult> parse(byte[] body) throws IOException {
+        ScrapeHandler handler = new ScrapeHandler();
+        BencodeStreamParser.parse(body, handler);
+
+        if (handler.failureReason != null) {
+            throw new IOException("Tracker failure: " + handler.failureReason);
+        }
+
+        return handler.results;
+    }
+
+    static CompletableFuture<List<ScrapeResult>> concat(List<CompletableFuture<List<ScrapeResult>>> batches) {
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            List<ScrapeResult> results = new ArrayList<>();
+
+            for (CompletableFuture<List<ScrapeResult>> batch : batches) {
+                results.addAll(batch.join());
+            }
+
+            return results;
+        });
+    }
+
+    public byte[] getInfoHash() {
+        return infoHash;
+    }
+
+    public String getHexInfoHash() {
+        return HexFormat.of().formatHex(infoHash);
+    }
+
+    public int getComplete() {
+        return complete;
+    }
+
+    public int getDownloaded() {
+        return downloaded;
+    }
+
+    public int getIncomplete() {
+        return incomplete;
+    }
+
+    private static class ScrapeHandler implements BencodeHandler {
+
+        private final List<ScrapeResult> results = new ArrayList<>();
+
+        private int depth;
+        private String rootKey;
+        private byte[] infoHash;
+        private boolean inStats;
+        private String statKey;
+        private int complete;
+        private int downloaded;
+        private int incomplete;
+        private String failureReason;
+
+        @Override
+        public void startDictionary() {
+            depth++;
+
+            if (depth == 3 && "files".equals(rootKey) && infoHash != null) {
+                inStats = true;
+                complete = 0;
+                downloaded = 0;
+                incomplete = 0;
+            }
+        }
+
+        @Override
+        public void startList() {
+            depth++;
+        }
+
+        @Override
+        public void key(ByteBuffer key) {
+            if (depth == 1) {
+                rootKey = StandardCharsets.UTF_8.decode(key).toString();
+            } else if (depth == 2 && "files".equals(rootKey)) {
+                // Anything but a 20-byte infohash is skipped along with its statistics.
+                infoHash = key.remaining() == 20 ? new byte[20] : null;
+
+                if (infoHash != null) {
+                    key.get(infoHash);
+                }
+            } else if (depth == 3) {
+                statKey = StandardCharsets.UTF_8.decode(key).toString();
+            }
+        }
+
+        @Override
+        public void integer(long value) {
+            if (depth != 3 || !inStats) {
+                return;
+            }
+
+            int clamped = (int) Math.max(0, Math.min(Integer.MAX_VALUE, value));
+
+            switch (statKey) {
+                case "complete" -> complete = clamped;
+                case "downloaded" -> downloaded = clamped;
+                case "incomplete" -> incomplete = clamped;
+                default -> { }
+            }
+        }
+
+        @Override
+        public void bytes(ByteBuffer value) {
+            if (depth == 1 && "failure reason".equals(rootKey)) {
+                failureReason = StandardCharsets.UTF_8.decode(value).toString();
+            }
+        }
+
+        @Override
+        public void end() {
+            if (depth == 3 && inStats) {
+                results.add(new ScrapeResult(infoHash, complete, downloaded, incomplete));
+                inStats = false;
+            }
+
+            // A file entry, or the files dictionary itself, ended; later dictionaries such as BEP 48 'flags'
+            // must not be read as statistics for the last infohash.
+            if (depth <= 3) {
+                infoHash = null;
+            }
+
+            depth--;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package core.tracker;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface Scraper {
+
+    // Implementations split the hashes into as few requests as the protocol allows.
+    CompletableFuture<List<ScrapeResult>> scrape(String announceUrl, List<byte[]> infoHashes);
+}
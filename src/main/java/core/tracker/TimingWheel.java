@@ -0,0 +1,106 @@
+package core.tracker;
+
+import java.util.function.Consumer;
+
+// Hashed timing wheel: O(1) schedule and cancel, and advancing costs one bucket per elapsed tick no matter
+// how many timers are pending. Timers further out than one revolution stay in their bucket until the
+// wheel comes around to their deadline tick. Not thread-safe; callers synchronize.
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final Timer<T>[] buckets;
+    private long currentTick;
+
+    // Generic arrays cannot be created, so the bucket array is a raw Timer[] cast to Timer<T>[].
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, int bucketCount, long startMillis) {
+        if (tickMillis <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("Tick and bucket count must be positive");
+        }
+
+        this.tickMillis = tickMillis;
+        this.buckets = new Timer[bucketCount];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // Deadlines that already passed fire on the next advance().
+    public Timer<T> schedule(T item, long deadlineMillis) {
+        long tick = Math.max(currentTick + 1, Math.ceilDiv(deadlineMillis, tickMillis));
+        Timer<T> timer = new Timer<>(item, tick);
+        link(timer);
+        return timer;
+    }
+
+    public void cancel(Timer<T> timer) {
+        if (timer.bucket < 0) {
+            return;
+        }
+
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            buckets[timer.bucket] = timer.next;
+        }
+
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+
+        timer.previous = null;
+        timer.next = null;
+        timer.bucket = -1;
+    }
+
+    // Hands every timer due at or before nowMillis to the consumer, which may schedule new timers.
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        long lastTick = Math.min(targetTick, currentTick + buckets.length);
+
+        for (long tick = currentTick + 1; tick <= lastTick; tick++) {
+            Timer<T> timer = buckets[(int) Math.floorMod(tick, (long) buckets.length)];
+
+            while (timer != null) {
+                Timer<T> next = timer.next;
+
+                if (timer.deadlineTick <= targetTick) {
+                    cancel(timer);
+                    expired.accept(timer.item);
+                }
+
+                timer = next;
+            }
+        }
+
+        currentTick = Math.max(currentTick, targetTick);
+    }
+
+    private void link(Timer<T> timer) {
+        int bucket = (int) Math.floorMod(timer.deadlineTick, (long) buckets.length);
+        timer.bucket = bucket;
+        timer.next = buckets[bucket];
+
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+
+        buckets[bucket] = timer;
+    }
+
+    public static final class Timer<T> {
+
+        private final T item;
+        private final long deadlineTick;
+        private Timer<T> previous;
+        private Timer<T> next;
+        private int bucket = -1;
+
+        private Timer(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public boolean isPending() {
+            return bucket >= 0;
+        }
+    }
+}
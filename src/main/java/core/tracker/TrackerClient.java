@@ -8,20 +8,44 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
-public class TrackerClient {
+public class TrackerClient implements Announcer, Scraper {
+
+    // Keeps scrape URLs around 4 KB, below the request-line limits common tracker front ends enforce.
+    public static final int HTTP_SCRAPE_BATCH_SIZE = 64;
+    // Scrape batches in flight across all scrape() calls, overall and against one tracker host.
+    public static final int DEFAULT_MAX_CONCURRENT_SCRAPES = 8;
+    public static final int DEFAULT_MAX_SCRAPES_PER_HOST = 2;
 
     private final HttpClient client;
+    private final RequestGate scrapeGate;
 
     public TrackerClient() {
-        this.client = HttpClient.newBuilder()
+        this(HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(15))
                 .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
+                .build());
     }
 
     public TrackerClient(HttpClient client) {
+        this(client, DEFAULT_MAX_CONCURRENT_SCRAPES, DEFAULT_MAX_SCRAPES_PER_HOST);
+    }
+
+    public TrackerClient(HttpClient client, int maxConcurrentScrapes, int maxScrapesPerHost) {
         this.client = client;
+        this.scrapeGate = new RequestGate(maxConcurrentScrapes, maxScrapesPerHost);
     }
 
     public String buildAnnounceUrl(TorrentMetainfo metainfo, byte[] peerId, int port) {
@@ -39,22 +63,299 @@ public class TrackerClient {
         return stringBuilder.toString();
     }
 
+    public String buildAnnounceUrl(String trackerUrl, AnnounceRequest request) {
+        StringBuilder stringBuilder = new StringBuilder();
+
+        stringBuilder.append(trackerUrl);
+        stringBuilder.append(trackerUrl.indexOf('?') >= 0 ? '&' : '?');
+        stringBuilder.append("info_hash=").append(ByteUrlEncoder.encode(request.getInfoHash()));
+        stringBuilder.append("&peer_id=").append(ByteUrlEncoder.encode(request.getPeerId()));
+        stringBuilder.append("&port=").append(request.getPort());
+        stringBuilder.append("&uploaded=").append(request.getUploaded());
+        stringBuilder.append("&downloaded=").append(request.getDownloaded());
+        stringBuilder.append("&left=").append(request.getLeft());
+        stringBuilder.append("&compact=1");
+
+        if (request.getEvent().getQueryValue() != null) {
+            stringBuilder.append("&event=").append(request.getEvent().getQueryValue());
+        }
+
+        if (request.getNumWant() >= 0) {
+            stringBuilder.append("&numwant=").append(request.getNumWant());
+        }
+
+        stringBuilder.append("&key=").append(Integer.toHexString(request.getKey()));
+
+        return stringBuilder.toString();
+    }
+
     public byte[] request(TorrentMetainfo metainfo, byte[] peerId, int port) throws IOException, InterruptedException {
-        String uri = buildAnnounceUrl(metainfo, peerId, port);
+        HttpRequest request = buildRequest(buildAnnounceUrl(metainfo, peerId, port));
+
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        checkStatus(response);
+
+        return response.body();
+    }
+
+    // Completes exceptionally with an IOException (wrapped in CompletionException) on non-200 responses.
+    public CompletableFuture<byte[]> requestAsync(TorrentMetainfo metainfo, byte[] peerId, int port) {
+        HttpRequest request = buildRequest(buildAnnounceUrl(metainfo, peerId, port));
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    try {
+                        checkStatus(response);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                    return response.body();
+                });
+    }
+
+    @Override
+    public CompletableFuture<AnnounceResponse> announce(String trackerUrl, AnnounceRequest request) {
+        HttpRequest httpRequest;
+
+        try {
+            httpRequest = buildRequest(buildAnnounceUrl(trackerUrl, request));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    try {
+                        checkStatus(response);
+                        return AnnounceResponse.parse(response.body());
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    // Derives the scrape URL by replacing a final 'announce' path segment with 'scrape'; null when the
+    // announce URL does not follow that convention and the tracker therefore does not support scraping.
+    public static String scrapeUrl(String announceUrl) {
+        int queryStart = announceUrl.indexOf('?');
+        String path = queryStart >= 0 ? announceUrl.substring(0, queryStart) : announceUrl;
+        int segmentStart = path.lastIndexOf('/') + 1;
+
+        if (segmentStart == 0 || !path.startsWith("announce", segmentStart)) {
+            return null;
+        }
+
+        return path.substring(0, segmentStart) + "scrape" + announceUrl.substring(segmentStart + "announce".length());
+    }
+
+    public String buildScrapeUrl(String scrapeUrl, List<byte[]> infoHashes) {
+        StringBuilder stringBuilder = new StringBuilder(scrapeUrl);
+        char separator = scrapeUrl.indexOf('?') >= 0 ? '&' : '?';
+
+        for (byte[] infoHash : infoHashes) {
+            stringBuilder.append(separator).append("info_hash=").append(ByteUrlEncoder.encode(infoHash));
+            separator = '&';
+        }
+
+        return stringBuilder.toString();
+    }
+
+    @Override
+    public CompletableFuture<List<ScrapeResult>> scrape(String announceUrl, List<byte[]> infoHashes) {
+        String scrapeUrl = scrapeUrl(announceUrl);
+
+        if (scrapeUrl == null) {
+            return CompletableFuture.failedFuture(new IOException("Tracker does not support scrape: " + announceUrl));
+        }
+
+        // Every request is built before any is queued, so a bad URL fails the scrape without sending part of it.
+        List<HttpRequest> requests = new ArrayList<>();
+        String host;
+
+        try {
+            host = hostOf(scrapeUrl);
+
+            for (int from = 0; from < infoHashes.size(); from += HTTP_SCRAPE_BATCH_SIZE) {
+                List<byte[]> batch = infoHashes.subList(from, Math.min(infoHashes.size(), from + HTTP_SCRAPE_BATCH_SIZE));
+                requests.add(buildRequest(buildScrapeUrl(scrapeUrl, batch)));
+            }
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        List<CompletableFuture<List<ScrapeResult>>> batches = new ArrayList<>();
+
+        for (HttpRequest request : requests) {
+            batches.add(scrapeGate.enqueue(host, () -> client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .thenApply(response -> {
+                        try {
+                            checkStatus(response);
+                            return ScrapeResult.parse(response.body());
+                        } catch (IOException e) {
+                            throw new CompletionException(e);
+                        }
+                    })));
+        }
+
+        scrapeGate.drain();
+
+        return ScrapeResult.concat(batches);
+    }
+
+    // Announces every torrent without blocking the caller. At most maxConcurrent requests are in flight
+    // overall and at most maxConcurrentPerHost against one tracker host, so the shared HttpClient keeps
+    // reusing a few persistent connections per tracker instead of opening one per torrent.
+    public Map<TorrentMetainfo, CompletableFuture<byte[]>> requestAll(Collection<TorrentMetainfo> torrents, byte[] peerId, int port,
+                                                                      int maxConcurrent, int maxConcurrentPerHost) {
+        Map<TorrentMetainfo, CompletableFuture<byte[]>> results = new LinkedHashMap<>();
+        RequestGate gate = new RequestGate(maxConcurrent, maxConcurrentPerHost);
+
+        for (TorrentMetainfo metainfo : torrents) {
+            String host;
+
+            try {
+                host = hostOf(metainfo.getAnnounce());
+            } catch (IllegalArgumentException e) {
+                results.put(metainfo, CompletableFuture.failedFuture(new IOException("Invalid announce URL: " + metainfo.getAnnounce(), e)));
+                continue;
+            }
 
-        HttpRequest request = HttpRequest.newBuilder()
+            results.put(metainfo, gate.enqueue(host, () -> requestAsync(metainfo, peerId, port)));
+        }
+
+        gate.drain();
+
+        return results;
+    }
+
+    private HttpRequest buildRequest(String uri) {
+        return HttpRequest.newBuilder()
                 .uri(URI.create(uri))
                 .timeout(Duration.ofSeconds(30))
                 .GET()
                 .build();
+    }
 
-        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
-
+    private static void checkStatus(HttpResponse<byte[]> response) throws IOException {
         if(response.statusCode() != 200){
             throw new IOException("Tracker failed. HTTP Status: " + response.statusCode());
         }
+    }
 
-        return response.body();
+    private static String hostOf(String url) {
+        String host = URI.create(url).getHost();
+        return host != null ? host : url;
+    }
+
+    // Starts queued requests while at most maxConcurrent are in flight overall and at most
+    // maxConcurrentPerHost against one host, taking hosts in turn.
+    private static class RequestGate {
+
+        private final int maxConcurrent;
+        private final int maxConcurrentPerHost;
+
+        private final Map<String, ArrayDeque<Pending<?>>> queuesByHost = new LinkedHashMap<>();
+        private final Map<String, Integer> activeByHost = new HashMap<>();
+        private final AtomicInteger drainRequests = new AtomicInteger();
+        private int active;
+
+        private RequestGate(int maxConcurrent, int maxConcurrentPerHost) {
+            if (maxConcurrent < 1 || maxConcurrentPerHost < 1) {
+                throw new IllegalArgumentException("Concurrency limits must be positive");
+            }
+
+            this.maxConcurrent = maxConcurrent;
+            this.maxConcurrentPerHost = maxConcurrentPerHost;
+        }
+
+        // Queues the request; it starts from a later drain().
+        private synchronized <T> CompletableFuture<T> enqueue(String host, Supplier<CompletableFuture<T>> request) {
+            Pending<T> pending = new Pending<>(host, request);
+            queuesByHost.computeIfAbsent(host, key -> new ArrayDeque<>()).add(pending);
+            return pending.result;
+        }
+
+        // Requests that complete synchronously call back into drain(); the counter turns that
+        // re-entry into another iteration of the outer loop instead of unbounded recursion.
+        private void drain() {
+            if (drainRequests.getAndIncrement() != 0) {
+                return;
+            }
+
+            do {
+                for (Pending<?> pending : takeStartable()) {
+                    start(pending);
+                }
+            } while (drainRequests.decrementAndGet() != 0);
+        }
+
+        private synchronized List<Pending<?>> takeStartable() {
+            List<Pending<?>> startable = new ArrayList<>();
+            Iterator<Map.Entry<String, ArrayDeque<Pending<?>>>> hosts = queuesByHost.entrySet().iterator();
+
+            while (active < maxConcurrent && hosts.hasNext()) {
+                Map.Entry<String, ArrayDeque<Pending<?>>> entry = hosts.next();
+                ArrayDeque<Pending<?>> queue = entry.getValue();
+                int hostActive = activeByHost.getOrDefault(entry.getKey(), 0);
+
+                while (active < maxConcurrent && hostActive < maxConcurrentPerHost && !queue.isEmpty()) {
+                    startable.add(queue.poll());
+                    hostActive++;
+                    active++;
+                }
+
+                activeByHost.put(entry.getKey(), hostActive);
+
+                if (queue.isEmpty()) {
+                    hosts.remove();
+                }
+            }
+
+            return startable;
+        }
+
+        private synchronized void finished(Pending<?> pending) {
+            active--;
+
+            if (activeByHost.merge(pending.host, -1, Integer::sum) == 0) {
+                activeByHost.remove(pending.host);
+            }
+        }
+
+        private <T> void start(Pending<T> pending) {
+            CompletableFuture<T> request;
+
+            try {
+                request = pending.request.get();
+            } catch (RuntimeException e) {
+                request = CompletableFuture.failedFuture(e);
+            }
+
+            request.whenComplete((value, failure) -> {
+                finished(pending);
+
+                if (failure != null) {
+                    pending.result.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+                } else {
+                    pending.result.complete(value);
+                }
+
+                drain();
+            });
+        }
+    }
+
+    private static class Pending<T> {
+
+        private final String host;
+        private final Supplier<CompletableFuture<T>> request;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Pending(String host, Supplier<CompletableFuture<T>> request) {
+            this.host = host;
+            this.request = request;
+        }
     }
 
 }
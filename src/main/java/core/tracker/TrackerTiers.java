@@ -0,0 +1,50 @@
+package core.tracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Per-torrent BEP 12 tracker ordering: each tier is shuffled once, and a tracker that answers is moved to
+// the front of its tier so later announces try it first.
+public class TrackerTiers {
+
+    private final List<List<String>> tiers;
+
+    public TrackerTiers(List<List<String>> announceList) {
+        this(announceList, new Random());
+    }
+
+    public TrackerTiers(List<List<String>> announceList, Random random) {
+        this.tiers = new ArrayList<>(announceList.size());
+
+        for (List<String> tier : announceList) {
+            List<String> shuffled = new ArrayList<>(tier);
+            Collections.shuffle(shuffled, random);
+            tiers.add(shuffled);
+        }
+    }
+
+    public synchronized int getTierCount() {
+        return tiers.size();
+    }
+
+    // Copy of the current order, safe to iterate while other announces promote trackers.
+    public synchronized List<List<String>> snapshot() {
+        List<List<String>> copy = new ArrayList<>(tiers.size());
+
+        for (List<String> tier : tiers) {
+            copy.add(List.copyOf(tier));
+        }
+
+        return copy;
+    }
+
+    public synchronized void promote(int tierIndex, String trackerUrl) {
+        List<String> tier = tiers.get(tierIndex);
+
+        if (tier.remove(trackerUrl)) {
+            tier.add(0, trackerUrl);
+        }
+    }
+}
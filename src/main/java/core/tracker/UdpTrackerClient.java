@@ -0,0 +1,592 @@
+package core.tracker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// BEP 15 tracker client. One non-blocking DatagramChannel serves every torrent: requests are matched to
+// responses by transaction id, and all protocol state is confined to a single selector thread, so the
+// transaction table and the connection id cache need no locking.
+public class UdpTrackerClient implements Announcer, Scraper, Closeable {
+
+    public static final Duration DEFAULT_BASE_TIMEOUT = Duration.ofSeconds(15);
+    public static final int DEFAULT_MAX_RETRIES = 8;
+    // BEP 15 caps a scrape at 74 hashes so the request fits in a typical MTU.
+    public static final int MAX_SCRAPE_HASHES = 74;
+
+    static final int ACTION_CONNECT = 0;
+    static final int ACTION_ANNOUNCE = 1;
+    static final int ACTION_SCRAPE = 2;
+    static final int ACTION_ERROR = 3;
+
+    private static final long PROTOCOL_ID = 0x41727101980L;
+    private static final long CONNECTION_ID_LIFETIME_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final int MAX_DATAGRAM_SIZE = 64 * 1024;
+    private static final int MAX_REQUEST_SIZE = 16 + MAX_SCRAPE_HASHES * 20;
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final Thread selectorThread;
+    private final long baseTimeoutNanos;
+    private final int maxRetries;
+
+    // DNS lookups block, so they run on virtual threads of their own instead of the common pool.
+    private final ExecutorService resolver = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("udp-tracker-resolve-", 0).factory());
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private volatile boolean closed;
+
+    // Selector-thread state.
+    private final Map<Integer, Transaction> transactions = new HashMap<>();
+    private final Map<InetSocketAddress, Connection> connections = new HashMap<>();
+    private final Map<InetSocketAddress, ConnectTransaction> connecting = new HashMap<>();
+    private final PriorityQueue<Timeout> timeouts = new PriorityQueue<>();
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(MAX_REQUEST_SIZE);
+
+    public UdpTrackerClient() throws IOException {
+        this(DEFAULT_BASE_TIMEOUT, DEFAULT_MAX_RETRIES);
+    }
+
+    // A request is retransmitted after baseTimeout * 2^n for n = 0..maxRetries, then fails.
+    public UdpTrackerClient(Duration baseTimeout, int maxRetries) throws IOException {
+        if (baseTimeout.isNegative() || baseTimeout.isZero() || maxRetries < 0) {
+            throw new IllegalArgumentException("Invalid retransmit settings");
+        }
+
+        this.baseTimeoutNanos = baseTimeout.toNanos();
+        this.maxRetries = maxRetries;
+        this.channel = DatagramChannel.open();
+        this.selector = Selector.open();
+
+        try {
+            channel.bind(null);
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            selector.close();
+            channel.close();
+            throw e;
+        }
+
+        this.selectorThread = Thread.ofPlatform().daemon().name("udp-tracker").start(this::run);
+    }
+
+    public InetSocketAddress getLocalAddress() throws IOException {
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    // A tracker error packet yields a failure response. The tracker host is resolved off the selector thread.
+    @Override
+    public CompletableFuture<AnnounceResponse> announce(String trackerUrl, AnnounceRequest request) {
+        return resolveAsync(trackerUrl)
+                .thenCompose(target -> {
+                    CompletableFuture<AnnounceResponse> result = new CompletableFuture<>();
+                    submit(() -> withConnection(new AnnounceTransaction(target, request, result)), result);
+                    return result;
+                });
+    }
+
+    // Sends one scrape transaction per MAX_SCRAPE_HASHES hashes, all sharing the tracker's connection id.
+    @Override
+    public CompletableFuture<List<ScrapeResult>> scrape(String announceUrl, List<byte[]> infoHashes) {
+        return resolveAsync(announceUrl)
+                .thenCompose(target -> {
+                    List<CompletableFuture<List<ScrapeResult>>> batches = new ArrayList<>();
+
+                    for (int from = 0; from < infoHashes.size(); from += MAX_SCRAPE_HASHES) {
+                        List<byte[]> batch = List.copyOf(infoHashes.subList(from, Math.min(infoHashes.size(), from + MAX_SCRAPE_HASHES)));
+                        CompletableFuture<List<ScrapeResult>> result = new CompletableFuture<>();
+                        submit(() -> withConnection(new ScrapeTransaction(target, batch, result)), result);
+                        batches.add(result);
+                    }
+
+                    return ScrapeResult.concat(batches);
+                });
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (tasks) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        selector.wakeup();
+        resolver.shutdown();
+
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<InetSocketAddress> resolveAsync(String trackerUrl) {
+        try {
+            return CompletableFuture.supplyAsync(() -> resolve(trackerUrl), resolver);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new IOException("UDP tracker client is closed"));
+        }
+    }
+
+    private static InetSocketAddress resolve(String trackerUrl) {
+        URI uri = URI.create(trackerUrl);
+
+        if (!"udp".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null || uri.getPort() == -1) {
+            throw new IllegalArgumentException("Invalid UDP tracker URL: " + trackerUrl);
+        }
+
+        InetSocketAddress address = new InetSocketAddress(uri.getHost(), uri.getPort());
+
+        if (address.isUnresolved()) {
+            throw new CompletionException(new UnknownHostException(uri.getHost()));
+        }
+
+        return address;
+    }
+
+    private void submit(Runnable task, CompletableFuture<?> result) {
+        synchronized (tasks) {
+            if (closed) {
+                result.completeExceptionally(new IOException("UDP tracker client is closed"));
+                return;
+            }
+            tasks.add(task);
+        }
+
+        selector.wakeup();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                Timeout next = timeouts.peek();
+                long waitMillis = next == null ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(next.deadline - System.nanoTime()) + 1);
+
+                selector.select(waitMillis);
+                selector.selectedKeys().clear();
+
+                receive();
+                runTasks();
+                expireTimeouts();
+            }
+        } catch (IOException e) {
+            synchronized (tasks) {
+                closed = true;
+            }
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void runTasks() {
+        while (true) {
+            Runnable task;
+
+            synchronized (tasks) {
+                task = tasks.poll();
+            }
+
+            if (task == null) {
+                return;
+            }
+
+            task.run();
+        }
+    }
+
+    private void receive() throws IOException {
+        SocketAddress source;
+
+        while ((source = channel.receive(receiveBuffer.clear())) != null) {
+            receiveBuffer.flip();
+
+            if (receiveBuffer.remaining() < 8) {
+                continue;
+            }
+
+            int action = receiveBuffer.getInt();
+            Transaction transaction = transactions.get(receiveBuffer.getInt());
+
+            // Ignore late duplicates, unknown ids and packets that do not come from the queried tracker.
+            if (transaction == null || !transaction.target.equals(source)) {
+                continue;
+            }
+
+            if (action == ACTION_ERROR) {
+                finish(transaction);
+                transaction.trackerError(StandardCharsets.UTF_8.decode(receiveBuffer).toString());
+            } else if (action == transaction.action()) {
+                finish(transaction);
+
+                try {
+                    transaction.complete(receiveBuffer);
+                } catch (IOException e) {
+                    transaction.fail(e);
+                }
+            }
+        }
+    }
+
+    private void expireTimeouts() {
+        long now = System.nanoTime();
+
+        while (!timeouts.isEmpty() && timeouts.peek().deadline - now <= 0) {
+            Timeout timeout = timeouts.poll();
+            Transaction transaction = timeout.transaction;
+
+            if (transactions.get(transaction.id) != transaction || transaction.attempt != timeout.attempt) {
+                continue;
+            }
+
+            if (transaction.attempt >= maxRetries) {
+                finish(transaction);
+                transaction.fail(new SocketTimeoutException("No response from UDP tracker " + transaction.target));
+            } else if (transaction.needsReconnect(now)) {
+                // The connection id expired while retransmitting; obtain a new one first.
+                finish(transaction);
+                transaction.attempt++;
+                withConnection(transaction);
+            } else {
+                transaction.attempt++;
+                send(transaction);
+            }
+        }
+    }
+
+    private void withConnection(Transaction transaction) {
+        Connection connection = connections.get(transaction.target);
+
+        if (connection != null && connection.expiresAt - System.nanoTime() > 0) {
+            transaction.connectionId = connection.id;
+            send(transaction);
+            return;
+        }
+
+        connections.remove(transaction.target);
+        ConnectTransaction connect = connecting.get(transaction.target);
+
+        if (connect == null) {
+            connect = new ConnectTransaction(transaction.target);
+            connecting.put(transaction.target, connect);
+            send(connect);
+        }
+
+        connect.waiters.add(transaction);
+    }
+
+    private void send(Transaction transaction) {
+        if (transactions.get(transaction.id) != transaction) {
+            transaction.id = newTransactionId();
+            transactions.put(transaction.id, transaction);
+        }
+
+        ByteBuffer packet = sendBuffer.clear();
+        transaction.write(packet);
+        packet.flip();
+
+        try {
+            // A zero-byte send means the socket buffer is full; the packet counts as lost and is retransmitted.
+            channel.send(packet, transaction.target);
+        } catch (IOException e) {
+            finish(transaction);
+            transaction.fail(e);
+            return;
+        }
+
+        long deadline = System.nanoTime() + (baseTimeoutNanos << Math.min(transaction.attempt, 30));
+        timeouts.add(new Timeout(deadline, transaction, transaction.attempt));
+    }
+
+    private void finish(Transaction transaction) {
+        transactions.remove(transaction.id, transaction);
+    }
+
+    private int newTransactionId() {
+        int id;
+
+        do {
+            id = ThreadLocalRandom.current().nextInt();
+        } while (transactions.containsKey(id));
+
+        return id;
+    }
+
+    private void shutdown() {
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+
+        // Tasks queued before close() fail on the closed channel.
+        runTasks();
+
+        IOException closedException = new IOException("UDP tracker client is closed");
+
+        for (Transaction transaction : new ArrayList<>(transactions.values())) {
+            transaction.fail(closedException);
+        }
+
+        transactions.clear();
+        connecting.clear();
+        timeouts.clear();
+    }
+
+    private static class Connection {
+
+        private final long id;
+        private final long expiresAt;
+
+        private Connection(long id, long expiresAt) {
+            this.id = id;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class Timeout implements Comparable<Timeout> {
+
+        private final long deadline;
+        private final Transaction transaction;
+        private final int attempt;
+
+        private Timeout(long deadline, Transaction transaction, int attempt) {
+            this.deadline = deadline;
+            this.transaction = transaction;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public int compareTo(Timeout other) {
+            return Long.compare(deadline - other.deadline, 0);
+        }
+    }
+
+    private abstract class Transaction {
+
+        final InetSocketAddress target;
+        int id;
+        int attempt;
+        long connectionId;
+
+        Transaction(InetSocketAddress target) {
+            this.target = target;
+        }
+
+        abstract int action();
+
+        // Writes the complete request packet, header included.
+        abstract void write(ByteBuffer packet);
+
+        // Reads the response body that follows the action and transaction id.
+        abstract void complete(ByteBuffer body) throws IOException;
+
+        abstract void fail(Throwable failure);
+
+        void trackerError(String message) {
+            fail(new IOException("UDP tracker error: " + message));
+        }
+
+        boolean needsReconnect(long now) {
+            Connection connection = connections.get(target);
+            return connection == null || connection.id != connectionId || connection.expiresAt - now <= 0;
+        }
+    }
+
+    private class ConnectTransaction extends Transaction {
+
+        private final List<Transaction> waiters = new ArrayList<>();
+
+        private ConnectTransaction(InetSocketAddress target) {
+            super(target);
+        }
+
+        @Override
+        int action() {
+            return ACTION_CONNECT;
+        }
+
+        @Override
+        boolean needsReconnect(long now) {
+            return false;
+        }
+
+        @Override
+        void write(ByteBuffer packet) {
+            packet.putLong(PROTOCOL_ID).putInt(ACTION_CONNECT).putInt(id);
+        }
+
+        @Override
+        void complete(ByteBuffer body) throws IOException {
+            if (body.remaining() < 8) {
+                throw new IOException("Truncated UDP connect response");
+            }
+
+            connecting.remove(target, this);
+            connections.put(target, new Connection(body.getLong(), System.nanoTime() + CONNECTION_ID_LIFETIME_NANOS));
+
+            for (Transaction waiter : waiters) {
+                withConnection(waiter);
+            }
+        }
+
+        @Override
+        void fail(Throwable failure) {
+            connecting.remove(target, this);
+
+            for (Transaction waiter : waiters) {
+                waiter.fail(failure);
+            }
+        }
+
+        @Override
+        void trackerError(String message) {
+            connecting.remove(target, this);
+
+            for (Transaction waiter : waiters) {
+                waiter.trackerError(message);
+            }
+        }
+    }
+
+    private class AnnounceTransaction extends Transaction {
+
+        private final AnnounceRequest request;
+        private final CompletableFuture<AnnounceResponse> result;
+
+        private AnnounceTransaction(InetSocketAddress target, AnnounceRequest request, CompletableFuture<AnnounceResponse> result) {
+            super(target);
+            this.request = request;
+            this.result = result;
+        }
+
+        @Override
+        int action() {
+            return ACTION_ANNOUNCE;
+        }
+
+        @Override
+        void write(ByteBuffer packet) {
+            packet.putLong(connectionId).putInt(ACTION_ANNOUNCE).putInt(id)
+                    .put(request.getInfoHash(), 0, 20)
+                    .put(request.getPeerId(), 0, 20)
+                    .putLong(request.getDownloaded())
+                    .putLong(request.getLeft())
+                    .putLong(request.getUploaded())
+                    .putInt(request.getEvent().getId())
+                    .putInt(0)
+                    .putInt(request.getKey())
+                    .putInt(request.getNumWant())
+                    .putShort((short) request.getPort());
+        }
+
+        @Override
+        void complete(ByteBuffer body) throws IOException {
+            if (body.remaining() < 12) {
+                throw new IOException("Truncated UDP announce response");
+            }
+
+            int interval = body.getInt();
+            int leechers = body.getInt();
+            int seeders = body.getInt();
+            PeerBuffer peers = new PeerBuffer(body.remaining() / PeerBuffer.COMPACT_IPV4_LENGTH);
+
+            // Trackers reached over IPv6 answer with 18-byte peer entries.
+            if (target.getAddress() instanceof Inet6Address) {
+                peers.addCompactIpv6(body);
+            } else {
+                peers.addCompactIpv4(body);
+            }
+
+            result.complete(new AnnounceResponse(null, null, null, interval, AnnounceResponse.ABSENT, seeders, leechers, peers));
+        }
+
+        @Override
+        void fail(Throwable failure) {
+            result.completeExceptionally(failure);
+        }
+
+        @Override
+        void trackerError(String message) {
+            result.complete(new AnnounceResponse(message, null, null, AnnounceResponse.ABSENT, AnnounceResponse.ABSENT,
+                    AnnounceResponse.ABSENT, AnnounceResponse.ABSENT, new PeerBuffer(1)));
+        }
+    }
+
+    private class ScrapeTransaction extends Transaction {
+
+        private final List<byte[]> infoHashes;
+        private final CompletableFuture<List<ScrapeResult>> result;
+
+        private ScrapeTransaction(InetSocketAddress target, List<byte[]> infoHashes, CompletableFuture<List<ScrapeResult>> result) {
+            super(target);
+            this.infoHashes = infoHashes;
+            this.result = result;
+        }
+
+        @Override
+        int action() {
+            return ACTION_SCRAPE;
+        }
+
+        @Override
+        void write(ByteBuffer packet) {
+            packet.putLong(connectionId).putInt(ACTION_SCRAPE).putInt(id);
+
+            for (byte[] infoHash : infoHashes) {
+                packet.put(infoHash, 0, 20);
+            }
+        }
+
+        // Entries come back in request order: seeders, completed, leechers.
+        @Override
+        void complete(ByteBuffer body) throws IOException {
+            if (body.remaining() < infoHashes.size() * 12) {
+                throw new IOException("Truncated UDP scrape response");
+            }
+
+            List<ScrapeResult> results = new ArrayList<>(infoHashes.size());
+
+            for (byte[] infoHash : infoHashes) {
+                int seeders = body.getInt();
+                int completed = body.getInt();
+                int leechers = body.getInt();
+                results.add(new ScrapeResult(infoHash, seeders, completed, leechers));
+            }
+
+            result.complete(results);
+        }
+
+        @Override
+        void fail(Throwable failure) {
+            result.completeExceptionally(failure);
+        }
+    }
+}
@@ -5,11 +5,17 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -165,6 +171,30 @@ public class BencodeDecoderTest {
             assertInstanceOf(BencodeDictionary.class, result);
         }
 
+        @Test
+        @DisplayName("Should record the raw source bytes of each dictionary value")
+        void shouldRecordRawValueBytes() throws IOException {
+            byte[] data = "d4:infod1:ai1eee".getBytes();
+            BencodeDictionary result = (BencodeDictionary) BencodeDecoder.decode(data);
+
+            ByteBuffer raw = result.getRawValue("info");
+
+            assertEquals("d1:ai1ee", StandardCharsets.UTF_8.decode(raw).toString());
+            assertNull(result.getRawValue("missing"));
+            assertNull(new BencodeDictionary(new LinkedHashMap<>()).getRawValue("info"));
+        }
+
+        @Test
+        @DisplayName("Should record raw bytes for every key of a large dictionary, keeping the last repeated key")
+        void shouldRecordRawValuesOfManyKeys() throws IOException {
+            byte[] data = "d1:ai1e1:bi2e1:ci3e1:di4e1:ei5e1:fli6ee1:ai7ee".getBytes();
+            BencodeDictionary result = (BencodeDictionary) BencodeDecoder.decode(data);
+
+            assertEquals("li6ee", StandardCharsets.UTF_8.decode(result.getRawValue("f")).toString());
+            assertEquals("i7e", StandardCharsets.UTF_8.decode(result.getRawValue("a")).toString());
+            assertEquals(7L, result.getValue().get("a").getValue());
+        }
+
         @Test
         @DisplayName("Should throw exception when dictionary key is not a string")
         void shouldThrowExceptionWhenDictionaryKeyIsNotString() {
@@ -190,6 +220,68 @@ public class BencodeDecoderTest {
         }
     }
 
+    @Nested
+    @DisplayName("ByteBuffer Decoding Tests")
+    class Buffers {
+
+        @Test
+        @DisplayName("Should decode from a direct buffer exposing byte strings as slices")
+        void shouldDecodeFromDirectBuffer() throws IOException {
+            byte[] bytes = "d4:name5:hello6:piecesi7ee".getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+            BencodeElement<?> result = BencodeDecoder.decode(buffer);
+
+            BencodeByteArray name = (BencodeByteArray) ((BencodeDictionary) result).getValue().get("name");
+            assertEquals("hello", name.asString());
+            assertEquals(5, name.length());
+            assertTrue(name.asBuffer().isDirect());
+            assertEquals(0, buffer.position());
+        }
+
+        @Test
+        @DisplayName("Should only decode between the buffer position and limit")
+        void shouldRespectPositionAndLimit() throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap("xxi42eyy".getBytes(StandardCharsets.UTF_8));
+            buffer.position(2).limit(6);
+
+            BencodeElement<?> result = BencodeDecoder.decode(buffer);
+
+            assertEquals(42L, ((BencodeNumber) result).getValue());
+        }
+
+        @Test
+        @DisplayName("Should decode from a memory-mapped file")
+        void shouldDecodeFromMappedFile(@TempDir Path directory) throws IOException {
+            Path file = directory.resolve("sample.torrent");
+            Files.write(file, "l4:spami-3ee".getBytes(StandardCharsets.UTF_8));
+
+            try (FileChannel channel = FileChannel.open(file)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+                List<BencodeElement<?>> list = ((BencodeList) BencodeDecoder.decode(mapped)).getValue();
+
+                assertEquals("spam", ((BencodeByteArray) list.get(0)).asString());
+                assertArrayEquals("spam".getBytes(StandardCharsets.UTF_8), ((BencodeByteArray) list.get(0)).getValue());
+                assertEquals(-3L, ((BencodeNumber) list.get(1)).getValue());
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject integers that overflow a long")
+        void shouldRejectOverflowingInteger() {
+            byte[] data = "i9223372036854775808e".getBytes();
+            assertThrows(IOException.class, () -> BencodeDecoder.decode(data));
+        }
+
+        @Test
+        @DisplayName("Should decode the minimum long value")
+        void shouldDecodeMinimumLong() throws IOException {
+            byte[] data = ("i" + Long.MIN_VALUE + "e").getBytes();
+            assertEquals(Long.MIN_VALUE, ((BencodeNumber) BencodeDecoder.decode(data)).getValue());
+        }
+    }
+
     @Nested
     @DisplayName("General Error Handling")
     class GeneralErrors {
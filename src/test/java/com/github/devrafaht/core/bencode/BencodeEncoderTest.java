@@ -0,0 +1,111 @@
+package com.github.devrafaht.core.bencode;
+
+import core.bencode.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Bencode Encoder Tests")
+class BencodeEncoderTest {
+
+    private static final String ENCODED = "d4:listli-7e0:e4:name5:hello6:numberi9223372036854775807ee";
+
+    private static BencodeDictionary sampleTree() {
+        Map<String, BencodeElement<?>> map = new LinkedHashMap<>();
+        map.put("list", new BencodeList(List.of(new BencodeNumber(-7L), new BencodeByteArray(new byte[0]))));
+        map.put("name", new BencodeByteArray("hello".getBytes(StandardCharsets.UTF_8)));
+        map.put("number", new BencodeNumber(Long.MAX_VALUE));
+        return new BencodeDictionary(map);
+    }
+
+    @Test
+    @DisplayName("Should encode a nested tree to an exactly sized array")
+    void shouldEncodeTreeToArray() throws IOException {
+        byte[] result = BencodeEncoder.encode(sampleTree());
+
+        assertEquals(ENCODED, new String(result, StandardCharsets.UTF_8));
+        assertEquals(result.length, BencodeEncoder.encodedLength(sampleTree()));
+    }
+
+    @Test
+    @DisplayName("Should encode into a ByteBuffer and advance its position")
+    void shouldEncodeIntoByteBuffer() throws IOException {
+        BencodeDictionary tree = sampleTree();
+        ByteBuffer target = ByteBuffer.allocateDirect((int) BencodeEncoder.encodedLength(tree));
+
+        BencodeEncoder.encode(tree, target);
+
+        assertFalse(target.hasRemaining());
+        byte[] written = new byte[target.capacity()];
+        target.flip().get(written);
+        assertEquals(ENCODED, new String(written, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should throw BufferOverflowException when the target buffer is too small")
+    void shouldThrowWhenTargetTooSmall() {
+        ByteBuffer target = ByteBuffer.allocate(10);
+        assertThrows(BufferOverflowException.class, () -> BencodeEncoder.encode(sampleTree(), target));
+    }
+
+    @Test
+    @DisplayName("Should stream large payloads to an OutputStream and a WritableByteChannel")
+    void shouldEncodeToStreamAndChannel() throws IOException {
+        byte[] payload = new byte[100_000];
+        payload[payload.length - 1] = 'z';
+        BencodeList tree = new BencodeList(List.of(new BencodeByteArray(payload), new BencodeNumber(1L)));
+        byte[] expected = BencodeEncoder.encode(tree);
+
+        ByteArrayOutputStream streamTarget = new ByteArrayOutputStream();
+        BencodeEncoder.encode(tree, streamTarget);
+
+        ByteArrayOutputStream channelTarget = new ByteArrayOutputStream();
+        BencodeEncoder.encode(tree, Channels.newChannel(channelTarget));
+
+        assertArrayEquals(expected, streamTarget.toByteArray());
+        assertArrayEquals(expected, channelTarget.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Should prefix dictionary keys with their UTF-8 byte length")
+    void shouldUseUtf8ByteLengthForKeys() throws IOException {
+        Map<String, BencodeElement<?>> map = new LinkedHashMap<>();
+        map.put("ação", new BencodeNumber(1L));
+        BencodeDictionary dictionary = new BencodeDictionary(map);
+
+        byte[] result = dictionary.encode();
+
+        assertArrayEquals("d6:açãoi1ee".getBytes(StandardCharsets.UTF_8), result);
+        assertEquals(result.length, BencodeEncoder.encodedLength(dictionary));
+    }
+
+    @Test
+    @DisplayName("Should round-trip a decoded zero-copy tree")
+    void shouldRoundTripDecodedTree() throws IOException {
+        ByteBuffer source = ByteBuffer.wrap(ENCODED.getBytes(StandardCharsets.UTF_8));
+
+        byte[] result = BencodeEncoder.encode(BencodeDecoder.decode(source));
+
+        assertEquals(ENCODED, new String(result, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should encode the minimum long value")
+    void shouldEncodeMinimumLong() throws IOException {
+        BencodeNumber number = new BencodeNumber(Long.MIN_VALUE);
+
+        assertArrayEquals(("i" + Long.MIN_VALUE + "e").getBytes(StandardCharsets.UTF_8), number.encode());
+        assertEquals(22, BencodeEncoder.encodedLength(number));
+    }
+}
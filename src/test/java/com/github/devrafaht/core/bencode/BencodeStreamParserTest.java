@@ -0,0 +1,165 @@
+package com.github.devrafaht.core.bencode;
+
+import core.bencode.BencodeHandler;
+import core.bencode.BencodeStreamParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Bencode Stream Parser Tests")
+class BencodeStreamParserTest {
+
+    private static final String TORRENT = "d8:announce3:url4:infod6:lengthi1024e12:piece lengthi512e6:pieces4:abcdee";
+    private static final String EXPECTED_EVENTS =
+            "{ key(announce) bytes(url) key(info) { key(length) int(1024) key(piece length) int(512) key(pieces) bytes(abcd) } }";
+
+    @Test
+    @DisplayName("Should emit events for a whole document")
+    void shouldEmitEventsForWholeDocument() throws IOException {
+        RecordingHandler handler = new RecordingHandler();
+
+        BencodeStreamParser.parse(TORRENT.getBytes(StandardCharsets.UTF_8), handler);
+
+        assertEquals(EXPECTED_EVENTS, handler.events());
+    }
+
+    @Test
+    @DisplayName("Should produce the same events when input arrives one byte at a time")
+    void shouldHandleInputSplitAcrossChunks() throws IOException {
+        RecordingHandler handler = new RecordingHandler();
+        BencodeStreamParser parser = new BencodeStreamParser(handler);
+
+        for (byte b : TORRENT.getBytes(StandardCharsets.UTF_8)) {
+            assertFalse(parser.isComplete());
+            parser.feed(ByteBuffer.wrap(new byte[]{ b }));
+        }
+
+        assertTrue(parser.isComplete());
+        assertEquals(EXPECTED_EVENTS, handler.events());
+    }
+
+    @Test
+    @DisplayName("Should consume input from a ReadableByteChannel")
+    void shouldParseFromChannel() throws IOException {
+        RecordingHandler handler = new RecordingHandler();
+        BencodeStreamParser parser = new BencodeStreamParser(handler);
+
+        parser.parse(Channels.newChannel(new ByteArrayInputStream("li-42el0:ee".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("[ int(-42) [ bytes() ] ]", handler.events());
+    }
+
+    @Test
+    @DisplayName("Should extract a single nested value without building a tree")
+    void shouldExtractSingleValue() throws IOException {
+        long[] pieceLength = { -1 };
+
+        BencodeStreamParser.parse(TORRENT.getBytes(StandardCharsets.UTF_8), new BencodeHandler() {
+            private int depth;
+            private String lastKey;
+
+            @Override
+            public void startDictionary() {
+                depth++;
+            }
+
+            @Override
+            public void key(ByteBuffer key) {
+                lastKey = StandardCharsets.UTF_8.decode(key).toString();
+            }
+
+            @Override
+            public void integer(long value) {
+                if (depth == 2 && "piece length".equals(lastKey)) {
+                    pieceLength[0] = value;
+                }
+            }
+
+            @Override
+            public void end() {
+                depth--;
+            }
+        });
+
+        assertEquals(512L, pieceLength[0]);
+    }
+
+    @Test
+    @DisplayName("Should throw exception when input ends before the root value is complete")
+    void shouldThrowExceptionOnTruncatedInput() {
+        byte[] data = "d3:foo3:ba".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> BencodeStreamParser.parse(data, new RecordingHandler()));
+    }
+
+    @Test
+    @DisplayName("Should throw exception when dictionary key is not a string")
+    void shouldThrowExceptionWhenDictionaryKeyIsNotString() {
+        byte[] data = "di42e5:valuee".getBytes(StandardCharsets.UTF_8);
+        Exception exception = assertThrows(IOException.class, () -> BencodeStreamParser.parse(data, new RecordingHandler()));
+        assertTrue(exception.getMessage().contains("Dictionary key is not a String"));
+    }
+
+    @Test
+    @DisplayName("Should throw exception on malformed integer")
+    void shouldThrowExceptionOnMalformedInteger() {
+        assertThrows(IOException.class, () -> BencodeStreamParser.parse("i-e".getBytes(), new RecordingHandler()));
+        assertThrows(IOException.class, () -> BencodeStreamParser.parse("i4x2e".getBytes(), new RecordingHandler()));
+    }
+
+    private static class RecordingHandler implements BencodeHandler {
+
+        private final StringBuilder events = new StringBuilder();
+        private final StringBuilder closers = new StringBuilder();
+
+        @Override
+        public void startDictionary() {
+            append("{");
+            closers.append('}');
+        }
+
+        @Override
+        public void key(ByteBuffer key) {
+            append("key(" + StandardCharsets.UTF_8.decode(key) + ")");
+        }
+
+        @Override
+        public void startList() {
+            append("[");
+            closers.append(']');
+        }
+
+        @Override
+        public void integer(long value) {
+            append("int(" + value + ")");
+        }
+
+        @Override
+        public void bytes(ByteBuffer value) {
+            append("bytes(" + StandardCharsets.UTF_8.decode(value) + ")");
+        }
+
+        @Override
+        public void end() {
+            append(String.valueOf(closers.charAt(closers.length() - 1)));
+            closers.setLength(closers.length() - 1);
+        }
+
+        private void append(String event) {
+            if (!events.isEmpty()) {
+                events.append(' ');
+            }
+            events.append(event);
+        }
+
+        String events() {
+            return events.toString();
+        }
+    }
+}
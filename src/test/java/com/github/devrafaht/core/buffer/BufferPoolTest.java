@@ -0,0 +1,158 @@
+package com.github.devrafaht.core.buffer;
+
+import core.buffer.BufferPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BufferPool Tests")
+class BufferPoolTest {
+
+    private static final int SLAB_SIZE = 1024 * 1024;
+
+    @Test
+    @DisplayName("Should serve each request from the smallest class that fits")
+    void shouldPickSizeClass() {
+        BufferPool pool = new BufferPool();
+
+        ByteBuffer small = pool.acquire(17);
+        ByteBuffer block = pool.acquire(BufferPool.BLOCK_SIZE);
+        ByteBuffer large = pool.acquire(BufferPool.BLOCK_SIZE + 13);
+
+        assertTrue(small.isDirect());
+        assertEquals(BufferPool.SMALL_SIZE, small.capacity());
+        assertEquals(17, small.remaining());
+        assertEquals(BufferPool.BLOCK_SIZE, block.capacity());
+        assertEquals(BufferPool.LARGE_SIZE, large.capacity());
+        assertEquals(BufferPool.BLOCK_SIZE + 13, large.limit());
+        assertEquals(3L * SLAB_SIZE, pool.getReservedBytes());
+        assertEquals(3, pool.getBuffersInUse());
+    }
+
+    @Test
+    @DisplayName("Should recycle released buffers instead of allocating")
+    void shouldRecycleBuffers() {
+        BufferPool pool = new BufferPool();
+        BufferPool.SizeClass blocks = pool.getSizeClasses().get(1);
+
+        ByteBuffer first = pool.acquire(BufferPool.BLOCK_SIZE);
+        first.put((byte) 1);
+        pool.release(first);
+
+        for (int i = 0; i < 1000; i++) {
+            pool.release(pool.acquire(BufferPool.BLOCK_SIZE));
+        }
+
+        assertEquals(SLAB_SIZE / BufferPool.BLOCK_SIZE, blocks.getTotalBuffers());
+        assertEquals(blocks.getTotalBuffers(), blocks.getFreeBuffers());
+        assertEquals(0.0, blocks.getOccupancy());
+        assertEquals(SLAB_SIZE, pool.getReservedBytes());
+        assertEquals(0, pool.getUnpooledAllocations());
+    }
+
+    @Test
+    @DisplayName("Should report occupancy per size class")
+    void shouldReportOccupancy() {
+        BufferPool pool = new BufferPool();
+        BufferPool.SizeClass small = pool.getSizeClasses().get(0);
+        List<ByteBuffer> held = new ArrayList<>();
+
+        // A second slab is carved once the first 256 buffers are taken.
+        for (int i = 0; i < 320; i++) {
+            held.add(pool.acquire(100));
+        }
+
+        assertEquals(320, small.getBuffersInUse());
+        assertEquals(512, small.getTotalBuffers());
+        assertEquals(0.625, small.getOccupancy());
+
+        pool.release(held.remove(0));
+        assertEquals(319, pool.getBuffersInUse());
+    }
+
+    @Test
+    @DisplayName("Should fall back to heap buffers past the budget and for oversized requests")
+    void shouldFallBackToHeap() {
+        BufferPool pool = new BufferPool(SLAB_SIZE, false);
+        List<ByteBuffer> held = new ArrayList<>();
+
+        for (int i = 0; i < SLAB_SIZE / BufferPool.LARGE_SIZE; i++) {
+            held.add(pool.acquire(BufferPool.LARGE_SIZE));
+        }
+
+        ByteBuffer exhausted = pool.acquire(BufferPool.LARGE_SIZE);
+        ByteBuffer otherClass = pool.acquire(10);
+        ByteBuffer oversized = pool.acquire(BufferPool.LARGE_SIZE + 1);
+
+        assertFalse(exhausted.isDirect());
+        assertFalse(otherClass.isDirect());
+        assertFalse(oversized.isDirect());
+        assertEquals(BufferPool.LARGE_SIZE + 1, oversized.capacity());
+        assertEquals(3, pool.getUnpooledAllocations());
+
+        pool.release(exhausted);
+        pool.release(held.get(0));
+        assertTrue(pool.acquire(BufferPool.LARGE_SIZE).isDirect());
+    }
+
+    @Test
+    @DisplayName("Should report buffers that were never released")
+    void shouldDetectLeaks() {
+        BufferPool pool = new BufferPool(BufferPool.DEFAULT_MAX_BYTES, true);
+        ByteBuffer kept = pool.acquire(BufferPool.BLOCK_SIZE);
+        pool.release(pool.acquire(10));
+
+        IllegalStateException leak = assertThrows(IllegalStateException.class, pool::checkLeaks);
+        assertTrue(leak.getMessage().startsWith("1 "));
+        assertNotNull(leak.getCause());
+
+        pool.release(kept);
+        assertDoesNotThrow(pool::checkLeaks);
+        assertThrows(IllegalStateException.class, () -> pool.release(kept));
+        assertThrows(IllegalArgumentException.class, () -> pool.release(ByteBuffer.allocateDirect(100)));
+    }
+
+    @Test
+    @DisplayName("Should hand out each buffer to one owner at a time under contention")
+    void shouldBeThreadSafe() throws Exception {
+        BufferPool pool = new BufferPool(BufferPool.DEFAULT_MAX_BYTES, true);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> workers = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        ByteBuffer buffer = pool.acquire(((seed + i) % 3 + 1) * 10_000);
+                        buffer.putInt(0, seed).putInt(4, i);
+
+                        if (buffer.getInt(0) != seed || buffer.getInt(4) != i) {
+                            throw new AssertionError("Buffer shared between owners");
+                        }
+
+                        pool.release(buffer);
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        pool.checkLeaks();
+        assertEquals(0, pool.getBuffersInUse());
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.devrafaht.core.metainfo;
+
+import core.metainfo.FileLayout;
+import core.metainfo.FileSpan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FileLayout Tests")
+class FileLayoutTest {
+
+    private final FileLayout layout = new FileLayout(new long[]{ 100, 0, 0, 50, 200 });
+
+    @Test
+    @DisplayName("Should compute prefix offsets and total length")
+    void shouldComputeOffsets() {
+        assertEquals(5, layout.getFileCount());
+        assertEquals(350L, layout.getTotalLength());
+        assertEquals(100L, layout.getFileOffset(3));
+        assertEquals(150L, layout.getFileOffset(4));
+        assertEquals(0L, layout.getFileLength(1));
+    }
+
+    @Test
+    @DisplayName("Should find the file holding an offset, skipping empty files")
+    void shouldFindFileIndex() {
+        assertEquals(0, layout.fileIndexAt(0));
+        assertEquals(0, layout.fileIndexAt(99));
+        assertEquals(3, layout.fileIndexAt(100));
+        assertEquals(4, layout.fileIndexAt(150));
+        assertEquals(4, layout.fileIndexAt(349));
+        assertThrows(IndexOutOfBoundsException.class, () -> layout.fileIndexAt(350));
+    }
+
+    @Test
+    @DisplayName("Should split a range into per-file spans")
+    void shouldSplitRangeIntoSpans() {
+        List<FileSpan> spans = layout.spans(90, 100);
+
+        assertEquals(3, spans.size());
+        assertSpan(spans.get(0), 0, 90, 10);
+        assertSpan(spans.get(1), 3, 0, 50);
+        assertSpan(spans.get(2), 4, 0, 40);
+    }
+
+    @Test
+    @DisplayName("Should reject ranges beyond the end of the torrent")
+    void shouldRejectRangeBeyondEnd() {
+        assertThrows(IndexOutOfBoundsException.class, () -> layout.spans(300, 51));
+        assertTrue(layout.spans(350, 0).isEmpty());
+    }
+
+    private static void assertSpan(FileSpan span, int fileIndex, long fileOffset, long length) {
+        assertEquals(fileIndex, span.getFileIndex());
+        assertEquals(fileOffset, span.getFileOffset());
+        assertEquals(length, span.getLength());
+    }
+}
@@ -3,10 +3,15 @@ package com.github.devrafaht.core.metainfo;
 import core.bencode.BencodeByteArray;
 import core.bencode.BencodeDictionary;
 import core.bencode.BencodeElement;
+import core.bencode.BencodeList;
 import core.bencode.BencodeNumber;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class TorrentMetainfoFactory {
@@ -22,7 +27,58 @@ public class TorrentMetainfoFactory {
         map.put("name", new BencodeByteArray(DEFAULT_NAME.getBytes(StandardCharsets.UTF_8)));
         map.put("length", new BencodeNumber(DEFAULT_LENGTH));
         map.put("piece length", new BencodeNumber(DEFAULT_PIECE_LENGTH));
-        map.put("pieces", createPiecesBlob(1));
+        map.put("pieces", createPiecesBlob(2));
+
+        return map;
+    }
+
+    public static Map<String, BencodeElement<?>> createMultiFileInfoMap(long... fileLengths) {
+        Map<String, BencodeElement<?>> map = new LinkedHashMap<>();
+        List<BencodeElement<?>> files = new ArrayList<>();
+
+        for (int i = 0; i < fileLengths.length; i++) {
+            Map<String, BencodeElement<?>> file = new LinkedHashMap<>();
+            file.put("length", new BencodeNumber(fileLengths[i]));
+            file.put("path", new BencodeList(List.of(
+                    new BencodeByteArray("disc".getBytes(StandardCharsets.UTF_8)),
+                    new BencodeByteArray(("file" + i + ".bin").getBytes(StandardCharsets.UTF_8)))));
+            files.add(new BencodeDictionary(file));
+        }
+
+        long totalLength = 0;
+        for (long fileLength : fileLengths) {
+            totalLength += fileLength;
+        }
+
+        map.put("name", new BencodeByteArray(DEFAULT_NAME.getBytes(StandardCharsets.UTF_8)));
+        map.put("files", new BencodeList(files));
+        map.put("piece length", new BencodeNumber(DEFAULT_PIECE_LENGTH));
+        map.put("pieces", createPiecesBlob((int) ((totalLength + DEFAULT_PIECE_LENGTH - 1) / DEFAULT_PIECE_LENGTH)));
+
+        return map;
+    }
+
+    public static Map<String, BencodeElement<?>> createContentInfoMap(byte[] content, int pieceLength) {
+        Map<String, BencodeElement<?>> map = new LinkedHashMap<>();
+        int pieceCount = (content.length + pieceLength - 1) / pieceLength;
+        byte[] pieces = new byte[20 * pieceCount];
+
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+
+            for (int i = 0; i < pieceCount; i++) {
+                int offset = i * pieceLength;
+                sha1.update(content, offset, Math.min(pieceLength, content.length - offset));
+                System.arraycopy(sha1.digest(), 0, pieces, i * 20, 20);
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        map.put("name", new BencodeByteArray(DEFAULT_NAME.getBytes(StandardCharsets.UTF_8)));
+        map.put("length", new BencodeNumber((long) content.length));
+        map.put("piece length", new BencodeNumber((long) pieceLength));
+        map.put("pieces", new BencodeByteArray(pieces));
 
         return map;
     }
@@ -47,6 +103,17 @@ public class TorrentMetainfoFactory {
         return new BencodeByteArray(blob);
     }
 
+    public static byte[] createTorrentBytes(byte[] rawInfo) {
+        byte[] prefix = ("d8:announce" + DEFAULT_ANNOUNCE.length() + ":" + DEFAULT_ANNOUNCE + "4:info").getBytes(StandardCharsets.UTF_8);
+        byte[] torrent = new byte[prefix.length + rawInfo.length + 1];
+
+        System.arraycopy(prefix, 0, torrent, 0, prefix.length);
+        System.arraycopy(rawInfo, 0, torrent, prefix.length, rawInfo.length);
+        torrent[torrent.length - 1] = 'e';
+
+        return torrent;
+    }
+
     public static BencodeByteArray createInvalidPiecesBlob() {
         return new BencodeByteArray(new byte[21]);
     }
@@ -1,17 +1,29 @@
 package com.github.devrafaht.core.metainfo;
 
+import core.bencode.BencodeByteArray;
 import core.bencode.BencodeDictionary;
 import core.bencode.BencodeElement;
+import core.bencode.BencodeList;
 import core.bencode.BencodeNumber;
+import core.metainfo.FileSpan;
 import core.metainfo.TorrentMetainfo;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -88,6 +100,88 @@ class TorrentMetainfoTest {
         assertEquals((byte)'b', metainfo.getPieceHashes().get(1)[0]);
     }
 
+    @Test
+    @DisplayName("Should expose piece hashes by index from the flat hash table")
+    void shouldExposePieceHashesByIndex() throws IOException {
+        Map<String, BencodeElement<?>> infoMap = TorrentMetainfoFactory.createValidInfoMap();
+        infoMap.put("length", new BencodeNumber(3 * TorrentMetainfoFactory.DEFAULT_PIECE_LENGTH));
+        infoMap.put("pieces", TorrentMetainfoFactory.createPiecesBlob(3));
+        BencodeDictionary root = TorrentMetainfoFactory.createValidRootDictionary(new BencodeDictionary(infoMap));
+
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(root);
+
+        byte[] hash = new byte[TorrentMetainfo.PIECE_HASH_LENGTH];
+        metainfo.pieceHash(2, hash);
+
+        assertEquals(3, metainfo.getPieceCount());
+        assertEquals((byte) 'c', hash[19]);
+        assertTrue(metainfo.matches(2, hash));
+        assertFalse(metainfo.matches(1, hash));
+        assertThrows(IndexOutOfBoundsException.class, () -> metainfo.pieceHash(3, hash));
+    }
+
+    @Test
+    @DisplayName("Should reject a hash count that does not match the content length")
+    void shouldRejectPieceCountMismatch() {
+        for (int count : new int[]{ 1, 3 }) {
+            Map<String, BencodeElement<?>> infoMap = TorrentMetainfoFactory.createValidInfoMap();
+            infoMap.put("pieces", TorrentMetainfoFactory.createPiecesBlob(count));
+            BencodeDictionary root = TorrentMetainfoFactory.createValidRootDictionary(new BencodeDictionary(infoMap));
+
+            Exception e = assertThrows(IOException.class, () -> TorrentMetainfo.createFrom(root));
+            assertEquals("'pieces' has " + count + " hashes but the content needs 2.", e.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Should load a multi-file torrent and map pieces onto files")
+    void shouldLoadMultiFileTorrent() throws IOException {
+        Map<String, BencodeElement<?>> infoMap = TorrentMetainfoFactory.createMultiFileInfoMap(300L, 0L, 500L, 224L);
+        BencodeDictionary root = TorrentMetainfoFactory.createValidRootDictionary(new BencodeDictionary(infoMap));
+
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(root);
+
+        assertTrue(metainfo.isMultiFile());
+        assertEquals(1024L, metainfo.getLength());
+        assertEquals(4, metainfo.getFiles().size());
+        assertEquals(List.of("disc", "file2.bin"), metainfo.getFiles().get(2).getPath());
+        assertEquals(2, metainfo.getPieceCount());
+
+        List<FileSpan> spans = metainfo.getPieceSpans(0);
+
+        assertEquals(2, spans.size());
+        assertEquals(0, spans.get(0).getFileIndex());
+        assertEquals(300L, spans.get(0).getLength());
+        assertEquals(2, spans.get(1).getFileIndex());
+        assertEquals(0L, spans.get(1).getFileOffset());
+        assertEquals(212L, spans.get(1).getLength());
+    }
+
+    @Test
+    @DisplayName("Should expose a single-file torrent as one file named after the torrent")
+    void shouldExposeSingleFileAsOneFile() throws IOException {
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary());
+
+        assertFalse(metainfo.isMultiFile());
+        assertEquals(1, metainfo.getFiles().size());
+        assertEquals(List.of(TorrentMetainfoFactory.DEFAULT_NAME), metainfo.getFiles().get(0).getPath());
+        assertEquals(TorrentMetainfoFactory.DEFAULT_LENGTH, metainfo.getLayout().getTotalLength());
+    }
+
+    @Test
+    @DisplayName("Should reject file paths that escape the torrent directory")
+    void shouldRejectUnsafeFilePath() {
+        Map<String, BencodeElement<?>> infoMap = TorrentMetainfoFactory.createMultiFileInfoMap(1024L);
+        Map<String, BencodeElement<?>> file = new LinkedHashMap<>();
+        file.put("length", new BencodeNumber(1024L));
+        file.put("path", new BencodeList(List.of(new BencodeByteArray("..".getBytes(StandardCharsets.UTF_8)))));
+        infoMap.put("files", new BencodeList(List.of(new BencodeDictionary(file))));
+        BencodeDictionary root = TorrentMetainfoFactory.createValidRootDictionary(new BencodeDictionary(infoMap));
+
+        Exception e = assertThrows(IOException.class, () -> TorrentMetainfo.createFrom(root));
+        assertEquals("Invalid file path in 'files' list.", e.getMessage());
+    }
+
     @Test
     @DisplayName("Should throw exception when root element is not a dictionary")
     void shouldThrowExceptionWhenRootNotDictionary() {
@@ -118,4 +212,90 @@ class TorrentMetainfoTest {
         Exception e = assertThrows(IOException.class, () -> TorrentMetainfo.createFrom(root));
         assertEquals("Invalid 'pieces' field size.", e.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should hash the original info bytes when loading from a file")
+    void shouldHashRawInfoBytesFromFile(@TempDir Path directory) throws IOException, NoSuchAlgorithmException {
+        byte[] rawInfo = createInfoWithBinaryKey();
+        Path file = directory.resolve("binary-key.torrent");
+        Files.write(file, TorrentMetainfoFactory.createTorrentBytes(rawInfo));
+
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(file);
+
+        assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(rawInfo), metainfo.getInfoHash());
+        assertEquals(TorrentMetainfoFactory.DEFAULT_NAME, metainfo.getName());
+        assertEquals(TorrentMetainfoFactory.DEFAULT_LENGTH, metainfo.getLength());
+    }
+
+    @Test
+    @DisplayName("Should hash the original info bytes when loading from a direct buffer")
+    void shouldHashRawInfoBytesFromBuffer() throws IOException, NoSuchAlgorithmException {
+        byte[] rawInfo = createInfoWithBinaryKey();
+        byte[] torrent = TorrentMetainfoFactory.createTorrentBytes(rawInfo);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(torrent.length).put(torrent).flip();
+
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(buffer);
+
+        assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(rawInfo), metainfo.getInfoHash());
+    }
+
+    @Test
+    @DisplayName("Should throw exception when 'info' is missing")
+    void shouldThrowExceptionWhenMissingInfo() {
+        byte[] data = ("d8:announce" + TorrentMetainfoFactory.DEFAULT_ANNOUNCE.length() + ":" + TorrentMetainfoFactory.DEFAULT_ANNOUNCE + "e")
+                .getBytes(StandardCharsets.UTF_8);
+
+        Exception e = assertThrows(IOException.class, () -> TorrentMetainfo.createFrom(ByteBuffer.wrap(data)));
+        assertEquals("Missing 'info'", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should read tracker tiers from 'announce-list'")
+    void shouldReadAnnounceList() throws IOException {
+        Map<String, BencodeElement<?>> rootMap = new LinkedHashMap<>(TorrentMetainfoFactory.createValidRootDictionary().getValue());
+        rootMap.put("announce-list", new BencodeList(List.of(
+                new BencodeList(List.of(bytes("udp://a.example:80"), bytes("http://b.example/announce"))),
+                new BencodeList(List.of()),
+                new BencodeList(List.of(bytes("http://c.example/announce"))))));
+
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(new BencodeDictionary(rootMap));
+
+        assertEquals(List.of(List.of("udp://a.example:80", "http://b.example/announce"), List.of("http://c.example/announce")),
+                metainfo.getAnnounceList());
+        assertEquals(TorrentMetainfoFactory.DEFAULT_ANNOUNCE, metainfo.getAnnounce());
+    }
+
+    @Test
+    @DisplayName("Should use 'announce' as the only tier without 'announce-list'")
+    void shouldFallBackToSingleTier() throws IOException {
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary());
+
+        assertEquals(List.of(List.of(TorrentMetainfoFactory.DEFAULT_ANNOUNCE)), metainfo.getAnnounceList());
+    }
+
+    @Test
+    @DisplayName("Should accept 'announce-list' without 'announce'")
+    void shouldAcceptAnnounceListWithoutAnnounce() throws IOException {
+        Map<String, BencodeElement<?>> rootMap = new LinkedHashMap<>();
+        rootMap.put("announce-list", new BencodeList(List.of(new BencodeList(List.of(bytes("udp://a.example:80"))))));
+        rootMap.put("info", new BencodeDictionary(TorrentMetainfoFactory.createValidInfoMap()));
+
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(new BencodeDictionary(rootMap));
+
+        assertEquals("udp://a.example:80", metainfo.getAnnounce());
+    }
+
+    private static BencodeByteArray bytes(String value) {
+        return new BencodeByteArray(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A key that is not valid UTF-8 cannot survive the String round trip, so re-encoding would change the hash.
+    private static byte[] createInfoWithBinaryKey() throws IOException {
+        ByteArrayOutputStream info = new ByteArrayOutputStream();
+        info.write("d6:lengthi1024e4:name10:ubuntu.iso12:piece lengthi512e6:pieces40:aaaaaaaaaaaaaaaaaaaabbbbbbbbbbbbbbbbbbbb".getBytes(StandardCharsets.UTF_8));
+        info.write("2:".getBytes(StandardCharsets.UTF_8));
+        info.write(new byte[]{ (byte) 0xFF, (byte) 0xFE });
+        info.write("i1ee".getBytes(StandardCharsets.UTF_8));
+        return info.toByteArray();
+    }
+}
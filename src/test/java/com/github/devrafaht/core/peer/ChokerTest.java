@@ -0,0 +1,223 @@
+package com.github.devrafaht.core.peer;
+
+import com.github.devrafaht.core.tracker.ManualClock;
+import core.peer.Choker;
+import core.peer.PeerConnection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Choker Tests")
+class ChokerTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final Choker choker = new Choker(clock, new Random(11), 3);
+
+    // A peer that sends us (and receives from us) a fixed number of bytes per second.
+    private static class SimulatedPeer {
+
+        private final PeerConnection connection = mock(PeerConnection.class);
+        private Choker.Peer peer;
+        private long downloadPerSecond;
+        private long uploadPerSecond;
+    }
+
+    private SimulatedPeer addPeer(long downloadPerSecond, long uploadPerSecond, boolean interested) {
+        SimulatedPeer simulated = new SimulatedPeer();
+        when(simulated.connection.isOpen()).thenReturn(true);
+        simulated.peer = choker.addPeer(simulated.connection);
+        simulated.peer.setInterested(interested);
+        simulated.downloadPerSecond = downloadPerSecond;
+        simulated.uploadPerSecond = uploadPerSecond;
+        return simulated;
+    }
+
+    // Advances the clock by one rechoke interval, feeding every peer's meters each second, then rechokes.
+    private void runInterval(List<SimulatedPeer> peers) {
+        for (int second = 0; second < Choker.RECHOKE_INTERVAL.toSeconds(); second++) {
+            for (SimulatedPeer simulated : peers) {
+                simulated.peer.getDownloadRate().add(simulated.downloadPerSecond);
+                simulated.peer.getUploadRate().add(simulated.uploadPerSecond);
+            }
+            clock.advance(Duration.ofSeconds(1));
+        }
+
+        choker.rechoke();
+    }
+
+    private Set<SimulatedPeer> unchoked(List<SimulatedPeer> peers) {
+        Set<SimulatedPeer> unchoked = new HashSet<>();
+
+        for (SimulatedPeer simulated : peers) {
+            if (!choker.isChoked(simulated.connection)) {
+                unchoked.add(simulated);
+            }
+        }
+
+        return unchoked;
+    }
+
+    private SimulatedPeer optimistic(List<SimulatedPeer> peers) {
+        for (SimulatedPeer simulated : peers) {
+            if (simulated.connection == choker.getOptimisticUnchoke()) {
+                return simulated;
+            }
+        }
+
+        return null;
+    }
+
+    @Test
+    @DisplayName("Should unchoke the fastest uploaders to us plus one optimistic peer")
+    void shouldUnchokeFastestPeers() {
+        List<SimulatedPeer> peers = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            peers.add(addPeer((i + 1) * 10_000L, 0, true));
+        }
+
+        runInterval(peers);
+
+        Set<SimulatedPeer> unchoked = unchoked(peers);
+        SimulatedPeer optimistic = optimistic(peers);
+
+        assertEquals(4, unchoked.size());
+        assertTrue(unchoked.containsAll(peers.subList(5, 8)));
+        assertNotNull(optimistic);
+        assertTrue(peers.subList(0, 5).contains(optimistic));
+        assertTrue(unchoked.contains(optimistic));
+
+        for (SimulatedPeer simulated : unchoked) {
+            verify(simulated.connection).sendUnchoke();
+        }
+
+        for (SimulatedPeer simulated : peers) {
+            verify(simulated.connection, never()).sendChoke();
+        }
+    }
+
+    @Test
+    @DisplayName("Should rank by our upload rate when seeding")
+    void shouldRankByUploadWhenSeeding() {
+        List<SimulatedPeer> peers = new ArrayList<>();
+
+        for (int i = 0; i < 6; i++) {
+            peers.add(addPeer((6 - i) * 10_000L, (i + 1) * 10_000L, true));
+        }
+
+        choker.setSeeding(true);
+        runInterval(peers);
+
+        assertTrue(unchoked(peers).containsAll(peers.subList(3, 6)));
+        assertFalse(peers.subList(3, 6).contains(optimistic(peers)));
+    }
+
+    @Test
+    @DisplayName("Should leave peers that are not interested choked")
+    void shouldIgnoreUninterestedPeers() {
+        List<SimulatedPeer> peers = new ArrayList<>();
+        SimulatedPeer fastButUninterested = addPeer(1_000_000, 0, false);
+        peers.add(fastButUninterested);
+        peers.add(addPeer(1000, 0, true));
+
+        runInterval(peers);
+
+        assertTrue(choker.isChoked(fastButUninterested.connection));
+        assertEquals(1, unchoked(peers).size());
+        verifyNoInteractions(ignoreStubs(fastButUninterested.connection));
+
+        fastButUninterested.peer.setInterested(true);
+        runInterval(peers);
+
+        assertFalse(choker.isChoked(fastButUninterested.connection));
+    }
+
+    @Test
+    @DisplayName("Should move a regular slot to a peer that became faster")
+    void shouldReactToRateChanges() {
+        List<SimulatedPeer> peers = new ArrayList<>();
+
+        for (int i = 0; i < 6; i++) {
+            peers.add(addPeer((i + 1) * 10_000L, 0, true));
+        }
+
+        runInterval(peers);
+        SimulatedPeer slowest = peers.get(3);
+        assertTrue(unchoked(peers).contains(slowest));
+
+        // Peer 0 speeds up past everyone; within two windows it outranks the slowest regular peer.
+        peers.get(0).downloadPerSecond = 200_000;
+        runInterval(peers);
+        runInterval(peers);
+
+        assertFalse(choker.isChoked(peers.get(0).connection));
+        assertNotEquals(peers.get(0), optimistic(peers));
+
+        if (optimistic(peers) != slowest) {
+            assertTrue(choker.isChoked(slowest.connection));
+            verify(slowest.connection).sendChoke();
+        }
+    }
+
+    @Test
+    @DisplayName("Should rotate the optimistic unchoke every 30 seconds across all choked peers")
+    void shouldRotateOptimisticUnchoke() {
+        List<SimulatedPeer> peers = new ArrayList<>();
+
+        for (int i = 0; i < 7; i++) {
+            peers.add(addPeer((i + 1) * 10_000L, 0, true));
+        }
+
+        Set<SimulatedPeer> chosen = new HashSet<>();
+        runInterval(peers);
+
+        for (int rotation = 0; rotation < 20; rotation++) {
+            SimulatedPeer current = optimistic(peers);
+            chosen.add(current);
+
+            // Two more rechokes within the 30 seconds keep the same optimistic peer.
+            runInterval(peers);
+            assertSame(current, optimistic(peers));
+            runInterval(peers);
+            assertSame(current, optimistic(peers));
+            runInterval(peers);
+        }
+
+        assertEquals(new HashSet<>(peers.subList(0, 4)), chosen);
+
+        for (SimulatedPeer simulated : peers.subList(4, 7)) {
+            verify(simulated.connection, never()).sendChoke();
+        }
+    }
+
+    @Test
+    @DisplayName("Should hand the optimistic slot on when its peer disconnects")
+    void shouldReplaceDisconnectedOptimisticPeer() {
+        List<SimulatedPeer> peers = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            peers.add(addPeer((i + 1) * 10_000L, 0, true));
+        }
+
+        runInterval(peers);
+        SimulatedPeer first = optimistic(peers);
+        choker.removePeer(first.connection);
+        peers.remove(first);
+        assertNull(choker.getOptimisticUnchoke());
+
+        runInterval(peers);
+
+        assertNotNull(optimistic(peers));
+        assertEquals(4, choker.getPeerCount());
+        assertEquals(4, unchoked(peers).size());
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.devrafaht.core.peer;
+
+import core.peer.Handshake;
+import core.peer.MessageCodec;
+import core.peer.PeerMessageHandler;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MessageCodec Tests")
+class MessageCodecTest {
+
+    // Records every callback as a readable string.
+    private static class RecordingHandler implements PeerMessageHandler {
+
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onKeepAlive() {
+            events.add("keep-alive");
+        }
+
+        @Override
+        public void onChoke() {
+            events.add("choke");
+        }
+
+        @Override
+        public void onUnchoke() {
+            events.add("unchoke");
+        }
+
+        @Override
+        public void onInterested() {
+            events.add("interested");
+        }
+
+        @Override
+        public void onNotInterested() {
+            events.add("not-interested");
+        }
+
+        @Override
+        public void onHave(int pieceIndex) {
+            events.add("have " + pieceIndex);
+        }
+
+        @Override
+        public void onBitfield(ByteBuffer bitfield) {
+            events.add("bitfield " + bitfield.remaining());
+        }
+
+        @Override
+        public void onRequest(int pieceIndex, int begin, int length) {
+            events.add("request " + pieceIndex + " " + begin + " " + length);
+        }
+
+        @Override
+        public void onPiece(int pieceIndex, int begin, ByteBuffer block) {
+            events.add("piece " + pieceIndex + " " + begin + " " + StandardCharsets.US_ASCII.decode(block));
+        }
+
+        @Override
+        public void onCancel(int pieceIndex, int begin, int length) {
+            events.add("cancel " + pieceIndex + " " + begin + " " + length);
+        }
+
+        @Override
+        public void onUnknown(int messageId, ByteBuffer payload) {
+            events.add("unknown " + messageId + " " + payload.remaining());
+        }
+    }
+
+    @Test
+    @DisplayName("Should round-trip every core message")
+    void shouldRoundTripMessages() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        byte[] block = "data".getBytes(StandardCharsets.US_ASCII);
+
+        MessageCodec.writeKeepAlive(buffer);
+        MessageCodec.writeState(buffer, MessageCodec.CHOKE);
+        MessageCodec.writeState(buffer, MessageCodec.UNCHOKE);
+        MessageCodec.writeState(buffer, MessageCodec.INTERESTED);
+        MessageCodec.writeState(buffer, MessageCodec.NOT_INTERESTED);
+        MessageCodec.writeHave(buffer, 42);
+        MessageCodec.writeBitfield(buffer, new byte[]{ (byte) 0xF0, 0x01 });
+        MessageCodec.writeRequest(buffer, 1, 16384, 16384);
+        MessageCodec.writePieceHeader(buffer, 1, 16384, block.length);
+        buffer.put(block);
+        MessageCodec.writeCancel(buffer, 1, 16384, 16384);
+        buffer.putInt(3).put((byte) 20).put((byte) 0).put((byte) 0);
+
+        RecordingHandler handler = new RecordingHandler();
+        MessageCodec.decode(buffer.flip(), handler);
+
+        assertEquals(List.of("keep-alive", "choke", "unchoke", "interested", "not-interested", "have 42", "bitfield 2",
+                "request 1 16384 16384", "piece 1 16384 data", "cancel 1 16384 16384", "unknown 20 2"), handler.events);
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    @DisplayName("Should leave a partial frame unread")
+    void shouldStopAtPartialFrame() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        MessageCodec.writeHave(buffer, 7);
+        MessageCodec.writeRequest(buffer, 1, 2, 3);
+        buffer.flip().limit(buffer.limit() - 5);
+
+        RecordingHandler handler = new RecordingHandler();
+        MessageCodec.decode(buffer, handler);
+
+        assertEquals(List.of("have 7"), handler.events);
+        assertEquals(MessageCodec.HAVE_FRAME_LENGTH, buffer.position());
+        assertEquals(MessageCodec.REQUEST_FRAME_LENGTH, MessageCodec.nextFrameLength(buffer));
+    }
+
+    @Test
+    @DisplayName("Should reject oversized frames and malformed payload lengths")
+    void shouldRejectInvalidFrames() {
+        ByteBuffer oversized = ByteBuffer.allocate(8).putInt(MessageCodec.MAX_MESSAGE_LENGTH + 1).flip();
+        ByteBuffer badHave = ByteBuffer.allocate(8).putInt(2).put(MessageCodec.HAVE).put((byte) 1).flip();
+
+        assertThrows(IOException.class, () -> MessageCodec.decode(oversized, new RecordingHandler()));
+        assertThrows(IOException.class, () -> MessageCodec.decode(badHave, new RecordingHandler()));
+    }
+
+    @Test
+    @DisplayName("Should round-trip the handshake and reject other protocols")
+    void shouldRoundTripHandshake() throws IOException {
+        byte[] infoHash = new byte[20];
+        byte[] peerId = "-BC0001-123456789012".getBytes(StandardCharsets.US_ASCII);
+        infoHash[0] = 9;
+
+        ByteBuffer buffer = ByteBuffer.allocate(Handshake.LENGTH);
+        new Handshake(new byte[8], infoHash, peerId).write(buffer);
+        Handshake parsed = Handshake.read(buffer.flip());
+
+        assertTrue(parsed.matches(infoHash));
+        assertArrayEquals(peerId, parsed.getPeerId());
+        assertFalse(buffer.hasRemaining());
+
+        buffer.put(5, (byte) 'X').position(0);
+        assertThrows(IOException.class, () -> Handshake.read(buffer));
+    }
+}
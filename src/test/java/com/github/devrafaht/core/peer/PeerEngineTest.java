@@ -0,0 +1,176 @@
+package com.github.devrafaht.core.peer;
+
+import core.buffer.BufferPool;
+import core.peer.PeerConnection;
+import core.peer.PeerEngine;
+import core.peer.PeerMessageHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PeerEngine Tests")
+class PeerEngineTest {
+
+    private static final byte[] INFO_HASH = filled(20, 7);
+    private static final byte[] SEEDER_ID = "-BC0001-seederseeder".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LEECHER_ID = "-BC0001-leecherleech".getBytes(StandardCharsets.US_ASCII);
+
+    private final BufferPool bufferPool = new BufferPool(BufferPool.DEFAULT_MAX_BYTES, true);
+    private PeerEngine seeder;
+    private PeerEngine leecher;
+    private InetSocketAddress seederAddress;
+    private final BlockingQueue<String> leecherEvents = new LinkedBlockingQueue<>();
+
+    private static byte[] filled(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        seeder = new PeerEngine(SEEDER_ID, 2, bufferPool);
+        leecher = new PeerEngine(LEECHER_ID, 2, bufferPool);
+
+        // The seeder answers interest with its bitfield and serves requests with blocks of the piece index.
+        seeder.addTorrent(INFO_HASH, connection -> new PeerMessageHandler() {
+            @Override
+            public void onInterested() {
+                connection.sendBitfield(filled(4, 0xFF));
+                connection.sendUnchoke();
+            }
+
+            @Override
+            public void onRequest(int pieceIndex, int begin, int length) {
+                connection.sendPiece(pieceIndex, begin, ByteBuffer.wrap(filled(length, pieceIndex)));
+            }
+        });
+
+        leecher.addTorrent(INFO_HASH, connection -> new PeerMessageHandler() {
+            @Override
+            public void onBitfield(ByteBuffer bitfield) {
+                leecherEvents.add("bitfield " + bitfield.remaining());
+            }
+
+            @Override
+            public void onUnchoke() {
+                leecherEvents.add("unchoke");
+            }
+
+            @Override
+            public void onPiece(int pieceIndex, int begin, ByteBuffer block) {
+                boolean intact = true;
+                while (block.hasRemaining()) {
+                    intact &= block.get() == (byte) pieceIndex;
+                }
+                leecherEvents.add("piece " + pieceIndex + " " + begin + " " + intact);
+            }
+
+            @Override
+            public void onClose(IOException cause) {
+                leecherEvents.add("closed");
+            }
+        });
+
+        seederAddress = seeder.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        leecher.close();
+        seeder.close();
+        bufferPool.checkLeaks();
+    }
+
+    @Test
+    @DisplayName("Should handshake and exchange framed messages in both directions")
+    void shouldExchangeMessages() throws Exception {
+        PeerConnection connection = leecher.connect(seederAddress, INFO_HASH).get(5, TimeUnit.SECONDS);
+
+        assertArrayEquals(SEEDER_ID, connection.getRemoteHandshake().getPeerId());
+
+        connection.sendInterested();
+        assertEquals("bitfield 4", leecherEvents.poll(5, TimeUnit.SECONDS));
+        assertEquals("unchoke", leecherEvents.poll(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 8; i++) {
+            connection.sendRequest(i, 0, 16 * 1024);
+        }
+
+        for (int i = 0; i < 8; i++) {
+            assertEquals("piece " + i + " 0 true", leecherEvents.poll(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("Should deliver frames larger than the connection read buffer")
+    void shouldDeliverLargeFrames() throws Exception {
+        PeerConnection connection = leecher.connect(seederAddress, INFO_HASH).get(5, TimeUnit.SECONDS);
+
+        connection.sendRequest(3, 0, 200 * 1024);
+        connection.sendRequest(4, 0, 100);
+
+        assertEquals("piece 3 0 true", leecherEvents.poll(5, TimeUnit.SECONDS));
+        assertEquals("piece 4 0 true", leecherEvents.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should reject peers for torrents that are not registered")
+    void shouldRejectUnknownTorrent() throws Exception {
+        byte[] otherHash = filled(20, 1);
+        leecher.addTorrent(otherHash, connection -> new PeerMessageHandler() { });
+
+        CompletableFuture<PeerConnection> result = leecher.connect(seederAddress, otherHash);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, exception.getCause());
+    }
+
+    @Test
+    @DisplayName("Should multiplex many connections over a few selector threads")
+    void shouldHandleManyConnections() throws Exception {
+        List<CompletableFuture<PeerConnection>> results = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            results.add(leecher.connect(seederAddress, INFO_HASH));
+        }
+
+        for (CompletableFuture<PeerConnection> result : results) {
+            result.get(10, TimeUnit.SECONDS).sendRequest(9, 0, 1024);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals("piece 9 0 true", leecherEvents.poll(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(200, leecher.getConnectionCount());
+    }
+
+    @Test
+    @DisplayName("Should notify the handler when the remote side closes")
+    void shouldNotifyOnRemoteClose() throws Exception {
+        PeerConnection connection = leecher.connect(seederAddress, INFO_HASH).get(5, TimeUnit.SECONDS);
+
+        seeder.close();
+
+        assertEquals("closed", leecherEvents.poll(5, TimeUnit.SECONDS));
+        assertFalse(connection.isOpen());
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.devrafaht.core.peer;
+
+import core.buffer.BufferPool;
+import core.peer.PeerConnection;
+import core.peer.PeerEngine;
+import core.peer.PeerMessageHandler;
+import core.peer.PeerNetwork;
+import core.peer.VirtualThreadPeerNetwork;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+// Manual loopback comparison of the peer transports; not run by the test suite.
+// Usage: PeerTransportBenchmark [connections] [blocksPerConnection]
+//
+// Memory per endpoint is split into heap, direct buffers and process RSS, which also covers thread stacks
+// and other native memory; RSS is only available on Linux. Buffers that the transports take from the
+// BufferPool are also reported per endpoint, after the transfer, since the pool reserves slabs as I/O needs them.
+// Seeder and leecher share this JVM and one BufferPool, so every connection has two endpoints here; all
+// memory figures are divided by 2 * connections to give the cost of one endpoint.
+public final class PeerTransportBenchmark {
+
+    private static final byte[] INFO_HASH = new byte[20];
+    private static final int BLOCK_SIZE = 16 * 1024;
+
+    private PeerTransportBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int blocks = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        run("selector", connections, blocks, (id, pool) -> {
+            try {
+                return new PeerEngine(id, PeerEngine.DEFAULT_SELECTOR_THREADS, pool);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        run("virtual-thread", connections, blocks, (id, pool) -> new VirtualThreadPeerNetwork(id, Thread.ofVirtual().name("peer-", 0).factory(), pool));
+        run("platform-thread", connections, blocks, (id, pool) -> new VirtualThreadPeerNetwork(id, Thread.ofPlatform().daemon().factory(), pool));
+    }
+
+    private static void run(String name, int connections, int blocks, BiFunction<byte[], BufferPool, PeerNetwork> transport) throws Exception {
+        byte[] block = new byte[BLOCK_SIZE];
+        CountDownLatch received = new CountDownLatch(connections * blocks);
+        BufferPool bufferPool = new BufferPool();
+
+        try (PeerNetwork seeder = transport.apply(peerId("seeder"), bufferPool);
+             PeerNetwork leecher = transport.apply(peerId("leecher"), bufferPool)) {
+            seeder.addTorrent(INFO_HASH, connection -> new PeerMessageHandler() {
+                @Override
+                public void onRequest(int pieceIndex, int begin, int length) {
+                    connection.sendPiece(pieceIndex, begin, ByteBuffer.wrap(block, 0, length));
+                }
+            });
+            leecher.addTorrent(INFO_HASH, connection -> new PeerMessageHandler() {
+                @Override
+                public void onPiece(int pieceIndex, int begin, ByteBuffer block) {
+                    received.countDown();
+                }
+            });
+
+            InetSocketAddress address = seeder.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            long heapBefore = usedHeap();
+            long directBefore = usedDirect();
+            long rssBefore = residentSetSize();
+            List<PeerConnection> peers = new ArrayList<>();
+
+            for (int i = 0; i < connections; i++) {
+                peers.add(leecher.connect(address, INFO_HASH).get(30, TimeUnit.SECONDS));
+            }
+
+            int endpoints = 2 * connections;
+            long heapPerEndpoint = (usedHeap() - heapBefore) / endpoints;
+            long directPerEndpoint = (usedDirect() - directBefore) / endpoints;
+            long rssPerEndpoint = rssBefore < 0 ? -1 : (residentSetSize() - rssBefore) / endpoints;
+            long start = System.nanoTime();
+
+            for (int i = 0; i < blocks; i++) {
+                for (PeerConnection peer : peers) {
+                    peer.sendRequest(i, 0, BLOCK_SIZE);
+                }
+            }
+
+            if (!received.await(5, TimeUnit.MINUTES)) {
+                throw new IllegalStateException(name + ": timed out with " + received.getCount() + " blocks missing");
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double mebibytes = (double) connections * blocks * BLOCK_SIZE / (1024 * 1024);
+
+            System.out.printf("%-16s %6d connections  %8.1f MiB/s  per endpoint: ~%6d heap, ~%6d direct, ~%7d RSS,"
+                            + " ~%6d pooled bytes  %5d live threads%n",
+                    name, connections, mebibytes / seconds, heapPerEndpoint, directPerEndpoint, rssPerEndpoint,
+                    bufferPool.getReservedBytes() / endpoints, Thread.activeCount());
+        }
+    }
+
+    private static byte[] peerId(String name) {
+        byte[] id = new byte[20];
+        byte[] prefix = ("-BC0001-" + name).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(prefix, 0, id, 0, Math.min(prefix.length, id.length));
+        return id;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+
+        return 0;
+    }
+
+    // Returns -1 where /proc is not available.
+    private static long residentSetSize() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux.
+        }
+
+        return -1;
+    }
+}
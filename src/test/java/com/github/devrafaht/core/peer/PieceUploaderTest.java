@@ -0,0 +1,226 @@
+package com.github.devrafaht.core.peer;
+
+import com.github.devrafaht.core.metainfo.TorrentMetainfoFactory;
+import core.bencode.BencodeDictionary;
+import core.buffer.BufferPool;
+import core.metainfo.TorrentMetainfo;
+import core.peer.PeerConnection;
+import core.peer.PeerEngine;
+import core.peer.PeerMessageHandler;
+import core.peer.PeerNetwork;
+import core.peer.PieceUploader;
+import core.peer.VirtualThreadPeerNetwork;
+import core.storage.FileChannelPool;
+import core.storage.FileRegion;
+import core.storage.PieceStorage;
+import core.storage.ReadCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("PieceUploader Tests")
+class PieceUploaderTest {
+
+    private static final int BLOCK = PieceStorage.BLOCK_SIZE;
+    private static final int PIECE_LENGTH = 4 * BLOCK;
+    private static final byte[] SEEDER_ID = "-BC0001-seederseeder".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LEECHER_ID = "-BC0001-leecherleech".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    private Path directory;
+
+    private final FileChannelPool pool = new FileChannelPool();
+    private final List<PeerNetwork> networks = new ArrayList<>();
+    private final BufferPool bufferPool = new BufferPool(BufferPool.DEFAULT_MAX_BYTES, true);
+    private byte[] content;
+    private PieceStorage storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        content = new byte[PIECE_LENGTH * 8 + 1000];
+        new Random(4).nextBytes(content);
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createContentInfoMap(content, PIECE_LENGTH))));
+        Files.write(directory.resolve(TorrentMetainfoFactory.DEFAULT_NAME), content);
+        storage = new PieceStorage(metainfo, directory, pool);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (PeerNetwork network : networks) {
+            network.close();
+        }
+
+        pool.close();
+    }
+
+    private byte[] expected(int pieceIndex, int begin, int length) {
+        int offset = pieceIndex * PIECE_LENGTH + begin;
+        return Arrays.copyOfRange(content, offset, offset + length);
+    }
+
+    private static byte[] drain(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    @DisplayName("Should send uncached blocks as file regions")
+    void shouldSendUncachedBlockAsRegion() throws IOException {
+        PeerConnection connection = mock(PeerConnection.class);
+        ReadCache cache = new ReadCache(4L * PIECE_LENGTH);
+
+        new PieceUploader(storage, cache, bufferPool).upload(connection, 2, BLOCK, BLOCK);
+
+        ArgumentCaptor<FileRegion> region = ArgumentCaptor.forClass(FileRegion.class);
+        verify(connection).sendPiece(eq(2), eq(BLOCK), region.capture());
+        verify(connection, never()).sendPiece(anyInt(), anyInt(), any(ByteBuffer.class));
+
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        try (FileRegion captured = region.getValue()) {
+            assertTrue(captured.transferTo(Channels.newChannel(sent)));
+        }
+
+        assertArrayEquals(expected(2, BLOCK, BLOCK), sent.toByteArray());
+        assertEquals(0, cache.getCachedPieceCount());
+        assertEquals(1, cache.getStats(storage.getMetainfo().getInfoHash()).getMisses());
+        assertEquals(0, cache.getStats(storage.getMetainfo().getInfoHash()).getHitRatio());
+    }
+
+    @Test
+    @DisplayName("Should serve cached blocks from memory")
+    void shouldSendCachedBlockFromMemory() throws IOException {
+        PeerConnection connection = mock(PeerConnection.class);
+        ReadCache cache = new ReadCache(4L * PIECE_LENGTH);
+        cache.readBlock(storage, 5, 0, ByteBuffer.allocate(BLOCK));
+
+        new PieceUploader(storage, cache, bufferPool).upload(connection, 5, 2 * BLOCK, BLOCK);
+
+        ArgumentCaptor<ByteBuffer> block = ArgumentCaptor.forClass(ByteBuffer.class);
+        verify(connection).sendPiece(eq(5), eq(2 * BLOCK), block.capture());
+        verify(connection, never()).sendPiece(anyInt(), anyInt(), any(FileRegion.class));
+        assertArrayEquals(expected(5, 2 * BLOCK, BLOCK), drain(block.getValue()));
+        assertEquals(1, cache.getStats(storage.getMetainfo().getInfoHash()).getHits());
+    }
+
+    @Test
+    @DisplayName("Should read blocks spanning files through the cache")
+    void shouldBufferBlocksSpanningFiles() throws IOException {
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createMultiFileInfoMap(300L, 724L))));
+        PieceStorage multiFile = new PieceStorage(metainfo, directory.resolve("multi"), pool);
+        multiFile.preallocate();
+        PeerConnection connection = mock(PeerConnection.class);
+        ReadCache cache = new ReadCache(4L * PIECE_LENGTH);
+
+        new PieceUploader(multiFile, cache, bufferPool).upload(connection, 0, 200, 200);
+
+        verify(connection).sendPiece(eq(0), eq(200), argThat((ByteBuffer block) -> block.remaining() == 200));
+        verify(connection, never()).sendPiece(anyInt(), anyInt(), any(FileRegion.class));
+        assertEquals(1, cache.getCachedPieceCount());
+        bufferPool.checkLeaks();
+    }
+
+    @Test
+    @DisplayName("Should reject requests outside the torrent")
+    void shouldRejectInvalidRequests() {
+        PeerConnection connection = mock(PeerConnection.class);
+        PieceUploader uploader = new PieceUploader(storage, new ReadCache(PIECE_LENGTH), bufferPool);
+
+        assertThrows(IOException.class, () -> uploader.upload(connection, 9, 0, BLOCK));
+        assertThrows(IOException.class, () -> uploader.upload(connection, 8, 0, BLOCK));
+        assertThrows(IOException.class, () -> uploader.upload(connection, 0, Integer.MAX_VALUE, BLOCK));
+        assertThrows(IOException.class, () -> uploader.upload(connection, 0, 0, PieceUploader.MAX_BLOCK_LENGTH + 1));
+        verifyNoInteractions(connection);
+    }
+
+    @Test
+    @DisplayName("Should deliver zero-copy blocks intact over both transports")
+    void shouldDeliverOverBothTransports() throws Exception {
+        ThreadFactory threads = Thread.ofVirtual().factory();
+        assertDelivery(new PeerEngine(SEEDER_ID, 1, bufferPool), new VirtualThreadPeerNetwork(LEECHER_ID, threads, bufferPool));
+        assertDelivery(new VirtualThreadPeerNetwork(SEEDER_ID, threads, bufferPool), new PeerEngine(LEECHER_ID, 1, bufferPool));
+
+        for (PeerNetwork network : networks) {
+            network.close();
+        }
+
+        // Blocking connections hand their buffers back as their threads wind down.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bufferPool.getBuffersInUse() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        bufferPool.checkLeaks();
+    }
+
+    private void assertDelivery(PeerNetwork seeder, PeerNetwork leecher) throws Exception {
+        byte[] infoHash = storage.getMetainfo().getInfoHash();
+        PieceUploader uploader = new PieceUploader(storage, new ReadCache(2L * PIECE_LENGTH), bufferPool);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        networks.add(seeder);
+        networks.add(leecher);
+
+        seeder.addTorrent(infoHash, connection -> new PeerMessageHandler() {
+            @Override
+            public void onRequest(int pieceIndex, int begin, int length) {
+                try {
+                    uploader.upload(connection, pieceIndex, begin, length);
+                } catch (IOException e) {
+                    connection.close();
+                }
+            }
+        });
+        leecher.addTorrent(infoHash, connection -> new PeerMessageHandler() {
+            @Override
+            public void onPiece(int pieceIndex, int begin, ByteBuffer block) {
+                int length = block.remaining();
+                boolean intact = Arrays.equals(expected(pieceIndex, begin, length), drain(block));
+                received.add(pieceIndex + " " + begin + " " + length + " " + intact);
+            }
+        });
+
+        InetSocketAddress address = seeder.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        PeerConnection connection = leecher.connect(address, infoHash).get(5, TimeUnit.SECONDS);
+
+        for (int piece = 0; piece < 8; piece++) {
+            for (int block = 0; block < 4; block++) {
+                connection.sendRequest(piece, block * BLOCK, BLOCK);
+            }
+        }
+        connection.sendRequest(8, 0, 1000);
+
+        for (int piece = 0; piece < 8; piece++) {
+            for (int block = 0; block < 4; block++) {
+                assertEquals(piece + " " + block * BLOCK + " " + BLOCK + " true", received.poll(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals("8 0 1000 true", received.poll(5, TimeUnit.SECONDS));
+    }
+}
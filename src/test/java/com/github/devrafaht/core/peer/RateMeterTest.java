@@ -0,0 +1,122 @@
+package com.github.devrafaht.core.peer;
+
+import com.github.devrafaht.core.tracker.ManualClock;
+import core.peer.RateMeter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RateMeter Tests")
+class RateMeterTest {
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    @DisplayName("Should measure a steady rate over the window")
+    void shouldMeasureSteadyRate() {
+        RateMeter meter = new RateMeter(clock);
+
+        for (int i = 0; i < 300; i++) {
+            meter.add(1000);
+            clock.advance(Duration.ofMillis(100));
+        }
+
+        assertEquals(10_000, meter.getRate(), 600);
+        assertEquals(300_000, meter.getTotal());
+    }
+
+    @Test
+    @DisplayName("Should use the meter's lifetime until the window is full")
+    void shouldAverageOverLifetime() {
+        RateMeter meter = new RateMeter(clock);
+
+        meter.add(5000);
+        clock.advance(Duration.ofMillis(500));
+        assertEquals(5000, meter.getRate(), 1e-9);
+
+        clock.advance(Duration.ofMillis(2000));
+        assertEquals(2000, meter.getRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should forget transfers older than the window")
+    void shouldRollOff() {
+        RateMeter meter = new RateMeter(clock, Duration.ofSeconds(5));
+
+        for (int i = 0; i < 10; i++) {
+            meter.add(4000);
+            clock.advance(Duration.ofSeconds(1));
+        }
+
+        assertEquals(4000, meter.getRate(), 1000);
+
+        clock.advance(Duration.ofSeconds(5));
+        assertEquals(0, meter.getRate());
+
+        // A whole lap later the stale buckets must not be counted again.
+        meter.add(1000);
+        assertEquals(1000.0 / 4, meter.getRate(), 1e-9);
+        assertEquals(41_000, meter.getTotal());
+    }
+
+    @Test
+    @DisplayName("Should follow a rate change within one window")
+    void shouldTrackRateChange() {
+        RateMeter meter = new RateMeter(clock, Duration.ofSeconds(10));
+
+        for (int i = 0; i < 20; i++) {
+            meter.add(1000);
+            clock.advance(Duration.ofSeconds(1));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            meter.add(50_000);
+            clock.advance(Duration.ofSeconds(1));
+        }
+
+        assertEquals(50_000, meter.getRate(), 6000);
+    }
+
+    @Test
+    @DisplayName("Should not lose bytes added concurrently")
+    void shouldCountConcurrentAdds() throws Exception {
+        RateMeter meter = new RateMeter(clock);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> workers = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < 8; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        meter.add(3);
+                    }
+                }));
+            }
+
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        clock.advance(Duration.ofSeconds(2));
+        assertEquals(1_200_000, meter.getTotal());
+        assertEquals(600_000, meter.getRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should reject windows shorter than a bucket")
+    void shouldRejectShortWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new RateMeter(clock, Duration.ofMillis(500)));
+        assertThrows(IllegalArgumentException.class, () -> new RateMeter(clock).add(-1));
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.devrafaht.core.peer;
+
+import com.github.devrafaht.core.tracker.ManualClock;
+import core.peer.PeerConnection;
+import core.peer.RequestPipeline;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("RequestPipeline Tests")
+class RequestPipelineTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final PeerConnection connection = mock(PeerConnection.class);
+    // Deepest queue seen after the first five seconds of a simulation.
+    private int maxSettledDepth;
+
+    // Serves requests FIFO at a fixed rate behind a fixed one-way delay and returns the bytes delivered.
+    private long simulate(RequestPipeline pipeline, long bytesPerSecond, long rttMillis, int seconds) {
+        ArrayDeque<long[]> inFlight = new ArrayDeque<>();
+        double serverFreeAt = 0;
+        long delivered = 0;
+        int nextBlock = 0;
+
+        for (long now = 0; now < seconds * 1000L; now++) {
+            while (!inFlight.isEmpty() && inFlight.peek()[1] <= now) {
+                int block = (int) inFlight.poll()[0];
+                assertTrue(pipeline.onBlock(block, 0, RequestPipeline.BLOCK_SIZE));
+                delivered += RequestPipeline.BLOCK_SIZE;
+            }
+
+            while (pipeline.request(nextBlock, 0, RequestPipeline.BLOCK_SIZE)) {
+                double arrival = now + rttMillis / 2.0;
+                serverFreeAt = Math.max(serverFreeAt, arrival) + RequestPipeline.BLOCK_SIZE * 1000.0 / bytesPerSecond;
+                inFlight.add(new long[]{ nextBlock++, (long) Math.ceil(serverFreeAt + rttMillis / 2.0) });
+            }
+
+            if (now >= 5000) {
+                maxSettledDepth = Math.max(maxSettledDepth, pipeline.getDepth());
+            }
+
+            clock.advance(Duration.ofMillis(1));
+        }
+
+        return delivered;
+    }
+
+    @Test
+    @DisplayName("Should grow the queue to the bandwidth-delay product of the peer")
+    void shouldConvergeOnBandwidthDelayProduct() {
+        RequestPipeline pipeline = new RequestPipeline(connection, clock);
+        long rate = 10L * 1024 * 1024;
+
+        // Long enough for several RTT windows to expire, which must not compound the depth.
+        long delivered = simulate(pipeline, rate, 50, 60);
+
+        // 10 MiB/s x 50 ms is 32 blocks in flight; the pipeline keeps up to twice that queued.
+        assertTrue(pipeline.getDepth() >= 32 && pipeline.getDepth() <= 80, "depth " + pipeline.getDepth());
+        assertTrue(maxSettledDepth <= 80, "max depth " + maxSettledDepth);
+        assertTrue(pipeline.getRttMillis() >= 50 && pipeline.getRttMillis() <= 55, "rtt " + pipeline.getRttMillis());
+        assertTrue(delivered > rate * 60 * 0.8, "delivered " + delivered);
+    }
+
+    @Test
+    @DisplayName("Should stay shallow for slow peers on short round trips")
+    void shouldStayShallowForSlowPeers() {
+        RequestPipeline pipeline = new RequestPipeline(connection, clock);
+
+        simulate(pipeline, 64 * 1024, 20, 10);
+
+        // Each block takes 250 ms to serve, so about one block is in flight per round trip.
+        assertTrue(pipeline.getDepth() <= 3, "depth " + pipeline.getDepth());
+    }
+
+    @Test
+    @DisplayName("Should cap the queue depth for fast peers on long round trips")
+    void shouldCapDepth() {
+        RequestPipeline pipeline = new RequestPipeline(connection, clock, 300);
+
+        long delivered = simulate(pipeline, 125_000_000L, 100, 10);
+
+        assertEquals(300, pipeline.getDepth());
+        // 300 blocks per 100 ms round trip bounds the rate at about 49 MB/s; a fixed depth of 4 would reach 0.6 MB/s.
+        assertTrue(delivered > 300L * RequestPipeline.BLOCK_SIZE * 10 * 6, "delivered " + delivered);
+    }
+
+    @Test
+    @DisplayName("Should only accept requested blocks and forget requests on cancel and choke")
+    void shouldTrackOutstandingRequests() {
+        RequestPipeline pipeline = new RequestPipeline(connection, clock);
+
+        for (int i = 0; i < RequestPipeline.INITIAL_DEPTH; i++) {
+            assertTrue(pipeline.request(i, 0, 100));
+        }
+
+        assertFalse(pipeline.request(9, 0, 100));
+        verify(connection, times(RequestPipeline.INITIAL_DEPTH)).sendRequest(anyInt(), eq(0), eq(100));
+
+        assertFalse(pipeline.onBlock(9, 0, 100));
+        assertTrue(pipeline.cancel(0, 0, 100));
+        verify(connection).sendCancel(0, 0, 100);
+        assertFalse(pipeline.onBlock(0, 0, 100));
+
+        assertEquals(3, pipeline.onChoke());
+        assertEquals(0, pipeline.getOutstanding());
+        assertEquals(RequestPipeline.INITIAL_DEPTH, pipeline.capacity());
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.devrafaht.core.peer;
+
+import core.buffer.BufferPool;
+import core.peer.PeerConnection;
+import core.peer.PeerEngine;
+import core.peer.PeerMessageHandler;
+import core.peer.PeerNetwork;
+import core.peer.PeerTransport;
+import core.peer.VirtualThreadPeerNetwork;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("VirtualThreadPeerNetwork Tests")
+class VirtualThreadPeerNetworkTest {
+
+    private static final byte[] INFO_HASH = filled(20, 7);
+    private static final byte[] SEEDER_ID = "-BC0001-seederseeder".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LEECHER_ID = "-BC0001-leecherleech".getBytes(StandardCharsets.US_ASCII);
+
+    private final List<PeerNetwork> networks = new ArrayList<>();
+    private final BufferPool bufferPool = new BufferPool(BufferPool.DEFAULT_MAX_BYTES, true);
+    private final BlockingQueue<String> leecherEvents = new LinkedBlockingQueue<>();
+
+    private static byte[] filled(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+
+    @AfterEach
+    void tearDown() throws IOException, InterruptedException {
+        for (PeerNetwork network : networks) {
+            network.close();
+        }
+
+        // Blocking connections hand their buffers back as their threads wind down.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bufferPool.getBuffersInUse() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        bufferPool.checkLeaks();
+    }
+
+    private PeerNetwork virtualThreads(byte[] peerId) {
+        return new VirtualThreadPeerNetwork(peerId, Thread.ofVirtual().name("peer-", 0).factory(), bufferPool);
+    }
+
+    private PeerNetwork selector(byte[] peerId) throws IOException {
+        return new PeerEngine(peerId, 1, bufferPool);
+    }
+
+    // Serves every request with a block filled with the piece index.
+    private InetSocketAddress startSeeder(PeerNetwork seeder) throws IOException {
+        networks.add(seeder);
+        seeder.addTorrent(INFO_HASH, connection -> new PeerMessageHandler() {
+            @Override
+            public void onInterested() {
+                connection.sendUnchoke();
+            }
+
+            @Override
+            public void onRequest(int pieceIndex, int begin, int length) {
+                connection.sendPiece(pieceIndex, begin, ByteBuffer.wrap(filled(length, pieceIndex)));
+            }
+        });
+        return seeder.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    private PeerNetwork startLeecher(PeerNetwork leecher) {
+        networks.add(leecher);
+        leecher.addTorrent(INFO_HASH, connection -> new PeerMessageHandler() {
+            @Override
+            public void onUnchoke() {
+                leecherEvents.add("unchoke");
+            }
+
+            @Override
+            public void onPiece(int pieceIndex, int begin, ByteBuffer block) {
+                int length = block.remaining();
+                boolean intact = true;
+                while (block.hasRemaining()) {
+                    intact &= block.get() == (byte) pieceIndex;
+                }
+                leecherEvents.add("piece " + pieceIndex + " " + length + " " + intact);
+            }
+
+            @Override
+            public void onClose(IOException cause) {
+                leecherEvents.add("closed");
+            }
+        });
+        return leecher;
+    }
+
+    private void assertExchange(PeerNetwork leecher, InetSocketAddress seederAddress) throws Exception {
+        PeerConnection connection = leecher.connect(seederAddress, INFO_HASH).get(5, TimeUnit.SECONDS);
+
+        assertArrayEquals(SEEDER_ID, connection.getRemoteHandshake().getPeerId());
+
+        connection.sendInterested();
+        assertEquals("unchoke", leecherEvents.poll(5, TimeUnit.SECONDS));
+
+        connection.sendRequest(1, 0, 16 * 1024);
+        connection.sendRequest(2, 0, 200 * 1024);
+        connection.sendRequest(3, 0, 100);
+
+        assertEquals("piece 1 16384 true", leecherEvents.poll(5, TimeUnit.SECONDS));
+        assertEquals("piece 2 204800 true", leecherEvents.poll(5, TimeUnit.SECONDS));
+        assertEquals("piece 3 100 true", leecherEvents.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should exchange messages, including frames larger than the buffers, over virtual threads")
+    void shouldExchangeMessages() throws Exception {
+        InetSocketAddress seederAddress = startSeeder(virtualThreads(SEEDER_ID));
+
+        assertExchange(startLeecher(virtualThreads(LEECHER_ID)), seederAddress);
+    }
+
+    @Test
+    @DisplayName("Should interoperate with the selector transport in both directions")
+    void shouldInteroperateWithSelectorTransport() throws Exception {
+        InetSocketAddress selectorSeeder = startSeeder(selector(SEEDER_ID));
+        assertExchange(startLeecher(virtualThreads(LEECHER_ID)), selectorSeeder);
+
+        InetSocketAddress virtualSeeder = startSeeder(virtualThreads(SEEDER_ID));
+        assertExchange(startLeecher(selector(LEECHER_ID)), virtualSeeder);
+    }
+
+    @Test
+    @DisplayName("Should serve many concurrent connections with one virtual thread pair each")
+    void shouldHandleManyConnections() throws Exception {
+        InetSocketAddress seederAddress = startSeeder(virtualThreads(SEEDER_ID));
+        PeerNetwork leecher = startLeecher(virtualThreads(LEECHER_ID));
+        List<CompletableFuture<PeerConnection>> results = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            results.add(leecher.connect(seederAddress, INFO_HASH));
+        }
+
+        for (CompletableFuture<PeerConnection> result : results) {
+            result.get(10, TimeUnit.SECONDS).sendRequest(9, 0, 1024);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals("piece 9 1024 true", leecherEvents.poll(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(200, leecher.getConnectionCount());
+    }
+
+    @Test
+    @DisplayName("Should notify the handler when the remote side closes")
+    void shouldNotifyOnRemoteClose() throws Exception {
+        PeerNetwork seeder = virtualThreads(SEEDER_ID);
+        InetSocketAddress seederAddress = startSeeder(seeder);
+        PeerConnection connection = startLeecher(virtualThreads(LEECHER_ID))
+                .connect(seederAddress, INFO_HASH).get(5, TimeUnit.SECONDS);
+
+        seeder.close();
+
+        assertEquals("closed", leecherEvents.poll(5, TimeUnit.SECONDS));
+        assertFalse(connection.isOpen());
+    }
+
+    @Test
+    @DisplayName("Should pick the transport from the system property")
+    void shouldReadConfiguredTransport() throws IOException {
+        String previous = System.getProperty(PeerTransport.PROPERTY);
+
+        try {
+            System.clearProperty(PeerTransport.PROPERTY);
+            assertEquals(PeerTransport.SELECTOR, PeerTransport.configured());
+
+            System.setProperty(PeerTransport.PROPERTY, "virtual-thread");
+            assertEquals(PeerTransport.VIRTUAL_THREAD, PeerTransport.configured());
+
+            PeerNetwork network = PeerTransport.configured().open(LEECHER_ID);
+            networks.add(network);
+            assertInstanceOf(VirtualThreadPeerNetwork.class, network);
+        } finally {
+            if (previous == null) {
+                System.clearProperty(PeerTransport.PROPERTY);
+            } else {
+                System.setProperty(PeerTransport.PROPERTY, previous);
+            }
+        }
+    }
+}
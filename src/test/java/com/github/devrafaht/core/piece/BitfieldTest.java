@@ -0,0 +1,127 @@
+package com.github.devrafaht.core.piece;
+
+import core.piece.Bitfield;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Bitfield Tests")
+class BitfieldTest {
+
+    private static Bitfield random(int size, long seed) {
+        Random random = new Random(seed);
+        Bitfield bits = new Bitfield(size);
+        for (int i = 0; i < size; i++) {
+            if (random.nextBoolean()) {
+                bits.set(i);
+            }
+        }
+        return bits;
+    }
+
+    @Test
+    @DisplayName("Should encode piece 0 as the most significant bit of the first byte")
+    void shouldUseWireOrder() throws IOException {
+        Bitfield bits = new Bitfield(10);
+        bits.set(0);
+        bits.set(8);
+        bits.set(9);
+
+        assertArrayEquals(new byte[]{ (byte) 0x80, (byte) 0xC0 }, bits.toWire());
+        assertEquals(bits, Bitfield.fromWire(new byte[]{ (byte) 0x80, (byte) 0xC0 }, 10));
+    }
+
+    @Test
+    @DisplayName("Should round-trip through the wire format across word boundaries")
+    void shouldRoundTripWireFormat() throws IOException {
+        for (int size : new int[]{ 0, 1, 63, 64, 65, 127, 128, 1000, 4099 }) {
+            Bitfield bits = random(size, size);
+            ByteBuffer buffer = ByteBuffer.allocate(Bitfield.wireLength(size) + 3);
+            buffer.put((byte) 1);
+            bits.writeTo(buffer);
+
+            assertEquals(1 + Bitfield.wireLength(size), buffer.position());
+            assertEquals(bits, Bitfield.fromWire(buffer.flip().position(1), size));
+            assertEquals(0, buffer.remaining());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject wrong lengths and spare bits")
+    void shouldRejectMalformedBitfields() {
+        assertThrows(IOException.class, () -> Bitfield.fromWire(new byte[3], 10));
+        assertThrows(IOException.class, () -> Bitfield.fromWire(new byte[]{ 0, 0x20 }, 10));
+    }
+
+    @Test
+    @DisplayName("Should match BitSet for iteration, counting and set operations")
+    void shouldMatchBitSet() {
+        int size = 777;
+        Bitfield a = random(size, 1);
+        Bitfield b = random(size, 2);
+        BitSet expectedA = new BitSet();
+        BitSet expectedB = new BitSet();
+        for (int i = 0; i < size; i++) {
+            if (a.get(i)) {
+                expectedA.set(i);
+            }
+            if (b.get(i)) {
+                expectedB.set(i);
+            }
+        }
+
+        assertEquals(expectedA.cardinality(), a.cardinality());
+        for (int i = 0; i <= size; i++) {
+            assertEquals(expectedA.nextSetBit(i) < size ? expectedA.nextSetBit(i) : -1, a.nextSetBit(i));
+            assertEquals(Math.min(size, expectedA.nextClearBit(i)), a.nextClearBit(i));
+        }
+
+        Bitfield difference = a.copy();
+        difference.andNot(b);
+        expectedA.andNot(expectedB);
+        assertEquals(expectedA.cardinality(), difference.cardinality());
+        for (int i = expectedA.nextSetBit(0); i >= 0; i = expectedA.nextSetBit(i + 1)) {
+            assertTrue(difference.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Should set ranges within and across words")
+    void shouldSetRanges() {
+        Bitfield bits = new Bitfield(200);
+        bits.set(3, 5);
+        bits.set(60, 130);
+
+        assertEquals(72, bits.cardinality());
+        assertEquals(3, bits.nextSetBit(0));
+        assertEquals(60, bits.nextSetBit(5));
+        assertEquals(130, bits.nextClearBit(60));
+
+        bits.setAll();
+        assertTrue(bits.isFull());
+        assertEquals(25, bits.toWire().length);
+    }
+
+    @Test
+    @DisplayName("Should report whether a peer has any piece we lack")
+    void shouldDetectMissingPieces() {
+        Bitfield ours = new Bitfield(300);
+        Bitfield peer = new Bitfield(300);
+        ours.set(0, 299);
+
+        assertFalse(peer.hasAnyMissingFrom(ours));
+
+        peer.set(0, 299);
+        assertFalse(peer.hasAnyMissingFrom(ours));
+
+        peer.set(299);
+        assertTrue(peer.hasAnyMissingFrom(ours));
+        assertThrows(IllegalArgumentException.class, () -> peer.hasAnyMissingFrom(new Bitfield(10)));
+    }
+}
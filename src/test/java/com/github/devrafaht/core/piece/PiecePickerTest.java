@@ -0,0 +1,195 @@
+package com.github.devrafaht.core.piece;
+
+import core.piece.Bitfield;
+import core.piece.Block;
+import core.piece.PiecePicker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PiecePicker Tests")
+class PiecePickerTest {
+
+    private static final int PIECE_LENGTH = 4 * PiecePicker.BLOCK_SIZE;
+
+    private static Bitfield pieces(int size, int... indexes) {
+        Bitfield bits = new Bitfield(size);
+        for (int index : indexes) {
+            bits.set(index);
+        }
+        return bits;
+    }
+
+    private static Bitfield all(int count) {
+        Bitfield bits = new Bitfield(count);
+        bits.setAll();
+        return bits;
+    }
+
+    private static PiecePicker picker(int pieceCount) {
+        return new PiecePicker(pieceCount, PIECE_LENGTH, (long) pieceCount * PIECE_LENGTH, new Random(1));
+    }
+
+    @Test
+    @DisplayName("Should pick the rarest piece the peer has")
+    void shouldPickRarestFirst() {
+        PiecePicker picker = picker(8);
+        picker.peerBitfield(all(8));
+        picker.peerBitfield(all(8));
+        picker.peerBitfield(pieces(8, 0, 1, 2, 4, 5, 6, 7));
+        picker.peerHave(5);
+
+        // Piece 3 is held by two peers, every other piece by three or four.
+        List<Block> blocks = picker.pick("peer", all(8), 4);
+
+        assertEquals(4, blocks.size());
+        assertTrue(blocks.stream().allMatch(block -> block.getPieceIndex() == 3));
+        assertEquals(new Block(3, 3 * PiecePicker.BLOCK_SIZE, PiecePicker.BLOCK_SIZE), blocks.get(3));
+        assertEquals(4, picker.getAvailability(5));
+    }
+
+    @Test
+    @DisplayName("Should break availability ties randomly")
+    void shouldBreakTiesRandomly() {
+        Set<Integer> first = new HashSet<>();
+        Random seeds = new Random(3);
+
+        for (int run = 0; run < 20; run++) {
+            PiecePicker picker = new PiecePicker(16, PIECE_LENGTH, 16L * PIECE_LENGTH, new Random(seeds.nextLong()));
+            picker.peerBitfield(all(16));
+            first.add(picker.pick("peer", all(16), 1).getFirst().getPieceIndex());
+        }
+
+        assertTrue(first.size() > 1);
+    }
+
+    @Test
+    @DisplayName("Should finish partially downloaded pieces before starting rarer ones")
+    void shouldPrioritizePartialPieces() {
+        PiecePicker picker = picker(4);
+        picker.peerBitfield(all(4));
+        picker.peerBitfield(pieces(4, 3));
+
+        List<Block> first = picker.pick("a", pieces(4, 3), 2);
+        assertEquals(List.of(3, 3), first.stream().map(Block::getPieceIndex).toList());
+
+        // Piece 3 is the most common piece, but it is already in progress.
+        List<Block> second = picker.pick("b", all(4), 3);
+
+        assertEquals(new Block(3, 2 * PiecePicker.BLOCK_SIZE, PiecePicker.BLOCK_SIZE), second.get(0));
+        assertEquals(new Block(3, 3 * PiecePicker.BLOCK_SIZE, PiecePicker.BLOCK_SIZE), second.get(1));
+        assertNotEquals(3, second.get(2).getPieceIndex());
+    }
+
+    @Test
+    @DisplayName("Should skip completed pieces and retry pieces that failed verification")
+    void shouldTrackCompletionAndFailure() {
+        PiecePicker picker = picker(2);
+        picker.peerBitfield(all(2));
+        picker.markCompleted(0);
+
+        List<Block> blocks = picker.pick("peer", all(2), 10);
+        assertEquals(4, blocks.size());
+        assertTrue(blocks.stream().allMatch(block -> block.getPieceIndex() == 1));
+
+        for (Block block : blocks) {
+            picker.blockReceived(1, block.getBegin());
+        }
+        picker.pieceFailed(1);
+
+        assertFalse(picker.isPartial(1));
+        assertEquals(4, picker.pick("peer", all(2), 10).size());
+        assertEquals(1, picker.getCompletedCount());
+    }
+
+    @Test
+    @DisplayName("Should size the last block of a short final piece")
+    void shouldSizeLastBlock() {
+        PiecePicker picker = new PiecePicker(2, PIECE_LENGTH, PIECE_LENGTH + 100, new Random(1));
+        picker.peerHave(1);
+
+        List<Block> blocks = picker.pick("peer", pieces(2, 1), 10);
+
+        assertEquals(List.of(new Block(1, 0, 100)), blocks);
+    }
+
+    @Test
+    @DisplayName("Should duplicate outstanding blocks to other peers in endgame")
+    void shouldEnterEndgame() {
+        PiecePicker picker = picker(1);
+        picker.peerBitfield(all(1));
+        picker.peerBitfield(all(1));
+
+        List<Block> first = picker.pick("a", all(1), 10);
+        assertEquals(4, first.size());
+        assertTrue(picker.isEndgame());
+        assertTrue(picker.pick("a", all(1), 10).isEmpty());
+
+        assertFalse(picker.blockReceived(0, 0));
+        List<Block> duplicates = picker.pick("b", all(1), 10);
+
+        assertEquals(3, duplicates.size());
+        assertFalse(duplicates.contains(first.getFirst()));
+        assertTrue(picker.pick("c", all(1), 10).isEmpty());
+
+        picker.blockReceived(0, PiecePicker.BLOCK_SIZE);
+        picker.blockReceived(0, 2 * PiecePicker.BLOCK_SIZE);
+        assertTrue(picker.blockReceived(0, 3 * PiecePicker.BLOCK_SIZE));
+    }
+
+    @Test
+    @DisplayName("Should hand a failed request to the next peer")
+    void shouldReleaseFailedRequests() {
+        PiecePicker picker = picker(1);
+        picker.peerBitfield(all(1));
+
+        picker.pick("a", all(1), 1);
+        picker.requestFailed("a", 0, 0);
+
+        assertEquals(List.of(new Block(0, 0, PiecePicker.BLOCK_SIZE)), picker.pick("b", all(1), 1));
+    }
+
+    @Test
+    @DisplayName("Should keep buckets consistent under many availability updates")
+    void shouldKeepBucketsConsistent() {
+        int count = 100_000;
+        PiecePicker picker = picker(count);
+        Random random = new Random(7);
+        int[] expected = new int[count];
+
+        for (int peer = 0; peer < 50; peer++) {
+            Bitfield bits = new Bitfield(count);
+            for (int i = 0; i < 2000; i++) {
+                bits.set(random.nextInt(count));
+            }
+            picker.peerBitfield(bits);
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                expected[i]++;
+            }
+
+            if (peer % 5 == 4) {
+                picker.peerLost(bits);
+                for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                    expected[i]--;
+                }
+            }
+        }
+
+        int rarest = -1;
+        for (int i = 0; i < count; i++) {
+            assertEquals(expected[i], picker.getAvailability(i));
+            if (expected[i] > 0 && (rarest < 0 || expected[i] < expected[rarest])) {
+                rarest = i;
+            }
+        }
+
+        int picked = picker.pick("peer", all(count), 1).getFirst().getPieceIndex();
+        assertEquals(expected[rarest], expected[picked]);
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.devrafaht.core.storage;
+
+import core.storage.FileChannelPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FileChannelPool Tests")
+class FileChannelPoolTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Should close the least recently used idle channel when over the limit")
+    void shouldEvictLeastRecentlyUsedChannel() throws IOException {
+        try (FileChannelPool pool = new FileChannelPool(2)) {
+            FileChannel first;
+
+            try (FileChannelPool.Lease lease = pool.acquire(directory.resolve("a"), true)) {
+                first = lease.channel();
+            }
+            try (FileChannelPool.Lease lease = pool.acquire(directory.resolve("b"), true)) {
+                assertTrue(lease.channel().isOpen());
+            }
+            try (FileChannelPool.Lease lease = pool.acquire(directory.resolve("c"), true)) {
+                assertTrue(lease.channel().isOpen());
+            }
+
+            assertEquals(2, pool.openFileCount());
+            assertFalse(first.isOpen());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reuse the open channel for the same path")
+    void shouldReuseChannelForSamePath() throws IOException {
+        try (FileChannelPool pool = new FileChannelPool(2)) {
+            Path path = directory.resolve("a");
+
+            try (FileChannelPool.Lease first = pool.acquire(path, true);
+                 FileChannelPool.Lease second = pool.acquire(path, false)) {
+                assertSame(first.channel(), second.channel());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should never close a channel that is still leased")
+    void shouldKeepLeasedChannelsOpen() throws IOException {
+        try (FileChannelPool pool = new FileChannelPool(1)) {
+            FileChannelPool.Lease held = pool.acquire(directory.resolve("a"), true);
+
+            try (FileChannelPool.Lease other = pool.acquire(directory.resolve("b"), true)) {
+                assertTrue(held.channel().isOpen());
+                assertEquals(2, pool.openFileCount());
+            }
+
+            assertEquals(1, pool.openFileCount());
+            held.close();
+            assertTrue(held.channel().isOpen());
+        }
+    }
+
+    @Test
+    @DisplayName("Should open files read-only until a write needs them")
+    void shouldOpenReadOnlyUntilWrite() throws IOException {
+        Path path = Files.write(directory.resolve("a"), new byte[16]);
+
+        try (FileChannelPool pool = new FileChannelPool(2)) {
+            assertThrows(NoSuchFileException.class, () -> pool.acquire(directory.resolve("missing"), false));
+
+            FileChannelPool.Lease reader = pool.acquire(path, false);
+            FileChannel readOnly = reader.channel();
+            assertThrows(NonWritableChannelException.class, () -> readOnly.write(ByteBuffer.allocate(1), 0));
+
+            try (FileChannelPool.Lease writer = pool.acquire(path, true)) {
+                assertNotSame(readOnly, writer.channel());
+                assertEquals(1, writer.channel().write(ByteBuffer.allocate(1), 0));
+                assertTrue(readOnly.isOpen());
+                assertEquals(2, pool.openFileCount());
+            }
+
+            reader.close();
+            assertFalse(readOnly.isOpen());
+            assertEquals(1, pool.openFileCount());
+
+            try (FileChannelPool.Lease next = pool.acquire(path, false)) {
+                assertEquals(1, next.channel().write(ByteBuffer.allocate(1), 0));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should close superseded channels that are still leased on close")
+    void shouldCloseSupersededChannelsOnClose() throws IOException {
+        Path path = Files.write(directory.resolve("a"), new byte[16]);
+        FileChannelPool pool = new FileChannelPool(2);
+
+        FileChannelPool.Lease reader = pool.acquire(path, false);
+        FileChannelPool.Lease writer = pool.acquire(path, true);
+
+        pool.close();
+
+        assertFalse(reader.channel().isOpen());
+        assertFalse(writer.channel().isOpen());
+        assertEquals(0, pool.openFileCount());
+    }
+}
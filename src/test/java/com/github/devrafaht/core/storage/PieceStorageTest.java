@@ -0,0 +1,133 @@
+package com.github.devrafaht.core.storage;
+
+import com.github.devrafaht.core.metainfo.TorrentMetainfoFactory;
+import core.bencode.BencodeDictionary;
+import core.metainfo.TorrentMetainfo;
+import core.storage.FileChannelPool;
+import core.storage.FileRegion;
+import core.storage.PieceStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PieceStorage Tests")
+class PieceStorageTest {
+
+    @TempDir
+    private Path directory;
+
+    private final FileChannelPool pool = new FileChannelPool(2);
+
+    @AfterEach
+    void closePool() throws IOException {
+        pool.close();
+    }
+
+    private TorrentMetainfo multiFileTorrent() throws IOException {
+        return TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createMultiFileInfoMap(300L, 0L, 500L, 224L))));
+    }
+
+    @Test
+    @DisplayName("Should preallocate every file at its final size")
+    void shouldPreallocateFiles() throws IOException {
+        PieceStorage storage = new PieceStorage(multiFileTorrent(), directory, pool);
+
+        storage.preallocate();
+
+        Path base = directory.resolve(TorrentMetainfoFactory.DEFAULT_NAME).resolve("disc");
+        assertEquals(300L, Files.size(base.resolve("file0.bin")));
+        assertEquals(0L, Files.size(base.resolve("file1.bin")));
+        assertEquals(500L, Files.size(base.resolve("file2.bin")));
+        assertEquals(224L, Files.size(base.resolve("file3.bin")));
+        assertTrue(pool.openFileCount() <= 2);
+    }
+
+    @Test
+    @DisplayName("Should write and read back a block spanning several files")
+    void shouldWriteAndReadBlockAcrossFiles() throws IOException {
+        PieceStorage storage = new PieceStorage(multiFileTorrent(), directory, pool);
+        storage.preallocate();
+
+        byte[] block = new byte[400];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = (byte) i;
+        }
+
+        storage.writeBlock(0, 100, ByteBuffer.wrap(block));
+
+        ByteBuffer readBack = ByteBuffer.allocateDirect(400);
+        storage.readBlock(0, 100, readBack);
+
+        byte[] result = new byte[400];
+        readBack.flip().get(result);
+        assertArrayEquals(block, result);
+
+        byte[] secondFile = Files.readAllBytes(storage.getFilePath(2));
+        assertEquals(block[200], secondFile[0]);
+    }
+
+    @Test
+    @DisplayName("Should reject blocks that do not fit in the piece")
+    void shouldRejectBlockOutsidePiece() throws IOException {
+        PieceStorage storage = new PieceStorage(multiFileTorrent(), directory, pool);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> storage.writeBlock(1, 500, ByteBuffer.allocate(100)));
+    }
+
+    @Test
+    @DisplayName("Should not create files when reading missing data")
+    void shouldNotCreateFilesOnRead() throws IOException {
+        PieceStorage storage = new PieceStorage(multiFileTorrent(), directory, pool);
+
+        assertThrows(NoSuchFileException.class, () -> storage.readBlock(0, 0, ByteBuffer.allocate(10)));
+        assertFalse(Files.exists(storage.getFilePath(0)));
+    }
+
+    @Test
+    @DisplayName("Should open blocks within one file as transferable regions")
+    void shouldOpenRegionWithinFile() throws IOException {
+        PieceStorage storage = new PieceStorage(multiFileTorrent(), directory, pool);
+        storage.preallocate();
+
+        byte[] block = new byte[200];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = (byte) (i * 3);
+        }
+        storage.writeBlock(1, 0, ByteBuffer.wrap(block));
+
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+
+        // Piece 1 starts at torrent offset 512, inside file2 which covers [300, 800).
+        try (FileRegion region = storage.openRegion(1, 0, 200)) {
+            assertEquals(200, region.remaining());
+            assertTrue(region.transferTo(Channels.newChannel(sent)));
+            assertEquals(0, region.remaining());
+        }
+
+        assertArrayEquals(block, sent.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Should not open a region for a block spanning files")
+    void shouldNotOpenRegionAcrossFiles() throws IOException {
+        PieceStorage storage = new PieceStorage(multiFileTorrent(), directory, pool);
+        storage.preallocate();
+
+        assertNull(storage.openRegion(0, 100, 400));
+        assertNull(storage.openRegion(1, 0, 300));
+        assertNull(storage.openRegion(0, 0, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> storage.openRegion(1, 500, 100));
+    }
+}
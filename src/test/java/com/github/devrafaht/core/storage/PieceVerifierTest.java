@@ -0,0 +1,120 @@
+package com.github.devrafaht.core.storage;
+
+import com.github.devrafaht.core.metainfo.TorrentMetainfoFactory;
+import core.bencode.BencodeDictionary;
+import core.metainfo.TorrentMetainfo;
+import core.piece.Bitfield;
+import core.storage.FileChannelPool;
+import core.storage.PieceStorage;
+import core.storage.PieceVerifier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PieceVerifier Tests")
+class PieceVerifierTest {
+
+    private static final int PIECE_LENGTH = 1024;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Should report only pieces whose data matches their hash")
+    void shouldVerifyMatchingPieces() throws IOException {
+        byte[] content = new byte[PIECE_LENGTH * 40 + 100];
+        new Random(7).nextBytes(content);
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createContentInfoMap(content, PIECE_LENGTH))));
+
+        byte[] onDisk = content.clone();
+        onDisk[PIECE_LENGTH * 3 + 5] ^= 1;
+        onDisk[onDisk.length - 1] ^= 1;
+        Files.write(directory.resolve(TorrentMetainfoFactory.DEFAULT_NAME), onDisk);
+
+        AtomicInteger lastProgress = new AtomicInteger();
+
+        ForkJoinPool workers = new ForkJoinPool(4);
+
+        try (FileChannelPool pool = new FileChannelPool()) {
+            PieceVerifier verifier = new PieceVerifier(new PieceStorage(metainfo, directory, pool), workers);
+            Bitfield verified = verifier.verifyAll((checked, total) -> lastProgress.accumulateAndGet(checked, Math::max));
+
+            assertEquals(metainfo.getPieceCount() - 2, verified.cardinality());
+            assertFalse(verified.get(3));
+            assertFalse(verified.get(40));
+            assertTrue(verified.get(39));
+            assertEquals(metainfo.getPieceCount(), lastProgress.get());
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should hash pieces larger than the read buffer")
+    void shouldVerifyLargePieces() throws IOException {
+        int pieceLength = 1024 * 1024;
+        byte[] content = new byte[pieceLength * 2 + 100];
+        new Random(11).nextBytes(content);
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createContentInfoMap(content, pieceLength))));
+
+        byte[] onDisk = content.clone();
+        onDisk[pieceLength + pieceLength / 2] ^= 1;
+        Files.write(directory.resolve(TorrentMetainfoFactory.DEFAULT_NAME), onDisk);
+
+        try (FileChannelPool pool = new FileChannelPool()) {
+            PieceVerifier verifier = new PieceVerifier(new PieceStorage(metainfo, directory, pool));
+            Bitfield verified = verifier.verifyAll(null);
+
+            assertTrue(verified.get(0));
+            assertFalse(verified.get(1));
+            assertTrue(verified.get(2));
+            assertTrue(verifier.verifyPiece(0));
+            assertFalse(verifier.verifyPiece(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Should only check the candidate pieces")
+    void shouldOnlyCheckCandidates() throws IOException {
+        byte[] content = new byte[PIECE_LENGTH * 4];
+        new Random(3).nextBytes(content);
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createContentInfoMap(content, PIECE_LENGTH))));
+        Files.write(directory.resolve(TorrentMetainfoFactory.DEFAULT_NAME), content);
+
+        Bitfield candidates = new Bitfield(metainfo.getPieceCount());
+        candidates.set(1);
+        candidates.set(3);
+
+        try (FileChannelPool pool = new FileChannelPool()) {
+            Bitfield verified = new PieceVerifier(new PieceStorage(metainfo, directory, pool)).verify(candidates, null);
+
+            assertEquals(candidates, verified);
+        }
+    }
+
+    @Test
+    @DisplayName("Should treat missing files as unverified pieces")
+    void shouldTreatMissingFilesAsUnverified() throws IOException {
+        byte[] content = new byte[PIECE_LENGTH * 2];
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createContentInfoMap(content, PIECE_LENGTH))));
+
+        try (FileChannelPool pool = new FileChannelPool()) {
+            Bitfield verified = new PieceVerifier(new PieceStorage(metainfo, directory, pool)).verifyAll(null);
+
+            assertTrue(verified.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.github.devrafaht.core.storage;
+
+import com.github.devrafaht.core.metainfo.TorrentMetainfoFactory;
+import core.bencode.BencodeDictionary;
+import core.metainfo.TorrentMetainfo;
+import core.storage.FileChannelPool;
+import core.storage.PieceStorage;
+import core.storage.ReadCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ReadCache Tests")
+class ReadCacheTest {
+
+    private static final int BLOCK = PieceStorage.BLOCK_SIZE;
+    private static final int PIECE_LENGTH = 4 * BLOCK;
+
+    @TempDir
+    private Path directory;
+
+    private final FileChannelPool pool = new FileChannelPool();
+    private byte[] content;
+    private PieceStorage storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        content = new byte[PIECE_LENGTH * 16];
+        storage = spy(createStorage("a", content, 5));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.close();
+    }
+
+    private PieceStorage createStorage(String name, byte[] data, long seed) throws IOException {
+        new Random(seed).nextBytes(data);
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createContentInfoMap(data, PIECE_LENGTH))));
+        Path torrentDirectory = Files.createDirectories(directory.resolve(name));
+        Files.write(torrentDirectory.resolve(TorrentMetainfoFactory.DEFAULT_NAME), data);
+        return new PieceStorage(metainfo, torrentDirectory, pool);
+    }
+
+    private byte[] read(ReadCache cache, PieceStorage from, int pieceIndex, int blockIndex) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(BLOCK);
+        cache.readBlock(from, pieceIndex, blockIndex * BLOCK, block);
+        return block.array();
+    }
+
+    private byte[] expected(int pieceIndex, int blockIndex) {
+        int offset = pieceIndex * PIECE_LENGTH + blockIndex * BLOCK;
+        return Arrays.copyOfRange(content, offset, offset + BLOCK);
+    }
+
+    @Test
+    @DisplayName("Should read the rest of the piece ahead on the first request")
+    void shouldReadAhead() throws IOException {
+        ReadCache cache = new ReadCache(8L * PIECE_LENGTH);
+
+        for (int block = 0; block < 4; block++) {
+            assertArrayEquals(expected(3, block), read(cache, storage, 3, block));
+        }
+
+        verify(storage, times(1)).read(anyLong(), any());
+        ReadCache.Stats stats = cache.getStats(storage.getMetainfo().getInfoHash());
+        assertEquals(3, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.75, stats.getHitRatio());
+    }
+
+    @Test
+    @DisplayName("Should load the front of a piece that was first requested in the middle")
+    void shouldFillMissingFront() throws IOException {
+        ReadCache cache = new ReadCache(8L * PIECE_LENGTH);
+
+        assertArrayEquals(expected(2, 2), read(cache, storage, 2, 2));
+        assertArrayEquals(expected(2, 3), read(cache, storage, 2, 3));
+        assertArrayEquals(expected(2, 0), read(cache, storage, 2, 0));
+        assertArrayEquals(expected(2, 1), read(cache, storage, 2, 1));
+
+        verify(storage).read(eq(2L * PIECE_LENGTH + 2 * BLOCK), any());
+        verify(storage).read(eq(2L * PIECE_LENGTH), any());
+        assertEquals(2, cache.getStats(storage.getMetainfo().getInfoHash()).getHits());
+        assertEquals(PIECE_LENGTH, cache.getCachedBytes());
+    }
+
+    @Test
+    @DisplayName("Should keep hot pieces through a one-off scan")
+    void shouldResistScans() throws IOException {
+        ReadCache cache = new ReadCache(4L * PIECE_LENGTH);
+
+        for (int round = 0; round < 3; round++) {
+            read(cache, storage, 0, 0);
+            read(cache, storage, 1, 0);
+        }
+
+        // Each cold piece is downloaded front to back once, so all but its first block are read-ahead hits.
+        for (int piece = 2; piece < 16; piece++) {
+            for (int block = 0; block < 4; block++) {
+                read(cache, storage, piece, block);
+            }
+        }
+
+        clearInvocations(storage);
+        read(cache, storage, 0, 1);
+        read(cache, storage, 1, 1);
+
+        verify(storage, never()).read(anyLong(), any());
+        assertTrue(cache.getCachedBytes() <= 4L * PIECE_LENGTH);
+    }
+
+    @Test
+    @DisplayName("Should only promote a piece when an already served block is requested again")
+    void shouldNotPromoteOnReadAhead() throws IOException {
+        ReadCache cache = new ReadCache(2L * PIECE_LENGTH);
+
+        // Piece 0 is requested twice; piece 1 is downloaded front to back once.
+        read(cache, storage, 0, 0);
+        read(cache, storage, 0, 0);
+
+        for (int block = 0; block < 4; block++) {
+            read(cache, storage, 1, block);
+        }
+
+        // The next cold piece must displace piece 1, which was only seen once, not piece 0.
+        read(cache, storage, 2, 0);
+
+        clearInvocations(storage);
+        read(cache, storage, 0, 1);
+        verify(storage, never()).read(anyLong(), any());
+        read(cache, storage, 1, 0);
+        verify(storage).read(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should evict to stay within the byte budget")
+    void shouldStayWithinCapacity() throws IOException {
+        ReadCache cache = new ReadCache(3L * PIECE_LENGTH);
+        Random random = new Random(9);
+
+        for (int i = 0; i < 500; i++) {
+            int piece = random.nextInt(16);
+            int block = random.nextInt(4);
+            assertArrayEquals(expected(piece, block), read(cache, storage, piece, block));
+            assertTrue(cache.getCachedBytes() <= 3L * PIECE_LENGTH);
+        }
+
+        assertEquals(3, cache.getCachedPieceCount());
+    }
+
+    @Test
+    @DisplayName("Should keep hit and miss counts per torrent")
+    void shouldTrackStatsPerTorrent() throws IOException {
+        ReadCache cache = new ReadCache(8L * PIECE_LENGTH);
+        PieceStorage other = createStorage("b", new byte[PIECE_LENGTH * 2], 6);
+
+        read(cache, storage, 0, 0);
+        read(cache, storage, 0, 1);
+        read(cache, other, 0, 0);
+
+        assertEquals(1, cache.getStats(storage.getMetainfo().getInfoHash()).getHits());
+        assertEquals(0, cache.getStats(other.getMetainfo().getInfoHash()).getHits());
+        assertEquals(1, cache.getStats(other.getMetainfo().getInfoHash()).getMisses());
+
+        cache.removeTorrent(other.getMetainfo().getInfoHash());
+
+        assertEquals(1, cache.getCachedPieceCount());
+        assertEquals(0, cache.getStats(other.getMetainfo().getInfoHash()).getMisses());
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.devrafaht.core.storage;
+
+import core.bencode.BencodeDecoder;
+import core.piece.Bitfield;
+import core.storage.ResumeData;
+import core.storage.ResumeStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ResumeStore Tests")
+class ResumeStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    private static ResumeData sampleData(long uploaded) {
+        Bitfield completed = new Bitfield(10);
+        completed.set(0);
+        completed.set(8);
+        completed.set(9);
+        return new ResumeData(new byte[20], 10, completed, new long[]{ 100, -1 }, new long[]{ 1234, -1 }, uploaded, 77);
+    }
+
+    @Test
+    @DisplayName("Should save and load resume data")
+    void shouldRoundTripResumeData() throws IOException {
+        ResumeStore store = new ResumeStore(directory);
+
+        store.save(sampleData(55));
+        ResumeData loaded = store.load(new byte[20]);
+
+        assertEquals(10, loaded.getPieceCount());
+        assertEquals(sampleData(55).getCompletedPieces(), loaded.getCompletedPieces());
+        assertEquals(100L, loaded.getFileSize(0));
+        assertEquals(ResumeData.MISSING, loaded.getFileModifiedTime(1));
+        assertEquals(55L, loaded.getUploaded());
+        assertEquals(77L, loaded.getDownloaded());
+    }
+
+    @Test
+    @DisplayName("Should replace previous state without leaving temporary files")
+    void shouldReplaceAtomically() throws IOException {
+        ResumeStore store = new ResumeStore(directory);
+
+        store.save(sampleData(1));
+        store.save(sampleData(2));
+
+        assertEquals(2L, store.load(new byte[20]).getUploaded());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should return null when no state was saved")
+    void shouldReturnNullWhenMissing() throws IOException {
+        assertNull(new ResumeStore(directory).load(new byte[20]));
+    }
+
+    @Test
+    @DisplayName("Should encode completed pieces as an MSB-first bitfield")
+    void shouldEncodeWireOrderBitfield() throws IOException {
+        byte[] encoded = sampleData(0).toBencode().encode();
+
+        ResumeData decoded = ResumeData.fromBencode(BencodeDecoder.decode(encoded));
+
+        assertTrue(new String(encoded, StandardCharsets.ISO_8859_1).contains("6:pieces2:\u0080\u00C0"));
+        assertTrue(decoded.getCompletedPieces().get(9));
+    }
+
+    @Test
+    @DisplayName("Should reject a piece count that is out of range or does not match the torrent")
+    void shouldRejectInvalidPieceCount() {
+        for (String count : new String[]{ "-1", "4294967296" }) {
+            byte[] encoded = ("d10:downloadedi0e5:filesle9:info-hash20:" + "a".repeat(20) + "11:piece-counti" + count
+                    + "e6:pieces0:8:uploadedi0ee").getBytes(StandardCharsets.ISO_8859_1);
+
+            assertThrows(IOException.class, () -> ResumeData.fromBencode(BencodeDecoder.decode(encoded)), count);
+        }
+
+        assertThrows(IOException.class, () -> ResumeData.fromBencode(sampleData(0).toBencode(), 11));
+    }
+}
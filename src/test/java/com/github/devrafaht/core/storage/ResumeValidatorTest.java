@@ -0,0 +1,104 @@
+package com.github.devrafaht.core.storage;
+
+import com.github.devrafaht.core.metainfo.TorrentMetainfoFactory;
+import core.bencode.BencodeDictionary;
+import core.metainfo.TorrentMetainfo;
+import core.piece.Bitfield;
+import core.storage.FileChannelPool;
+import core.storage.PieceStorage;
+import core.storage.PieceVerifier;
+import core.storage.ResumeData;
+import core.storage.ResumeValidator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ResumeValidator Tests")
+class ResumeValidatorTest {
+
+    private static final int PIECE_LENGTH = 512;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Should trust resume state for files whose size and mtime are unchanged")
+    void shouldSkipRehashForUnchangedFiles() throws IOException {
+        byte[] content = new byte[PIECE_LENGTH * 4];
+        new Random(11).nextBytes(content);
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createContentInfoMap(content, PIECE_LENGTH))));
+        Path file = directory.resolve(TorrentMetainfoFactory.DEFAULT_NAME);
+        Files.write(file, content);
+
+        try (FileChannelPool pool = new FileChannelPool()) {
+            PieceStorage storage = new PieceStorage(metainfo, directory, pool);
+            Bitfield completed = new Bitfield(metainfo.getPieceCount());
+            completed.set(0, 4);
+            ResumeData data = ResumeData.capture(storage, completed, 0, 0);
+
+            // Corrupt data but keep size and mtime: the validator must not notice because it does not rehash.
+            FileTime modified = Files.getLastModifiedTime(file);
+            content[0] ^= 1;
+            Files.write(file, content);
+            Files.setLastModifiedTime(file, modified);
+
+            Bitfield restored = new ResumeValidator(storage, new PieceVerifier(storage)).restore(data, null);
+
+            assertEquals(completed, restored);
+        }
+    }
+
+    @Test
+    @DisplayName("Should rehash pieces of files that changed since the state was saved")
+    void shouldRehashChangedFiles() throws IOException {
+        byte[] content = new byte[PIECE_LENGTH * 4];
+        new Random(13).nextBytes(content);
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createContentInfoMap(content, PIECE_LENGTH))));
+        Path file = directory.resolve(TorrentMetainfoFactory.DEFAULT_NAME);
+
+        try (FileChannelPool pool = new FileChannelPool()) {
+            PieceStorage storage = new PieceStorage(metainfo, directory, pool);
+            ResumeData data = ResumeData.capture(storage, new Bitfield(metainfo.getPieceCount()), 0, 0);
+
+            byte[] onDisk = content.clone();
+            onDisk[PIECE_LENGTH * 2] ^= 1;
+            Files.write(file, onDisk);
+
+            Bitfield restored = new ResumeValidator(storage, new PieceVerifier(storage)).restore(data, null);
+
+            Bitfield expected = new Bitfield(4);
+            expected.set(0, 4);
+            expected.clear(2);
+            assertEquals(expected, restored);
+        }
+    }
+
+    @Test
+    @DisplayName("Should fall back to a full recheck when resume data belongs to another torrent")
+    void shouldFullyRecheckForeignResumeData() throws IOException {
+        byte[] content = new byte[PIECE_LENGTH * 2];
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createContentInfoMap(content, PIECE_LENGTH))));
+        Files.write(directory.resolve(TorrentMetainfoFactory.DEFAULT_NAME), content);
+
+        try (FileChannelPool pool = new FileChannelPool()) {
+            PieceStorage storage = new PieceStorage(metainfo, directory, pool);
+            Bitfield nothing = new Bitfield(2);
+            ResumeData foreign = new ResumeData(new byte[20], 2, nothing, new long[1], new long[1], 0, 0);
+
+            Bitfield restored = new ResumeValidator(storage, new PieceVerifier(storage)).restore(foreign, null);
+
+            assertEquals(2, restored.cardinality());
+        }
+    }
+}
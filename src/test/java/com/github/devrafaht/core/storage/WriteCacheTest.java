@@ -0,0 +1,226 @@
+package com.github.devrafaht.core.storage;
+
+import com.github.devrafaht.core.metainfo.TorrentMetainfoFactory;
+import core.bencode.BencodeDictionary;
+import core.metainfo.TorrentMetainfo;
+import core.storage.FileChannelPool;
+import core.storage.PieceStorage;
+import core.storage.WriteCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@DisplayName("WriteCache Tests")
+class WriteCacheTest {
+
+    private static final int PIECE_LENGTH = 4 * PieceStorage.BLOCK_SIZE;
+
+    @TempDir
+    private Path directory;
+
+    private final byte[] content = new byte[PIECE_LENGTH * 3 + 5000];
+    private FileChannelPool pool;
+    private PieceStorage storage;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        new Random(11).nextBytes(content);
+        TorrentMetainfo metainfo = TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(
+                new BencodeDictionary(TorrentMetainfoFactory.createContentInfoMap(content, PIECE_LENGTH))));
+        pool = new FileChannelPool();
+        storage = spy(new PieceStorage(metainfo, directory, pool));
+        storage.preallocate();
+        file = directory.resolve(TorrentMetainfoFactory.DEFAULT_NAME);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.close();
+    }
+
+    private ByteBuffer block(int pieceIndex, int blockIndex) {
+        int offset = pieceIndex * PIECE_LENGTH + blockIndex * PieceStorage.BLOCK_SIZE;
+        int length = Math.min(PieceStorage.BLOCK_SIZE, Math.min(content.length, (pieceIndex + 1) * PIECE_LENGTH) - offset);
+        return ByteBuffer.wrap(content, offset, length);
+    }
+
+    private byte[] piece(int pieceIndex) throws IOException {
+        int from = pieceIndex * PIECE_LENGTH;
+        return Arrays.copyOfRange(Files.readAllBytes(file), from, Math.min(content.length, from + PIECE_LENGTH));
+    }
+
+    private byte[] expected(int pieceIndex) {
+        int from = pieceIndex * PIECE_LENGTH;
+        return Arrays.copyOfRange(content, from, Math.min(content.length, from + PIECE_LENGTH));
+    }
+
+    @Test
+    @DisplayName("Should verify a piece in memory and write it with a single call")
+    void shouldCoalesceVerifiedPiece() throws IOException {
+        WriteCache cache = new WriteCache(storage, 4L * PIECE_LENGTH);
+
+        assertEquals(WriteCache.Result.BUFFERED, cache.writeBlock(1, 2 * PieceStorage.BLOCK_SIZE, block(1, 2)));
+        assertEquals(WriteCache.Result.BUFFERED, cache.writeBlock(1, 0, block(1, 0)));
+        assertEquals(WriteCache.Result.BUFFERED, cache.writeBlock(1, 3 * PieceStorage.BLOCK_SIZE, block(1, 3)));
+        verify(storage, never()).write(anyLong(), any());
+
+        assertEquals(WriteCache.Result.VERIFIED, cache.writeBlock(1, PieceStorage.BLOCK_SIZE, block(1, 1)));
+
+        verify(storage, times(1)).write(anyLong(), any());
+        verify(storage, never()).read(anyLong(), any());
+        assertArrayEquals(expected(1), piece(1));
+        assertEquals(0, cache.getPieceCount());
+    }
+
+    @Test
+    @DisplayName("Should handle the short last piece")
+    void shouldWriteLastPiece() throws IOException {
+        WriteCache cache = new WriteCache(storage, PIECE_LENGTH);
+
+        assertEquals(WriteCache.Result.VERIFIED, cache.writeBlock(3, 0, block(3, 0)));
+        assertArrayEquals(expected(3), piece(3));
+    }
+
+    @Test
+    @DisplayName("Should report corrupt pieces without writing them")
+    void shouldRejectCorruptPiece() throws IOException {
+        WriteCache cache = new WriteCache(storage, PIECE_LENGTH);
+        byte[] corrupt = new byte[PieceStorage.BLOCK_SIZE];
+
+        for (int i = 0; i < 3; i++) {
+            cache.writeBlock(0, i * PieceStorage.BLOCK_SIZE, block(0, i));
+        }
+
+        assertEquals(WriteCache.Result.FAILED, cache.writeBlock(0, 3 * PieceStorage.BLOCK_SIZE, ByteBuffer.wrap(corrupt)));
+        verify(storage, never()).write(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should spill the least recently written piece when the memory cap is reached")
+    void shouldEvictLeastRecentlyUsedPiece() throws IOException {
+        WriteCache cache = new WriteCache(storage, 2L * PIECE_LENGTH);
+
+        cache.writeBlock(0, 0, block(0, 0));
+        cache.writeBlock(0, 2 * PieceStorage.BLOCK_SIZE, block(0, 2));
+        cache.writeBlock(1, 0, block(1, 0));
+        cache.writeBlock(0, PieceStorage.BLOCK_SIZE, block(0, 1));
+
+        // Piece 1 is now the least recently written and gives up its buffer.
+        cache.writeBlock(2, 0, block(2, 0));
+
+        assertEquals(2, cache.getBufferedPieceCount());
+        assertEquals(3, cache.getPieceCount());
+        assertEquals(2L * PIECE_LENGTH, cache.getAllocatedBytes());
+        verify(storage, times(1)).write(anyLong(), any());
+
+        for (int i = 1; i < 4; i++) {
+            cache.writeBlock(1, i * PieceStorage.BLOCK_SIZE, block(1, i));
+        }
+
+        assertArrayEquals(expected(1), piece(1));
+        assertEquals(2L * PIECE_LENGTH, cache.getAllocatedBytes());
+    }
+
+    @Test
+    @DisplayName("Should verify a spilled piece by reading back only its unhashed tail")
+    void shouldVerifySpilledPiece() throws IOException {
+        WriteCache cache = new WriteCache(storage, PIECE_LENGTH);
+
+        cache.writeBlock(0, 0, block(0, 0));
+        cache.writeBlock(0, 2 * PieceStorage.BLOCK_SIZE, block(0, 2));
+        cache.writeBlock(1, 0, block(1, 0));
+
+        cache.writeBlock(0, PieceStorage.BLOCK_SIZE, block(0, 1));
+        assertEquals(WriteCache.Result.VERIFIED, cache.writeBlock(0, 3 * PieceStorage.BLOCK_SIZE, block(0, 3)));
+
+        // Blocks 0 and 1 were hashed in memory; only blocks 2 and 3 are read back.
+        verify(storage).read(eq(2L * PieceStorage.BLOCK_SIZE), any());
+        assertArrayEquals(expected(0), piece(0));
+    }
+
+    @Test
+    @DisplayName("Should flush buffered blocks of partial pieces")
+    void shouldFlushPartialPieces() throws IOException {
+        WriteCache cache = new WriteCache(storage, 4L * PIECE_LENGTH);
+
+        cache.writeBlock(2, PieceStorage.BLOCK_SIZE, block(2, 1));
+        cache.writeBlock(2, 2 * PieceStorage.BLOCK_SIZE, block(2, 2));
+        cache.flush();
+
+        verify(storage, times(1)).write(anyLong(), any());
+        assertEquals(0, cache.getBufferedPieceCount());
+        assertEquals(1, cache.getPieceCount());
+        assertArrayEquals(Arrays.copyOfRange(content, 2 * PIECE_LENGTH + PieceStorage.BLOCK_SIZE, 2 * PIECE_LENGTH + 3 * PieceStorage.BLOCK_SIZE),
+                Arrays.copyOfRange(Files.readAllBytes(file), 2 * PIECE_LENGTH + PieceStorage.BLOCK_SIZE, 2 * PIECE_LENGTH + 3 * PieceStorage.BLOCK_SIZE));
+    }
+
+    @Test
+    @DisplayName("Should assemble pieces written from concurrent threads while spilling between them")
+    void shouldWritePiecesConcurrently() throws Exception {
+        int pieces = (content.length + PIECE_LENGTH - 1) / PIECE_LENGTH;
+
+        for (int round = 0; round < 20; round++) {
+            Files.write(file, new byte[content.length]);
+            WriteCache cache = new WriteCache(storage, PIECE_LENGTH);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<WriteCache.Result>> results = new ArrayList<>();
+
+            try (ExecutorService executor = Executors.newFixedThreadPool(pieces)) {
+                for (int piece = 0; piece < pieces; piece++) {
+                    int pieceIndex = piece;
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        WriteCache.Result result = null;
+
+                        for (int begin = 0; begin < storage.getMetainfo().getPieceSize(pieceIndex); begin += PieceStorage.BLOCK_SIZE) {
+                            result = cache.writeBlock(pieceIndex, begin, block(pieceIndex, begin / PieceStorage.BLOCK_SIZE));
+                        }
+
+                        return result;
+                    }));
+                }
+
+                start.countDown();
+
+                for (Future<WriteCache.Result> result : results) {
+                    assertEquals(WriteCache.Result.VERIFIED, result.get(10, TimeUnit.SECONDS));
+                }
+            }
+
+            assertArrayEquals(content, Files.readAllBytes(file));
+            assertEquals(0, cache.getPieceCount());
+            assertEquals(PIECE_LENGTH, cache.getAllocatedBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject misaligned blocks")
+    void shouldRejectMisalignedBlocks() {
+        WriteCache cache = new WriteCache(storage, PIECE_LENGTH);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.writeBlock(0, 100, ByteBuffer.allocate(PieceStorage.BLOCK_SIZE)));
+        assertThrows(IllegalArgumentException.class, () -> cache.writeBlock(0, 0, ByteBuffer.allocate(10)));
+    }
+}
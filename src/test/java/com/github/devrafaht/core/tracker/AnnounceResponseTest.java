@@ -0,0 +1,115 @@
+package com.github.devrafaht.core.tracker;
+
+import core.tracker.AnnounceResponse;
+import core.tracker.PeerBuffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AnnounceResponse Tests")
+class AnnounceResponseTest {
+
+    private static byte[] concat(Object... parts) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (Object part : parts) {
+            output.write(part instanceof String text ? text.getBytes(StandardCharsets.ISO_8859_1) : (byte[]) part);
+        }
+        return output.toByteArray();
+    }
+
+    @Test
+    @DisplayName("Should decode counters and compact IPv4 and IPv6 peers")
+    void shouldDecodeCompactResponse() throws IOException {
+        byte[] peers = { 10, 0, 0, 1, 0x1A, (byte) 0xE1, (byte) 192, (byte) 168, 1, (byte) 200, 0x00, 0x50 };
+        byte[] peers6 = new byte[18];
+        peers6[0] = 0x20;
+        peers6[1] = 0x01;
+        peers6[15] = 0x01;
+        peers6[17] = 0x51;
+
+        byte[] body = concat("d8:completei5e10:incompletei3e8:intervali1800e12:min intervali900e5:peers12:", peers,
+                "6:peers618:", peers6, "e");
+
+        AnnounceResponse response = AnnounceResponse.parse(body);
+        PeerBuffer buffer = response.getPeers();
+
+        assertFalse(response.isFailure());
+        assertEquals(1800, response.getInterval());
+        assertEquals(900, response.getMinInterval());
+        assertEquals(5, response.getComplete());
+        assertEquals(3, response.getIncomplete());
+        assertEquals(2, buffer.ipv4Count());
+        assertEquals(0x0A000001, buffer.ipv4Address(0));
+        assertEquals(6881, buffer.ipv4Port(0));
+        assertEquals(80, buffer.ipv4Port(1));
+        assertEquals(new InetSocketAddress("192.168.1.200", 80), buffer.toSocketAddress(1));
+        assertEquals(1, buffer.ipv6Count());
+        assertEquals(0x51, buffer.ipv6Port(0));
+        assertEquals(new InetSocketAddress("2001::1", 0x51), buffer.toSocketAddress(2));
+    }
+
+    @Test
+    @DisplayName("Should decode the dictionary peer model with literal addresses")
+    void shouldDecodeDictionaryPeers() throws IOException {
+        byte[] body = concat("d8:intervali60e5:peersld2:ip9:127.0.0.17:peer id20:aaaaaaaaaaaaaaaaaaaa4:porti6881eed2:ip7:host.io4:porti1eeee");
+
+        AnnounceResponse response = AnnounceResponse.parse(body);
+
+        assertEquals(1, response.getPeers().size());
+        assertEquals(new InetSocketAddress("127.0.0.1", 6881), response.getPeers().toSocketAddress(0));
+    }
+
+    @Test
+    @DisplayName("Should expose the failure reason without requiring an interval")
+    void shouldExposeFailureReason() throws IOException {
+        AnnounceResponse response = AnnounceResponse.parse("d14:failure reason12:unregisterede".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(response.isFailure());
+        assertEquals("unregistered", response.getFailureReason());
+        assertEquals(AnnounceResponse.ABSENT, response.getInterval());
+    }
+
+    @Test
+    @DisplayName("Should clear and reuse the peer buffer between responses")
+    void shouldReusePeerBuffer() throws IOException {
+        PeerBuffer buffer = new PeerBuffer(1);
+        byte[] first = concat("d8:intervali60e5:peers12:", new byte[12], "e");
+        byte[] second = concat("d8:intervali60e5:peers6:", new byte[]{ 1, 2, 3, 4, 0, 1 }, "e");
+
+        AnnounceResponse.parse(ByteBuffer.wrap(first), buffer);
+        assertEquals(2, buffer.size());
+
+        AnnounceResponse.parse(ByteBuffer.wrap(second), buffer);
+        assertEquals(1, buffer.size());
+        assertEquals(0x01020304, buffer.ipv4Address(0));
+    }
+
+    @Test
+    @DisplayName("Should reject compact peers with a truncated entry")
+    void shouldRejectTruncatedCompactPeers() throws IOException {
+        byte[] body = concat("d8:intervali60e5:peers7:", new byte[7], "e");
+
+        assertThrows(IOException.class, () -> AnnounceResponse.parse(body));
+    }
+
+    @Test
+    @DisplayName("Should reject a successful response without an interval")
+    void shouldRejectMissingInterval() {
+        assertThrows(IOException.class, () -> AnnounceResponse.parse("d5:peers0:e".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("Should reject a response whose root is not a dictionary")
+    void shouldRejectNonDictionaryRoot() {
+        for (String body : new String[]{ "li5ee", "l5:helloe", "i5e" }) {
+            assertThrows(IOException.class, () -> AnnounceResponse.parse(body.getBytes(StandardCharsets.UTF_8)), body);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.devrafaht.core.tracker;
+
+import com.github.devrafaht.core.metainfo.TorrentMetainfoFactory;
+import core.bencode.BencodeByteArray;
+import core.bencode.BencodeDictionary;
+import core.bencode.BencodeElement;
+import core.metainfo.TorrentMetainfo;
+import core.tracker.AnnounceEvent;
+import core.tracker.AnnounceRequest;
+import core.tracker.AnnounceResponse;
+import core.tracker.AnnounceScheduler;
+import core.tracker.Announcer;
+import core.tracker.MultiTrackerAnnouncer;
+import core.tracker.PeerBuffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AnnounceScheduler Tests")
+class AnnounceSchedulerTest {
+
+    private static final byte[] PEER_ID = "-BC0001-123456789012".getBytes();
+
+    private static final AnnounceScheduler.TransferStats STATS = new AnnounceScheduler.TransferStats() {
+        @Override
+        public long uploaded() {
+            return 11;
+        }
+
+        @Override
+        public long downloaded() {
+            return 22;
+        }
+
+        @Override
+        public long left() {
+            return 33;
+        }
+    };
+
+    private final ManualClock clock = new ManualClock();
+    private final List<AnnounceRequest> requests = new ArrayList<>();
+    private final List<AnnounceResponse> delivered = new ArrayList<>();
+    private AnnounceResponse nextResponse = response(1800, -1);
+    private boolean failing;
+
+    private final Announcer announcer = (url, request) -> {
+        requests.add(request);
+        return failing ? CompletableFuture.failedFuture(new IOException("down")) : CompletableFuture.completedFuture(nextResponse);
+    };
+
+    private final AnnounceScheduler scheduler = new AnnounceScheduler(
+            new MultiTrackerAnnouncer(announcer, announcer, Duration.ofSeconds(5)), clock, new Random(3));
+
+    private static AnnounceResponse response(int interval, int minInterval) {
+        return new AnnounceResponse(null, null, null, interval, minInterval, -1, -1, new PeerBuffer(1));
+    }
+
+    private static TorrentMetainfo torrent(int id) throws IOException {
+        Map<String, BencodeElement<?>> info = TorrentMetainfoFactory.createValidInfoMap();
+        info.put("name", new BencodeByteArray(("t" + id).getBytes()));
+        return TorrentMetainfo.createFrom(TorrentMetainfoFactory.createValidRootDictionary(new BencodeDictionary(info)));
+    }
+
+    private void advance(Duration duration) {
+        clock.advance(duration);
+        scheduler.tick();
+    }
+
+    @Test
+    @DisplayName("Should announce started with real counters, then re-announce after the jittered interval")
+    void shouldFollowTrackerInterval() throws IOException {
+        TorrentMetainfo metainfo = torrent(1);
+        scheduler.add(metainfo, PEER_ID, 6881, STATS, delivered::add);
+
+        advance(Duration.ofSeconds(1));
+
+        assertEquals(1, requests.size());
+        assertEquals(AnnounceEvent.STARTED, requests.get(0).getEvent());
+        assertEquals(11, requests.get(0).getUploaded());
+        assertEquals(22, requests.get(0).getDownloaded());
+        assertEquals(33, requests.get(0).getLeft());
+        assertEquals(1, delivered.size());
+
+        long delay = scheduler.millisUntilAnnounce(metainfo.getInfoHash());
+        assertTrue(delay >= 1_800_000 && delay <= 1_980_000, "delay " + delay);
+
+        advance(Duration.ofMillis(delay - 2000));
+        assertEquals(1, requests.size());
+
+        advance(Duration.ofSeconds(3));
+        assertEquals(2, requests.size());
+        assertEquals(AnnounceEvent.NONE, requests.get(1).getEvent());
+    }
+
+    @Test
+    @DisplayName("Should honor 'min interval' when it exceeds 'interval'")
+    void shouldHonorMinInterval() throws IOException {
+        TorrentMetainfo metainfo = torrent(1);
+        nextResponse = response(10, 120);
+        scheduler.add(metainfo, PEER_ID, 6881, STATS, delivered::add);
+
+        advance(Duration.ofSeconds(1));
+
+        assertTrue(scheduler.millisUntilAnnounce(metainfo.getInfoHash()) >= 120_000);
+    }
+
+    @Test
+    @DisplayName("Should back off exponentially and keep the event until an announce succeeds")
+    void shouldBackOffOnFailure() throws IOException {
+        TorrentMetainfo metainfo = torrent(1);
+        failing = true;
+        scheduler.add(metainfo, PEER_ID, 6881, STATS, delivered::add);
+
+        advance(Duration.ofSeconds(1));
+        long firstDelay = scheduler.millisUntilAnnounce(metainfo.getInfoHash());
+        advance(Duration.ofMillis(firstDelay + 1000));
+        long secondDelay = scheduler.millisUntilAnnounce(metainfo.getInfoHash());
+
+        assertTrue(firstDelay >= 15_000 && firstDelay <= 16_500, "first " + firstDelay);
+        assertTrue(secondDelay >= 30_000 && secondDelay <= 33_000, "second " + secondDelay);
+
+        failing = false;
+        advance(Duration.ofMillis(secondDelay + 1000));
+
+        assertEquals(AnnounceEvent.STARTED, requests.get(requests.size() - 1).getEvent());
+        assertTrue(scheduler.millisUntilAnnounce(metainfo.getInfoHash()) >= 1_800_000);
+        assertEquals(1, delivered.size());
+    }
+
+    @Test
+    @DisplayName("Should send completed on the next tick and stopped on removal")
+    void shouldSendCompletedAndStopped() throws IOException {
+        TorrentMetainfo metainfo = torrent(1);
+        scheduler.add(metainfo, PEER_ID, 6881, STATS, delivered::add);
+        advance(Duration.ofSeconds(1));
+
+        scheduler.completed(metainfo.getInfoHash());
+        advance(Duration.ofSeconds(1));
+
+        scheduler.remove(metainfo.getInfoHash()).join();
+
+        assertEquals(List.of(AnnounceEvent.STARTED, AnnounceEvent.COMPLETED, AnnounceEvent.STOPPED),
+                requests.stream().map(AnnounceRequest::getEvent).toList());
+        assertEquals(0, scheduler.size());
+
+        advance(Duration.ofHours(2));
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    @DisplayName("Should spread re-announces of torrents added together")
+    void shouldJitterReannounces() throws IOException {
+        Set<Long> delays = new HashSet<>();
+        List<TorrentMetainfo> torrents = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            TorrentMetainfo metainfo = torrent(i);
+            torrents.add(metainfo);
+            scheduler.add(metainfo, PEER_ID, 6881, STATS, delivered::add);
+        }
+
+        advance(Duration.ofSeconds(1));
+
+        for (TorrentMetainfo metainfo : torrents) {
+            delays.add(scheduler.millisUntilAnnounce(metainfo.getInfoHash()) / 1000);
+        }
+
+        assertEquals(50, requests.size());
+        assertTrue(delays.size() > 25, "distinct delays " + delays.size());
+    }
+
+    @Test
+    @DisplayName("Should announce every torrent with one session key unrelated to the peer id")
+    void shouldUseOneRandomKeyPerSession() throws IOException {
+        scheduler.add(torrent(1), PEER_ID, 6881, STATS, delivered::add);
+        scheduler.add(torrent(2), PEER_ID, 6881, STATS, delivered::add);
+
+        advance(Duration.ofSeconds(1));
+
+        assertEquals(2, requests.size());
+        assertEquals(requests.get(0).getKey(), requests.get(1).getKey());
+        assertNotEquals(Arrays.hashCode(PEER_ID), requests.get(0).getKey());
+    }
+}
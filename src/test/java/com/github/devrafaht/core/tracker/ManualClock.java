@@ -0,0 +1,40 @@
+package com.github.devrafaht.core.tracker;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+// Clock that only moves when a test advances it.
+public class ManualClock extends Clock {
+
+    private volatile Instant now;
+
+    public ManualClock() {
+        this(Instant.parse("2024-01-01T00:00:00Z"));
+    }
+
+    public ManualClock(Instant now) {
+        this.now = now;
+    }
+
+    public void advance(Duration duration) {
+        now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+
+    @Override
+    public Instant instant() {
+        return now;
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.devrafaht.core.tracker;
+
+import core.tracker.AnnounceEvent;
+import core.tracker.AnnounceRequest;
+import core.tracker.AnnounceResponse;
+import core.tracker.Announcer;
+import core.tracker.MultiTrackerAnnouncer;
+import core.tracker.PeerBuffer;
+import core.tracker.TrackerTiers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MultiTrackerAnnouncer Tests")
+class MultiTrackerAnnouncerTest {
+
+    private static final AnnounceRequest REQUEST = new AnnounceRequest(new byte[20], new byte[20], 6881, 0, 0, 0, AnnounceEvent.NONE, -1, 0);
+
+    private final Map<String, CompletableFuture<AnnounceResponse>> responses = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> contacted = new ConcurrentHashMap<>();
+    private final Announcer announcer = (url, request) -> {
+        contacted.put(url, true);
+        return responses.computeIfAbsent(url, key -> new CompletableFuture<>());
+    };
+
+    private static AnnounceResponse success(int interval) {
+        return new AnnounceResponse(null, null, null, interval, -1, -1, -1, new PeerBuffer(1));
+    }
+
+    private static AnnounceResponse failure(String reason) {
+        return new AnnounceResponse(reason, null, null, -1, -1, -1, -1, new PeerBuffer(1));
+    }
+
+    @Test
+    @DisplayName("Should query a whole tier at once and take the first success")
+    void shouldTakeFastestTrackerInTier() throws Exception {
+        TrackerTiers tiers = new TrackerTiers(List.of(List.of("udp://slow:1", "http://fast/announce")), new Random(1));
+        responses.put("http://fast/announce", CompletableFuture.completedFuture(success(60)));
+
+        MultiTrackerAnnouncer multiAnnouncer = new MultiTrackerAnnouncer(announcer, announcer, Duration.ofSeconds(10));
+        AnnounceResponse response = multiAnnouncer.announce(tiers, REQUEST).get(5, TimeUnit.SECONDS);
+
+        assertEquals(60, response.getInterval());
+        assertTrue(contacted.containsKey("udp://slow:1"));
+        assertEquals("http://fast/announce", tiers.snapshot().get(0).get(0));
+    }
+
+    @Test
+    @DisplayName("Should move to the next tier when the deadline passes")
+    void shouldFailOverAfterDeadline() throws Exception {
+        TrackerTiers tiers = new TrackerTiers(List.of(List.of("udp://hung:1"), List.of("udp://backup:1")));
+        responses.put("udp://backup:1", CompletableFuture.completedFuture(success(120)));
+
+        MultiTrackerAnnouncer multiAnnouncer = new MultiTrackerAnnouncer(announcer, announcer, Duration.ofMillis(50));
+        AnnounceResponse response = multiAnnouncer.announce(tiers, REQUEST).get(5, TimeUnit.SECONDS);
+
+        assertEquals(120, response.getInterval());
+    }
+
+    @Test
+    @DisplayName("Should move to the next tier as soon as every tracker failed")
+    void shouldFailOverWhenTierFails() throws Exception {
+        TrackerTiers tiers = new TrackerTiers(List.of(List.of("udp://a:1", "udp://b:1"), List.of("udp://c:1")));
+        responses.put("udp://a:1", CompletableFuture.failedFuture(new IOException("unreachable")));
+        responses.put("udp://b:1", CompletableFuture.completedFuture(failure("not registered")));
+        responses.put("udp://c:1", CompletableFuture.completedFuture(success(30)));
+
+        MultiTrackerAnnouncer multiAnnouncer = new MultiTrackerAnnouncer(announcer, announcer, Duration.ofHours(1));
+        AnnounceResponse response = multiAnnouncer.announce(tiers, REQUEST).get(5, TimeUnit.SECONDS);
+
+        assertEquals(30, response.getInterval());
+    }
+
+    @Test
+    @DisplayName("Should fail when no tier produced a successful response")
+    void shouldFailWhenAllTiersFail() {
+        TrackerTiers tiers = new TrackerTiers(List.of(List.of("udp://a:1"), List.of("ftp://b/announce")));
+        responses.put("udp://a:1", CompletableFuture.completedFuture(failure("not registered")));
+
+        MultiTrackerAnnouncer multiAnnouncer = new MultiTrackerAnnouncer(announcer, announcer, Duration.ofHours(1));
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> multiAnnouncer.announce(tiers, REQUEST).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(IOException.class, exception.getCause());
+        assertFalse(contacted.containsKey("ftp://b/announce"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.devrafaht.core.tracker;
+
+import core.tracker.ScrapeCache;
+import core.tracker.ScrapeResult;
+import core.tracker.Scraper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ScrapeCache Tests")
+class ScrapeCacheTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final ScrapeCache cache = new ScrapeCache(Duration.ofMinutes(30), clock);
+    private final List<List<byte[]>> scrapedBatches = new ArrayList<>();
+
+    private final Scraper scraper = (url, infoHashes) -> {
+        scrapedBatches.add(infoHashes);
+        List<ScrapeResult> results = new ArrayList<>();
+        for (byte[] infoHash : infoHashes) {
+            results.add(new ScrapeResult(infoHash, 10, 20, 30));
+        }
+        return CompletableFuture.completedFuture(results);
+    };
+
+    private static byte[] hash(int value) {
+        byte[] infoHash = new byte[20];
+        infoHash[19] = (byte) value;
+        return infoHash;
+    }
+
+    @Test
+    @DisplayName("Should scrape only hashes without a fresh entry")
+    void shouldScrapeOnlyStaleHashes() {
+        cache.put(new ScrapeResult(hash(1), 1, 1, 1));
+
+        Map<String, ScrapeResult> results = cache.refresh(scraper, "udp://t:1", List.of(hash(1), hash(2))).join();
+
+        assertEquals(2, results.size());
+        assertEquals(1, scrapedBatches.size());
+        assertEquals(1, scrapedBatches.get(0).size());
+        assertArrayEquals(hash(2), scrapedBatches.get(0).get(0));
+        assertEquals(1, results.get(new ScrapeResult(hash(1), 0, 0, 0).getHexInfoHash()).getComplete());
+    }
+
+    @Test
+    @DisplayName("Should not contact the tracker while every entry is fresh")
+    void shouldServeFreshEntries() {
+        cache.refresh(scraper, "udp://t:1", List.of(hash(1), hash(2))).join();
+        clock.advance(Duration.ofMinutes(29));
+
+        Map<String, ScrapeResult> results = cache.refresh(scraper, "udp://t:1", List.of(hash(1), hash(2))).join();
+
+        assertEquals(2, results.size());
+        assertEquals(1, scrapedBatches.size());
+    }
+
+    @Test
+    @DisplayName("Should expire entries after the TTL")
+    void shouldExpireEntries() {
+        cache.put(new ScrapeResult(hash(1), 1, 1, 1));
+        clock.advance(Duration.ofMinutes(30));
+
+        assertNull(cache.get(hash(1)));
+
+        cache.evictExpired();
+        assertEquals(0, cache.size());
+    }
+}
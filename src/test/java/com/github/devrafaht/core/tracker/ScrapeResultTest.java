@@ -0,0 +1,41 @@
+package com.github.devrafaht.core.tracker;
+
+import core.tracker.ScrapeResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ScrapeResult Tests")
+class ScrapeResultTest {
+
+    private static final String HASH = "A".repeat(20);
+
+    private static List<ScrapeResult> parse(String body) throws IOException {
+        return ScrapeResult.parse(body.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    @DisplayName("Should not read dictionaries after 'files' as statistics of the last torrent")
+    void shouldIgnoreDictionariesOutsideFiles() throws IOException {
+        List<ScrapeResult> results = parse("d5:filesd20:" + HASH + "d8:completei3eee"
+                + "5:flagsd3:food8:completei9eeee");
+
+        assertEquals(1, results.size());
+        assertEquals(3, results.get(0).getComplete());
+    }
+
+    @Test
+    @DisplayName("Should skip entries whose key is not a 20-byte infohash")
+    void shouldSkipMalformedInfoHashes() throws IOException {
+        List<ScrapeResult> results = parse("d5:filesd3:abcd8:completei1ee20:" + HASH + "d8:completei2eeee");
+
+        assertEquals(1, results.size());
+        assertEquals(HASH, new String(results.get(0).getInfoHash(), StandardCharsets.ISO_8859_1));
+        assertEquals(2, results.get(0).getComplete());
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.devrafaht.core.tracker;
+
+import core.tracker.TimingWheel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TimingWheel Tests")
+class TimingWheelTest {
+
+    // Eight buckets of 100 ms: one revolution covers 800 ms.
+    private final TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+    private final List<String> fired = new ArrayList<>();
+
+    private void advanceTo(long nowMillis) {
+        wheel.advance(nowMillis, fired::add);
+    }
+
+    @Test
+    @DisplayName("Should keep timers beyond one revolution until their deadline comes around")
+    void shouldWrapAround() {
+        TimingWheel.Timer<String> far = wheel.schedule("far", 2000);
+        wheel.schedule("near", 400);
+
+        for (long now = 100; now < 2000; now += 100) {
+            advanceTo(now);
+        }
+
+        // "far" shares its bucket with ticks 4, 12 and the like, but must not fire on those earlier laps.
+        assertEquals(List.of("near"), fired);
+        assertTrue(far.isPending());
+
+        advanceTo(2000);
+
+        assertEquals(List.of("near", "far"), fired);
+        assertFalse(far.isPending());
+    }
+
+    @Test
+    @DisplayName("Should not fire cancelled timers and keep the rest of their bucket")
+    void shouldCancel() {
+        wheel.schedule("first", 300);
+        TimingWheel.Timer<String> middle = wheel.schedule("middle", 300);
+        wheel.schedule("last", 1100);
+
+        wheel.cancel(middle);
+        wheel.cancel(middle);
+
+        assertFalse(middle.isPending());
+
+        advanceTo(300);
+        assertEquals(List.of("first"), fired);
+
+        advanceTo(1100);
+        assertEquals(List.of("first", "last"), fired);
+    }
+
+    @Test
+    @DisplayName("Should fire every overdue timer once when advanced late by more than a revolution")
+    void shouldCatchUpOnLateAdvance() {
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 900);
+        wheel.schedule("c", 3000);
+        wheel.schedule("d", 20_000);
+
+        advanceTo(10_000);
+
+        assertEquals(3, fired.size());
+        assertTrue(fired.containsAll(List.of("a", "b", "c")));
+
+        // A deadline that already passed fires on the next advance rather than being lost.
+        wheel.schedule("overdue", 5000);
+        advanceTo(10_000);
+        advanceTo(10_100);
+
+        assertEquals(4, fired.size());
+        assertEquals("overdue", fired.get(3));
+
+        advanceTo(20_000);
+        assertEquals(List.of("overdue", "d"), fired.subList(3, 5));
+    }
+
+    @Test
+    @DisplayName("Should let expired timers schedule new ones while advancing")
+    void shouldRescheduleFromCallback() {
+        wheel.schedule("tick", 100);
+        List<Long> firedAt = new ArrayList<>();
+
+        for (long now = 100; now <= 1000; now += 100) {
+            long current = now;
+            wheel.advance(now, item -> {
+                firedAt.add(current);
+                wheel.schedule(item, current + 300);
+            });
+        }
+
+        assertEquals(List.of(100L, 400L, 700L, 1000L), firedAt);
+    }
+}
@@ -2,7 +2,11 @@ package com.github.devrafaht.core.tracker;
 
 import com.github.devrafaht.core.metainfo.TorrentMetainfoFactory;
 import core.metainfo.TorrentMetainfo;
+import core.tracker.AnnounceEvent;
+import core.tracker.AnnounceRequest;
+import core.tracker.AnnounceResponse;
 import core.tracker.ByteUrlEncoder;
+import core.tracker.ScrapeResult;
 import core.tracker.TrackerClient;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,6 +19,11 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -122,4 +131,202 @@ class TrackerClientTest {
             trackerClient.request(metainfo, peerId, 6881);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should return response body asynchronously when server returns HTTP 200")
+    void shouldReturnBodyAsynchronously() throws Exception {
+        TrackerClient trackerClient = new TrackerClient(httpClient);
+        byte[] peerId = "-BC0001-123456789012".getBytes(StandardCharsets.UTF_8);
+        byte[] expect = "d8:intervali900ee".getBytes(StandardCharsets.UTF_8);
+
+        when(metainfo.getAnnounce()).thenReturn(TorrentMetainfoFactory.DEFAULT_ANNOUNCE);
+        when(metainfo.getInfoHash()).thenReturn(new byte[20]);
+        doReturn(CompletableFuture.completedFuture(httpResponse)).when(httpClient).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn(expect);
+
+        byte[] result = trackerClient.requestAsync(metainfo, peerId, 6881).get();
+
+        assertArrayEquals(expect, result);
+        verify(httpClient, never()).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    @DisplayName("Should fail the future with IOException when server returns non-200 status")
+    void shouldFailAsyncRequestWhenStatusIsNot200() {
+        TrackerClient trackerClient = new TrackerClient(httpClient);
+        byte[] peerId = "-BC0001-123456789012".getBytes(StandardCharsets.UTF_8);
+
+        when(metainfo.getAnnounce()).thenReturn(TorrentMetainfoFactory.DEFAULT_ANNOUNCE);
+        when(metainfo.getInfoHash()).thenReturn(new byte[20]);
+        doReturn(CompletableFuture.completedFuture(httpResponse)).when(httpClient).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        when(httpResponse.statusCode()).thenReturn(503);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> trackerClient.requestAsync(metainfo, peerId, 6881).get());
+
+        assertInstanceOf(IOException.class, exception.getCause());
+        assertEquals("Tracker failed. HTTP Status: 503", exception.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("Should limit concurrent announces overall and per tracker host")
+    void shouldLimitConcurrentAnnounces() {
+        TrackerClient trackerClient = new TrackerClient(httpClient);
+        byte[] peerId = "-BC0001-123456789012".getBytes(StandardCharsets.UTF_8);
+        List<CompletableFuture<HttpResponse<byte[]>>> inFlight = new ArrayList<>();
+        List<String> requestedHosts = new ArrayList<>();
+
+        doAnswer(invocation -> {
+            requestedHosts.add(((HttpRequest) invocation.getArgument(0)).uri().getHost());
+            CompletableFuture<HttpResponse<byte[]>> future = new CompletableFuture<>();
+            inFlight.add(future);
+            return future;
+        }).when(httpClient).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn(new byte[0]);
+
+        List<TorrentMetainfo> torrents = List.of(
+                torrentOn("http://a.example/announce"), torrentOn("http://a.example/announce"),
+                torrentOn("http://a.example/announce"), torrentOn("http://b.example/announce"));
+
+        Map<TorrentMetainfo, CompletableFuture<byte[]>> results = trackerClient.requestAll(torrents, peerId, 6881, 2, 1);
+
+        assertEquals(List.of("a.example", "b.example"), requestedHosts);
+
+        inFlight.get(0).complete(httpResponse);
+        assertEquals(3, inFlight.size());
+        assertEquals("a.example", requestedHosts.get(2));
+
+        inFlight.get(1).complete(httpResponse);
+        inFlight.get(2).complete(httpResponse);
+        inFlight.get(3).complete(httpResponse);
+
+        assertEquals(4, inFlight.size());
+        assertTrue(results.values().stream().allMatch(CompletableFuture::isDone));
+    }
+
+    @Test
+    @DisplayName("Should include transfer counters and event in announce URLs")
+    void shouldBuildAnnounceUrlFromRequest() {
+        TrackerClient trackerClient = new TrackerClient();
+        byte[] peerId = "-BC0001-123456789012".getBytes(StandardCharsets.UTF_8);
+        AnnounceRequest request = new AnnounceRequest(new byte[]{ 0x01 }, peerId, 6881, 10, 20, 30, AnnounceEvent.STARTED, 50, 0xBEEF);
+
+        String url = trackerClient.buildAnnounceUrl("http://t.example/announce?passkey=x", request);
+
+        assertEquals("http://t.example/announce?passkey=x&info_hash=" + ByteUrlEncoder.encode(new byte[]{ 0x01 })
+                + "&peer_id=" + ByteUrlEncoder.encode(peerId)
+                + "&port=6881&uploaded=10&downloaded=20&left=30&compact=1&event=started&numwant=50&key=beef", url);
+    }
+
+    @Test
+    @DisplayName("Should parse the announce response body")
+    void shouldParseAnnounceResponse() throws Exception {
+        TrackerClient trackerClient = new TrackerClient(httpClient);
+        AnnounceRequest request = new AnnounceRequest(new byte[20], new byte[20], 6881, 0, 0, 0, AnnounceEvent.NONE, -1, 1);
+
+        doReturn(CompletableFuture.completedFuture(httpResponse)).when(httpClient).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn("d8:intervali900e5:peers6:\u0001\u0002\u0003\u0004\u001A\u00E1e".getBytes(StandardCharsets.ISO_8859_1));
+
+        AnnounceResponse response = trackerClient.announce("http://t.example/announce", request).get();
+
+        assertEquals(900, response.getInterval());
+        assertEquals(6881, response.getPeers().ipv4Port(0));
+    }
+
+    @Test
+    @DisplayName("Should derive scrape URLs only from announce URLs that allow it")
+    void shouldDeriveScrapeUrl() {
+        assertEquals("http://t.example/scrape", TrackerClient.scrapeUrl("http://t.example/announce"));
+        assertEquals("http://t.example/x/scrape.php?passkey=1", TrackerClient.scrapeUrl("http://t.example/x/announce.php?passkey=1"));
+        assertNull(TrackerClient.scrapeUrl("http://t.example/a"));
+        assertNull(TrackerClient.scrapeUrl("http://t.example/announce/x"));
+        assertNull(TrackerClient.scrapeUrl("http://t.example"));
+    }
+
+    @Test
+    @DisplayName("Should batch info hashes into few scrape requests and parse binary keys")
+    void shouldScrapeInBatches() throws Exception {
+        TrackerClient trackerClient = new TrackerClient(httpClient);
+        List<String> requestedUris = new ArrayList<>();
+        byte[] body = "d5:filesd20:\u00FF\u0001AAAAAAAAAAAAAAAAAAd8:completei3e10:downloadedi9e10:incompletei4eeee"
+                .getBytes(StandardCharsets.ISO_8859_1);
+
+        doAnswer(invocation -> {
+            requestedUris.add(((HttpRequest) invocation.getArgument(0)).uri().toString());
+            return CompletableFuture.completedFuture(httpResponse);
+        }).when(httpClient).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn(body);
+
+        List<byte[]> infoHashes = new ArrayList<>();
+        for (int i = 0; i < TrackerClient.HTTP_SCRAPE_BATCH_SIZE + 1; i++) {
+            infoHashes.add(new byte[20]);
+        }
+
+        List<ScrapeResult> results = trackerClient.scrape("http://t.example/announce", infoHashes).get();
+
+        assertEquals(2, requestedUris.size());
+        assertTrue(requestedUris.get(0).startsWith("http://t.example/scrape?info_hash="));
+        assertEquals(TrackerClient.HTTP_SCRAPE_BATCH_SIZE, requestedUris.get(0).split("info_hash=").length - 1);
+        assertEquals(2, results.size());
+        assertEquals((byte) 0xFF, results.get(0).getInfoHash()[0]);
+        assertEquals(3, results.get(0).getComplete());
+        assertEquals(9, results.get(0).getDownloaded());
+        assertEquals(4, results.get(0).getIncomplete());
+    }
+
+    @Test
+    @DisplayName("Should limit scrape batches in flight against one tracker host")
+    void shouldLimitConcurrentScrapeBatches() throws Exception {
+        TrackerClient trackerClient = new TrackerClient(httpClient, 4, 2);
+        List<CompletableFuture<HttpResponse<byte[]>>> inFlight = new ArrayList<>();
+
+        doAnswer(invocation -> {
+            CompletableFuture<HttpResponse<byte[]>> future = new CompletableFuture<>();
+            inFlight.add(future);
+            return future;
+        }).when(httpClient).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn("d5:filesdee".getBytes(StandardCharsets.ISO_8859_1));
+
+        List<byte[]> infoHashes = new ArrayList<>();
+        for (int i = 0; i < TrackerClient.HTTP_SCRAPE_BATCH_SIZE * 5; i++) {
+            infoHashes.add(new byte[20]);
+        }
+
+        CompletableFuture<List<ScrapeResult>> first = trackerClient.scrape("http://t.example/announce", infoHashes);
+        CompletableFuture<List<ScrapeResult>> second = trackerClient.scrape("http://t.example/announce", List.of(new byte[20]));
+
+        // The per-host limit spans both calls.
+        assertEquals(2, inFlight.size());
+
+        for (int i = 0; i < 6; i++) {
+            inFlight.get(i).complete(httpResponse);
+            assertTrue(inFlight.size() <= i + 3);
+        }
+
+        assertEquals(6, inFlight.size());
+        assertTrue(first.get().isEmpty());
+        assertTrue(second.get().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should fail scrapes for trackers without a scrape URL")
+    void shouldFailScrapeWithoutScrapeUrl() {
+        TrackerClient trackerClient = new TrackerClient(httpClient);
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> trackerClient.scrape("http://t.example/tracker", List.of(new byte[20])).get());
+
+        assertInstanceOf(IOException.class, exception.getCause());
+    }
+
+    private static TorrentMetainfo torrentOn(String announce) {
+        TorrentMetainfo torrent = mock(TorrentMetainfo.class);
+        when(torrent.getAnnounce()).thenReturn(announce);
+        when(torrent.getInfoHash()).thenReturn(new byte[20]);
+        return torrent;
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.devrafaht.core.tracker;
+
+import core.tracker.TrackerTiers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TrackerTiers Tests")
+class TrackerTiersTest {
+
+    private static final List<List<String>> ANNOUNCE_LIST = List.of(
+            List.of("udp://a:1", "udp://b:1", "udp://c:1", "udp://d:1"),
+            List.of("http://e/announce"));
+
+    @Test
+    @DisplayName("Should shuffle trackers only within their tier")
+    void shouldShuffleWithinTiers() {
+        List<List<String>> tiers = new TrackerTiers(ANNOUNCE_LIST, new Random(7)).snapshot();
+
+        assertEquals(2, tiers.size());
+        assertEquals(Set.copyOf(ANNOUNCE_LIST.get(0)), tiers.get(0).stream().collect(Collectors.toSet()));
+        assertEquals(ANNOUNCE_LIST.get(1), tiers.get(1));
+    }
+
+    @Test
+    @DisplayName("Should move a successful tracker to the front of its tier")
+    void shouldPromoteTracker() {
+        TrackerTiers tiers = new TrackerTiers(ANNOUNCE_LIST, new Random(7));
+        List<String> before = tiers.snapshot().get(0);
+        String last = before.get(3);
+
+        tiers.promote(0, last);
+
+        List<String> after = tiers.snapshot().get(0);
+        assertEquals(last, after.get(0));
+        assertEquals(before.subList(0, 3), after.subList(1, 4));
+    }
+
+    @Test
+    @DisplayName("Should ignore promotion of unknown trackers")
+    void shouldIgnoreUnknownTracker() {
+        TrackerTiers tiers = new TrackerTiers(ANNOUNCE_LIST, new Random(7));
+        List<List<String>> before = tiers.snapshot();
+
+        tiers.promote(1, "udp://a:1");
+
+        assertEquals(before, tiers.snapshot());
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.devrafaht.core.tracker;
+
+import core.tracker.AnnounceEvent;
+import core.tracker.AnnounceRequest;
+import core.tracker.AnnounceResponse;
+import core.tracker.ScrapeResult;
+import core.tracker.UdpTrackerClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UdpTrackerClient Tests")
+class UdpTrackerClientTest {
+
+    private static final byte[] PEER_ID = "-BC0001-123456789012".getBytes();
+
+    private UdpTrackerStub tracker;
+    private UdpTrackerClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tracker = new UdpTrackerStub();
+        client = new UdpTrackerClient(Duration.ofMillis(50), 3);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        tracker.close();
+    }
+
+    private static AnnounceRequest request(int seed) {
+        byte[] infoHash = new byte[20];
+        Arrays.fill(infoHash, (byte) seed);
+        return new AnnounceRequest(infoHash, PEER_ID, 6881, 100, 200, 300, AnnounceEvent.STARTED, 50, 42);
+    }
+
+    @Test
+    @DisplayName("Should connect, announce and decode the compact response")
+    void shouldAnnounce() throws Exception {
+        AnnounceResponse response = client.announce(tracker.announceUrl(), request(1)).get(5, TimeUnit.SECONDS);
+
+        assertFalse(response.isFailure());
+        assertEquals(1800, response.getInterval());
+        assertEquals(3, response.getIncomplete());
+        assertEquals(7, response.getComplete());
+        assertEquals(2, response.getPeers().size());
+        assertEquals(new InetSocketAddress("10.0.0.2", 6882), response.getPeers().toSocketAddress(1));
+
+        ByteBuffer packet = tracker.lastAnnounce;
+        assertEquals(98, packet.remaining());
+        assertEquals(200, packet.getLong(56));
+        assertEquals(300, packet.getLong(64));
+        assertEquals(100, packet.getLong(72));
+        assertEquals(AnnounceEvent.STARTED.getId(), packet.getInt(80));
+        assertEquals(42, packet.getInt(88));
+        assertEquals(50, packet.getInt(92));
+        assertEquals(6881, packet.getShort(96));
+    }
+
+    @Test
+    @DisplayName("Should share one connection id across concurrent announces")
+    void shouldReuseConnectionId() throws Exception {
+        List<CompletableFuture<AnnounceResponse>> results = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            results.add(client.announce(tracker.announceUrl(), request(i)));
+        }
+
+        for (CompletableFuture<AnnounceResponse> result : results) {
+            assertEquals(1800, result.get(5, TimeUnit.SECONDS).getInterval());
+        }
+
+        client.announce(tracker.announceUrl(), request(99)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, tracker.connects.get());
+        assertEquals(21, tracker.announces.get());
+    }
+
+    @Test
+    @DisplayName("Should retransmit lost packets with the same transaction")
+    void shouldRetransmitLostPackets() throws Exception {
+        tracker.packetsToDrop.set(2);
+
+        AnnounceResponse response = client.announce(tracker.announceUrl(), request(1)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1800, response.getInterval());
+        assertEquals(3, tracker.connects.get());
+        assertEquals(1, tracker.announces.get());
+    }
+
+    @Test
+    @DisplayName("Should split scrapes into batches of 74 hashes and keep request order")
+    void shouldScrapeInBatches() throws Exception {
+        List<byte[]> infoHashes = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            byte[] infoHash = new byte[20];
+            infoHash[0] = (byte) i;
+            infoHashes.add(infoHash);
+        }
+
+        List<ScrapeResult> results = client.scrape(tracker.announceUrl(), infoHashes).get(5, TimeUnit.SECONDS);
+
+        assertEquals(200, results.size());
+        assertEquals(3, tracker.scrapes.get());
+        assertEquals(1, tracker.connects.get());
+
+        for (int i = 0; i < 200; i++) {
+            assertSame(infoHashes.get(i), results.get(i).getInfoHash());
+            assertEquals(i, results.get(i).getComplete());
+            assertEquals(5, results.get(i).getDownloaded());
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail with a timeout once the retries are exhausted")
+    void shouldTimeOut() {
+        tracker.silent = true;
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> client.announce(tracker.announceUrl(), request(1)).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(SocketTimeoutException.class, exception.getCause());
+        assertEquals(4, tracker.connects.get());
+    }
+
+    @Test
+    @DisplayName("Should report tracker error packets as failure responses")
+    void shouldReportTrackerError() throws Exception {
+        tracker.errorMessage = "torrent not registered";
+
+        AnnounceResponse response = client.announce(tracker.announceUrl(), request(1)).get(5, TimeUnit.SECONDS);
+
+        assertTrue(response.isFailure());
+        assertEquals("torrent not registered", response.getFailureReason());
+    }
+
+    @Test
+    @DisplayName("Should reject non-UDP tracker URLs")
+    void shouldRejectInvalidUrl() {
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> client.announce("http://127.0.0.1:80/announce", request(1)).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+    }
+
+    @Test
+    @DisplayName("Should fail pending announces when closed")
+    void shouldFailPendingOnClose() throws Exception {
+        tracker.silent = true;
+        CompletableFuture<AnnounceResponse> result = client.announce(tracker.announceUrl(), request(1));
+
+        while (tracker.connects.get() == 0) {
+            Thread.onSpinWait();
+        }
+
+        client.close();
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, exception.getCause());
+        assertThrows(ExecutionException.class, () -> client.announce(tracker.announceUrl(), request(2)).get(5, TimeUnit.SECONDS));
+    }
+}
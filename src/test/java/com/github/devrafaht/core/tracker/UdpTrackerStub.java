@@ -0,0 +1,109 @@
+package com.github.devrafaht.core.tracker;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-process BEP 15 tracker on the loopback interface. Answers connect, announce and scrape requests and
+// can be told to drop packets or to reply with an error to exercise the client's retransmit and error paths.
+class UdpTrackerStub implements AutoCloseable {
+
+    static final long CONNECTION_ID = 0x1122334455667788L;
+    static final byte[] PEERS = { 10, 0, 0, 1, 0x1A, (byte) 0xE1, 10, 0, 0, 2, 0x1A, (byte) 0xE2 };
+
+    private final DatagramSocket socket;
+    private final Thread thread;
+
+    final AtomicInteger connects = new AtomicInteger();
+    final AtomicInteger announces = new AtomicInteger();
+    final AtomicInteger scrapes = new AtomicInteger();
+    final AtomicInteger packetsToDrop = new AtomicInteger();
+    volatile String errorMessage;
+    volatile boolean silent;
+    volatile ByteBuffer lastAnnounce;
+
+    UdpTrackerStub() throws IOException {
+        this.socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        this.thread = Thread.ofPlatform().daemon().name("udp-tracker-stub").start(this::serve);
+    }
+
+    String announceUrl() {
+        return "udp://127.0.0.1:" + socket.getLocalPort() + "/announce";
+    }
+
+    private void serve() {
+        byte[] data = new byte[2048];
+
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(data, data.length);
+
+            try {
+                socket.receive(packet);
+                ByteBuffer request = ByteBuffer.wrap(data, 0, packet.getLength());
+                ByteBuffer response = respond(request);
+
+                if (response != null) {
+                    socket.send(new DatagramPacket(response.array(), response.position(), packet.getSocketAddress()));
+                }
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private ByteBuffer respond(ByteBuffer request) {
+        long connectionId = request.getLong();
+        int action = request.getInt();
+        int transactionId = request.getInt();
+
+        if (action == 0) {
+            connects.incrementAndGet();
+        } else if (action == 1) {
+            announces.incrementAndGet();
+            lastAnnounce = ByteBuffer.wrap(request.array().clone(), 0, request.limit());
+        }
+
+        if (silent || packetsToDrop.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            return null;
+        }
+
+        if (errorMessage != null) {
+            byte[] message = errorMessage.getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(8 + message.length).putInt(3).putInt(transactionId).put(message);
+        }
+
+        if (action == 0) {
+            return ByteBuffer.allocate(16).putInt(0).putInt(transactionId).putLong(CONNECTION_ID);
+        }
+
+        if (action == 2 && connectionId == CONNECTION_ID) {
+            scrapes.incrementAndGet();
+            int hashes = request.remaining() / 20;
+            ByteBuffer response = ByteBuffer.allocate(8 + hashes * 12).putInt(2).putInt(transactionId);
+
+            // Seeders echo the first byte of each hash so the client's ordering can be checked.
+            for (int i = 0; i < hashes; i++) {
+                response.putInt(request.get(request.position() + i * 20) & 0xFF).putInt(5).putInt(1);
+            }
+
+            return response;
+        }
+
+        if (action == 1 && connectionId == CONNECTION_ID) {
+            return ByteBuffer.allocate(20 + PEERS.length).putInt(1).putInt(transactionId)
+                    .putInt(1800).putInt(3).putInt(7).put(PEERS);
+        }
+
+        return null;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        socket.close();
+        thread.join();
+    }
+}